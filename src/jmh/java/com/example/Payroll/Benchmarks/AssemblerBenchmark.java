@@ -0,0 +1,119 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.EmployeeModelAssembler;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.OrderModelAssembler;
+import com.example.Payroll.Controllers.EmployeeController;
+import com.example.Payroll.Controllers.OrderController;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * toModel for single entities and whole pages.
+ *
+ * The *_linkBuilder benchmarks build the same links the way the assemblers used to, with one
+ * linkTo(methodOn(...)) per link, and are the baseline for the per-request link prefix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssemblerBenchmark {
+
+    @Param({"100"})
+    public int pageSize;
+
+    private final EmployeeModelAssembler employeeAssembler = new EmployeeModelAssembler();
+
+    private final OrderModelAssembler orderAssembler = new OrderModelAssembler();
+
+    private Employee employee;
+
+    private Order order;
+
+    private KeysetPage<Employee> employeePage;
+
+    private KeysetPage<Order> orderPage;
+
+    @Setup
+    public void setUp() {
+        employee = Fixtures.employee(42L);
+        order = Fixtures.order(42L);
+        order.setStatus(Status.IN_PROGRESS);
+        employeePage = new KeysetPage<>(Fixtures.employees(pageSize), null, null, pageSize, (long) pageSize, null);
+        orderPage = new KeysetPage<>(Fixtures.orders(pageSize), null, null, pageSize, (long) pageSize, null);
+        Fixtures.bindRequest();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Fixtures.unbindRequest();
+    }
+
+    @Benchmark
+    public EntityModel<Employee> employeeToModel() {
+        return employeeAssembler.toModel(employee);
+    }
+
+    @Benchmark
+    public EntityModel<Employee> employeeToModel_linkBuilder() {
+        return EntityModel.of(employee, //
+                linkTo(methodOn(EmployeeController.class).one(employee.getId(), null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
+    }
+
+    @Benchmark
+    public EntityModel<Order> orderToModel() {
+        return orderAssembler.toModel(order);
+    }
+
+    @Benchmark
+    public EntityModel<Order> orderToModel_linkBuilder() {
+        EntityModel<Order> orderModel = EntityModel.of(order,
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(order.getId(), null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        if (order.getStatus() == Status.IN_PROGRESS) {
+            orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId(), null)).withRel("cancel"));
+            orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId(), null)).withRel("complete"));
+        }
+        return orderModel;
+    }
+
+    /**
+     * A whole page per fresh request, so the one-off prefix resolution is part of the cost.
+     */
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> employeePageToModel() {
+        Fixtures.bindRequest();
+        return employeeAssembler.toModel(employeePage);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Order>> orderPageToModel() {
+        Fixtures.bindRequest();
+        return orderAssembler.toModel(orderPage);
+    }
+}
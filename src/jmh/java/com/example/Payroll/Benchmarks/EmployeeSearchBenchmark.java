@@ -0,0 +1,125 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Services.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /employees/search through EmployeeService over a table of {@code rows} employees, one 20-row page per call;
+ * the repository* benchmarks run the same lookups without the transaction and HAL model around them.
+ *
+ * Names are spread so that each last name is shared by about rows / 10,000 employees and a role by rows / 20.
+ * The cursor cases ask for the page after the first 100 name matches, and for a role page 90% into the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EmployeeSearchBenchmark {
+
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeService employeeService;
+
+    private EmployeeRepository employeeRepository;
+
+    private final Pageable page = PageRequest.of(0, KeysetPage.DEFAULT_SIZE + 1);
+
+    private long deepCursor;
+
+    private long nameCursor;
+
+    @Setup
+    public void setUp() {
+        context = Fixtures.startApplication();
+        employeeService = context.getBean(EmployeeService.class);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+
+        long lastId = 0;
+        for (int from = 0; from < rows; from += INSERT_CHUNK) {
+            List<Employee> chunk = new ArrayList<>(INSERT_CHUNK);
+            for (int i = from; i < Math.min(rows, from + INSERT_CHUNK); i++) {
+                chunk.add(new Employee(String.format("First%04d", i % 1_000), String.format("Last%05d", (i * 7_919) % 10_000),
+                        "role" + (i % 20)));
+            }
+            List<Long> ids = employeeService.newEmployees(chunk.iterator());
+            lastId = ids.get(ids.size() - 1);
+        }
+        deepCursor = lastId - rows / 10;
+
+        Fixtures.bindRequest();
+        List<EntityModel<Employee>> firstPages = new ArrayList<>( //
+                employeeService.searchEmployees(null, "Last0042", null, null, null, KeysetPage.MAX_SIZE).getContent());
+        nameCursor = firstPages.get(firstPages.size() - 1).getContent().getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Fixtures.unbindRequest();
+        context.close();
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> byLastNamePrefix() {
+        return employeeService.searchEmployees(null, "Last0042", null, null, null, null);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> byLastNamePrefixNextPage() {
+        return employeeService.searchEmployees(null, "Last0042", null, nameCursor, null, null);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> byFirstAndLastNamePrefix() {
+        return employeeService.searchEmployees("First00", "Last004", null, null, null, null);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> byRole() {
+        return employeeService.searchEmployees(null, null, "role7", null, null, null);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<Employee>> byRoleDeepCursor() {
+        return employeeService.searchEmployees(null, null, "role7", deepCursor, null, null);
+    }
+
+    @Benchmark
+    public List<Employee> repositoryByLastNamePrefix() {
+        return employeeRepository.searchAfter(null, "Last0042", null, 0L, page);
+    }
+
+    @Benchmark
+    public List<Employee> repositoryByRoleDeepCursor() {
+        return employeeRepository.searchAfter(null, null, "role7", deepCursor, page);
+    }
+}
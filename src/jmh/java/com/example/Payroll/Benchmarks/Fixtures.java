@@ -0,0 +1,95 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.PayrollApplication;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared data and plumbing for the benchmarks: entities, a bound HTTP request, a HAL object mapper
+ * and the application itself on its in-memory H2 database.
+ */
+final class Fixtures {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private Fixtures() {}
+
+    static Employee employee(long id) {
+        Employee employee = new Employee("Bilbo" + id, "Baggins", id % 2 == 0 ? "burglar" : "thief");
+        employee.setId(id);
+        return employee;
+    }
+
+    static Order order(long id) {
+        Order order = new Order("Order " + id, STATUSES[(int) (id % STATUSES.length)]);
+        order.setId(id);
+        return order;
+    }
+
+    static List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            employees.add(employee(id));
+        }
+        return employees;
+    }
+
+    static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            orders.add(order(id));
+        }
+        return orders;
+    }
+
+    /**
+     * Binds a fresh request to the current thread, like DispatcherServlet does for every HTTP call.
+     */
+    static void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.setServerName("payroll.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    static void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    static ConfigurableApplicationContext startApplication(String... properties) {
+        return new SpringApplicationBuilder(PayrollApplication.class) //
+                .web(WebApplicationType.NONE) //
+                .properties("spring.devtools.restart.enabled=false", //
+                        "spring.autoconfigure.exclude=org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration", //
+                        "logging.level.root=WARN") //
+                .properties(properties) //
+                .run();
+    }
+
+    static ObjectMapper halMapper() {
+        return halMapper(new JsonFactory());
+    }
+
+    static ObjectMapper halMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator( //
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.EmployeeModelAssembler;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.OrderModelAssembler;
+import com.example.Payroll.Components.RepresentationModule;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HAL JSON serialization of the bodies of GET /orders and GET /employees, by the bean serializers or by the
+ * hand-written ones in RepresentationModule.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HalSerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int pageSize;
+
+    @Param({"bean", "hand-written"})
+    public String serializers;
+
+    private ObjectMapper halMapper;
+
+    private CollectionModel<EntityModel<Order>> orders;
+
+    private CollectionModel<EntityModel<Employee>> employees;
+
+    @Setup
+    public void setUp() {
+        halMapper = Fixtures.halMapper();
+        if ("hand-written".equals(serializers)) {
+            halMapper.registerModule(new RepresentationModule(new DefaultLinkRelationProvider()));
+        }
+        Fixtures.bindRequest();
+        orders = new OrderModelAssembler().toModel( //
+                new KeysetPage<>(Fixtures.orders(pageSize), null, null, pageSize, (long) pageSize, null));
+        employees = new EmployeeModelAssembler().toModel( //
+                new KeysetPage<>(Fixtures.employees(pageSize), null, null, pageSize, (long) pageSize, null));
+        Fixtures.unbindRequest();
+    }
+
+    @Benchmark
+    public byte[] ordersToHalJson() throws JsonProcessingException {
+        return halMapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] employeesToHalJson() throws JsonProcessingException {
+        return halMapper.writeValueAsBytes(employees);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Models.EmployeeName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * GET /employees/suggest lookups against a NameIndex holding {@code rows} employees, ten suggestions per call.
+ *
+ * Names come from 1,000 first names and 10,000 last names, so a one-letter prefix matches a large share of the
+ * keys and a full name only a handful. withOverlay repeats the short prefix after 4,000 renames that have not
+ * been merged into the arena yet. Setup prints the arena size reported by stats().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NameIndexBenchmark {
+
+    private static final int SUGGESTIONS = 10;
+
+    private static final String[] SYLLABLES = {"ba", "bo", "dro", "fa", "go", "li", "mer", "ni", "pe", "ro"};
+
+    @Param({"1000000"})
+    public int rows;
+
+    private NameIndex names;
+
+    private NameIndex namesWithOverlay;
+
+    @Setup
+    public void setUp() {
+        names = NameIndex.of("employeeNames");
+        names.load(LongStream.range(0, rows).mapToObj(NameIndexBenchmark::employee));
+        System.out.println(names.stats());
+
+        namesWithOverlay = NameIndex.of("employeeNames");
+        namesWithOverlay.load(LongStream.range(0, rows).mapToObj(NameIndexBenchmark::employee));
+        for (long id = 0; id < 4_000; id++) {
+            namesWithOverlay.put(id * 97, "Bobo" + id, "Renamed");
+        }
+        System.out.println(namesWithOverlay.stats());
+    }
+
+    static EmployeeName employee(long id) {
+        return new EmployeeName(id, name((int) (id % 1_000)), name((int) ((id * 7_919) % 10_000)) + "s");
+    }
+
+    private static String name(int n) {
+        StringBuilder name = new StringBuilder();
+        for (int i = n; ; i /= 10) {
+            name.append(SYLLABLES[i % 10]);
+            if (i < 10) {
+                break;
+            }
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    @Benchmark
+    public List<EmployeeName> oneLetter() {
+        return names.suggest("b", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<EmployeeName> lastName() {
+        return names.suggest("Ropefas", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<EmployeeName> fullName() {
+        return names.suggest("mermerba ropefa", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<EmployeeName> noMatch() {
+        return names.suggest("zz", SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<EmployeeName> withOverlay() {
+        return namesWithOverlay.suggest("b", SUGGESTIONS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Services.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order status transitions through OrderService against the in-memory H2 database.
+ *
+ * A transition consumes its order, so every cancel/complete benchmark creates one first;
+ * newOrder on its own is measured too so that its share can be subtracted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTransitionBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    @Setup
+    public void setUp() {
+        context = Fixtures.startApplication();
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<EntityModel<Order>> newOrder() {
+        return orderService.newOrder(new Order("Benchmark", Status.IN_PROGRESS));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> newThenCancel() {
+        return orderService.cancelOrder(newOrder().getBody().getContent().getId(), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> newThenComplete() {
+        return orderService.completeOrder(newOrder().getBody().getContent().getId(), null);
+    }
+}
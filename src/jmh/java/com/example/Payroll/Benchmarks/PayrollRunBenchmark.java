@@ -0,0 +1,114 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.PayrollRunEngine;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Ropositories.PayrollCheckpointRepository;
+import com.example.Payroll.Ropositories.PayrollRunRepository;
+import com.example.Payroll.Services.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One complete payroll run over {@code rows} employees per invocation, with {@code parallelism} fork-join workers.
+ *
+ * Each invocation gets a fresh run split into {@code partitions} checkpoints, saved before the clock starts, and
+ * writes its payslips under that run id, so the payslip table grows by {@code rows} every time.
+ * The speed-up from more workers is bounded by the cores of the machine and by the single H2 database behind them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PayrollRunBenchmark {
+
+    private static final int INSERT_CHUNK = 10_000;
+
+    private static final int PARTITIONS = 16;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ConfigurableApplicationContext context;
+
+    private PayrollRunEngine engine;
+
+    private PayrollRunRepository runRepository;
+
+    private PayrollCheckpointRepository checkpointRepository;
+
+    private long fromId;
+
+    private long toId;
+
+    private PayrollRun run;
+
+    private List<PayrollCheckpoint> checkpoints;
+
+    @Setup
+    public void setUp() {
+        context = Fixtures.startApplication("payroll.run.parallelism=" + parallelism);
+        engine = context.getBean(PayrollRunEngine.class);
+        runRepository = context.getBean(PayrollRunRepository.class);
+        checkpointRepository = context.getBean(PayrollCheckpointRepository.class);
+        EmployeeService employeeService = context.getBean(EmployeeService.class);
+
+        for (int from = 0; from < rows; from += INSERT_CHUNK) {
+            List<Employee> chunk = new ArrayList<>(INSERT_CHUNK);
+            for (int i = from; i < Math.min(rows, from + INSERT_CHUNK); i++) {
+                chunk.add(new Employee("Hobbit" + i, "Took", i % 3 == 0 ? "burglar" : "gardener"));
+            }
+            List<Long> ids = employeeService.newEmployees(chunk.iterator());
+            if (from == 0) {
+                fromId = ids.get(0);
+            }
+            toId = ids.get(ids.size() - 1) + 1;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newRun() {
+        run = runRepository.save(new PayrollRun(fromId, toId));
+        checkpoints = new ArrayList<>(PARTITIONS);
+        for (int i = 0; i < PARTITIONS; i++) {
+            checkpoints.add(new PayrollCheckpoint(run.getId(), i, fromId + (toId - fromId) * i / PARTITIONS,
+                    fromId + (toId - fromId) * (i + 1) / PARTITIONS));
+        }
+        checkpoints = checkpointRepository.saveAll(checkpoints);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PayrollRunEngine.Result run() {
+        CompletableFuture<PayrollRunEngine.Result> done = new CompletableFuture<>();
+        engine.start(run.getId(), checkpoints, done::complete);
+        return done.join();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Payroll.Benchmarks;
+
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.OrderModelAssembler;
+import com.example.Payroll.Configs.SmileConfig;
+import com.example.Payroll.Models.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The body of GET /orders in each format a caller can ask for: HAL JSON, HAL in Smile, and Smile without links.
+ * Writing is the server's cost, reading the caller's; the payload size is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmileSerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int pageSize;
+
+    @Param({"hal-json", "hal-smile", "plain-smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+
+    private CollectionModel<EntityModel<Order>> orders;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "hal-json":
+                mapper = Fixtures.halMapper();
+                break;
+            case "hal-smile":
+                mapper = Fixtures.halMapper(new SmileFactory());
+                break;
+            default:
+                mapper = SmileConfig.withoutLinks(new ObjectMapper(new SmileFactory()));
+        }
+        Fixtures.bindRequest();
+        orders = new OrderModelAssembler().toModel( //
+                new KeysetPage<>(Fixtures.orders(pageSize), null, null, pageSize, (long) pageSize, null));
+        Fixtures.unbindRequest();
+
+        body = mapper.writeValueAsBytes(orders);
+        System.out.println(format + ", " + pageSize + " orders: " + body.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] writeOrders() throws IOException {
+        return mapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public JsonNode readOrders() throws IOException {
+        return mapper.readTree(body);
+    }
+}
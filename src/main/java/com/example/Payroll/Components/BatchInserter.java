@@ -0,0 +1,59 @@
+package com.example.Payroll.Components;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Persists new entities in JDBC batches inside the caller's transaction.
+ *
+ * The persistence context is flushed and cleared every hibernate.jdbc.batch_size rows, so each flush
+ * becomes one batched INSERT and an arbitrarily long input never accumulates in the first-level cache.
+ */
+@Component
+public class BatchInserter {
+
+    private final EntityManager entityManager;
+
+    private final int batchSize;
+
+    public BatchInserter(EntityManager entityManager,
+                         @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    public <T> List<Long> persistAll(Iterator<T> rows, Function<T, Long> idOf) {
+
+        List<Long> ids = new ArrayList<>();
+        List<T> pending = new ArrayList<>(batchSize);
+
+        while (rows.hasNext()) {
+            T row = rows.next();
+            entityManager.persist(row);
+            pending.add(row);
+
+            if (pending.size() == batchSize) {
+                flush(pending, ids, idOf);
+            }
+        }
+        flush(pending, ids, idOf);
+
+        return ids;
+    }
+
+    private <T> void flush(List<T> pending, List<Long> ids, Function<T, Long> idOf) {
+
+        entityManager.flush();
+        entityManager.clear();
+        for (T row : pending) {
+            ids.add(idOf.apply(row));
+        }
+        pending.clear();
+    }
+}
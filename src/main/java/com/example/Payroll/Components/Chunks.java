@@ -0,0 +1,23 @@
+package com.example.Payroll.Components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits id lists for IN (...) queries, keeping each statement's parameter count bounded.
+ */
+public final class Chunks {
+
+    public static final int IN_CLAUSE_SIZE = 1_000;
+
+    private Chunks() {}
+
+    public static <T> List<List<T>> of(List<T> items, int size) {
+
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+}
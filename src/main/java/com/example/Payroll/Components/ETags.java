@@ -0,0 +1,91 @@
+package com.example.Payroll.Components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong entity tags derived from an entity's @Version column, and the If-None-Match / If-Match checks on them.
+ *
+ * The tag is known as soon as the entity is loaded, so a matching If-None-Match can be answered with 304
+ * before the EntityModel is assembled or serialized. An entity that was never persisted has no version and
+ * no tag; HttpHeaders.setETag(null) then leaves the header out.
+ */
+public final class ETags {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {}
+
+    public static boolean isAny(String ifMatch) {
+        return ifMatch != null && ifMatch.trim().equals(ANY);
+    }
+
+    /**
+     * The versions named by the strong tags in an If-Match header; weak or foreign tags can never match.
+     */
+    public static List<Long> versions(String ifMatch) {
+
+        List<Long> versions = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.length() > 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(candidate.substring(1, candidate.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        return versions;
+    }
+
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * True when If-None-Match lists the current tag, compared weakly as RFC 7232 asks for GET.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String eTag) {
+
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals(ANY)) {
+                return true;
+            }
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if (candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when an If-Match header is present and does not strongly match the current tag.
+     * A null tag stands for a resource that does not exist, which only an absent header lets through.
+     */
+    public static boolean isPreconditionFailed(String ifMatch, String eTag) {
+
+        if (ifMatch == null) {
+            return false;
+        }
+        if (eTag == null) {
+            return true;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals(ANY) || candidate.equals(eTag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -3,13 +3,21 @@ package com.example.Payroll.Components;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
+import com.example.Payroll.Models.MultiGetModel;
 import com.example.Payroll.Controllers.EmployeeController;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class EmployeeModelAssembler implements RepresentationModelAssembler<Employee, EntityModel<Employee>> {
@@ -17,15 +25,107 @@ public class EmployeeModelAssembler implements RepresentationModelAssembler<Empl
     @Override
     public EntityModel<Employee> toModel(Employee employee) {
 
+        // "/employees/{id}" is the aggregate root plus the id, so both links share one resolved prefix
+
+        String employees = employeesHref();
+
         return EntityModel.of(employee, //
-                linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                Link.of(employees + "/" + employee.getId()),
+                Link.of(employees, "employees"));
     }
 
     public CollectionModel<EntityModel<Employee>> toModel(List<EntityModel<Employee>> employees) {
 
-        return CollectionModel.of(employees, linkTo(methodOn(EmployeeController.class).all()).withSelfRel());
+        return CollectionModel.of(employees, Link.of(employeesHref()));
+    }
+
+    public CollectionModel<EntityModel<Employee>> toModel(KeysetPage<Employee> page) {
+
+        List<EntityModel<Employee>> employees = page.getContent().stream() //
+                .map(this::toModel) //
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Employee>> collectionModel = CollectionModel.of(employees, //
+                linkTo(methodOn(EmployeeController.class).all(page.getAfter(), page.getBefore(), page.getSize())).withSelfRel().expand());
+
+        // Cursor links only when there is something on the other side
+
+        if (page.getNext() != null) {
+            collectionModel.add(linkTo(methodOn(EmployeeController.class).all(page.getNext(), null, page.getSize())).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        if (page.getPrevious() != null) {
+            collectionModel.add(linkTo(methodOn(EmployeeController.class).all(null, page.getPrevious(), page.getSize())).withRel(IanaLinkRelations.PREV).expand());
+        }
+
+        return collectionModel;
+    }
+
+    public CollectionModel<EntityModel<Employee>> toModel(KeysetPage<Employee> page, String firstName, String lastName,
+                                                          String role) {
+
+        List<EntityModel<Employee>> employees = page.getContent().stream() //
+                .map(this::toModel) //
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Employee>> collectionModel = CollectionModel.of(employees, //
+                linkTo(methodOn(EmployeeController.class).search(firstName, lastName, role, page.getAfter(), page.getBefore(), page.getSize())).withSelfRel().expand());
+
+        if (page.getNext() != null) {
+            collectionModel.add(linkTo(methodOn(EmployeeController.class).search(firstName, lastName, role, page.getNext(), null, page.getSize())).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        if (page.getPrevious() != null) {
+            collectionModel.add(linkTo(methodOn(EmployeeController.class).search(firstName, lastName, role, null, page.getPrevious(), page.getSize())).withRel(IanaLinkRelations.PREV).expand());
+        }
+
+        return collectionModel;
     }
 
+    /**
+     * Suggestions link straight to their employee; the collection links back to the same query.
+     */
+    public CollectionModel<EntityModel<EmployeeName>> toSuggestions(List<EmployeeName> suggestions, String q, int limit) {
+
+        String employees = employeesHref();
+
+        List<EntityModel<EmployeeName>> models = suggestions.stream() //
+                .map(suggestion -> EntityModel.of(suggestion, Link.of(employees + "/" + suggestion.getId()))) //
+                .collect(Collectors.toList());
+
+        String self = UriComponentsBuilder.fromUriString(employees + "/suggest") //
+                .queryParam("q", q) //
+                .queryParam("limit", limit) //
+                .encode() //
+                .toUriString();
+
+        return CollectionModel.of(models, Link.of(self));
+    }
+
+    /**
+     * Builds the response to a lookup by id list in one pass: found employees in request order, the rest as missing.
+     */
+    public MultiGetModel<Employee> toModel(List<Long> ids, Map<Long, Employee> found) {
+
+        List<EntityModel<Employee>> employees = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+
+        for (Long id : ids) {
+            Employee employee = found.get(id);
+            if (employee == null) {
+                missing.add(id);
+            } else {
+                employees.add(toModel(employee));
+            }
+        }
+
+        String self = employeesHref() + "?ids=" + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        return new MultiGetModel<>(employees, missing, Link.of(self));
+    }
+
+    private String employeesHref() {
+
+        return LinkPrefixes.resolve("employees", () -> //
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withSelfRel().expand().getHref());
+    }
 
 }
@@ -0,0 +1,108 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.IOException;
+
+/**
+ * Writes an employee as the bean serializer would, {"id", "firstName", "lastName", "role", "name"}, without
+ * reflection. The name is copied into a per-thread buffer instead of being concatenated by getName().
+ */
+public class EmployeeSerializer extends StdSerializer<Employee> {
+
+    private static final ThreadLocal<char[]> NAME_BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    // What an EntityModel asks for on every write
+    private static final EmployeeSerializer UNWRAPPING = new EmployeeSerializer(NameTransformer.NOP, true);
+
+    private final SerializedString id;
+
+    private final SerializedString firstName;
+
+    private final SerializedString lastName;
+
+    private final SerializedString role;
+
+    private final SerializedString name;
+
+    private final boolean unwrapping;
+
+    public EmployeeSerializer() {
+        this(NameTransformer.NOP, false);
+    }
+
+    private EmployeeSerializer(NameTransformer names, boolean unwrapping) {
+        super(Employee.class);
+        this.id = new SerializedString(names.transform("id"));
+        this.firstName = new SerializedString(names.transform("firstName"));
+        this.lastName = new SerializedString(names.transform("lastName"));
+        this.role = new SerializedString(names.transform("role"));
+        this.name = new SerializedString(names.transform("name"));
+        this.unwrapping = unwrapping;
+    }
+
+    @Override
+    public void serialize(Employee employee, JsonGenerator gen, SerializerProvider provider) throws IOException {
+
+        if (unwrapping) {
+            writeFields(employee, gen);
+            return;
+        }
+        gen.writeStartObject(employee);
+        writeFields(employee, gen);
+        gen.writeEndObject();
+    }
+
+    void writeFields(Employee employee, JsonGenerator gen) throws IOException {
+
+        gen.writeFieldName(id);
+        if (employee.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(employee.getId());
+        }
+        gen.writeFieldName(firstName);
+        gen.writeString(employee.getFirstName());
+        gen.writeFieldName(lastName);
+        gen.writeString(employee.getLastName());
+        gen.writeFieldName(role);
+        gen.writeString(employee.getRole());
+        gen.writeFieldName(name);
+        writeName(employee, gen);
+    }
+
+    // Same text as getName(), a null part included as "null"
+    private static void writeName(Employee employee, JsonGenerator gen) throws IOException {
+
+        String first = String.valueOf(employee.getFirstName());
+        String last = String.valueOf(employee.getLastName());
+        int length = first.length() + 1 + last.length();
+
+        char[] buffer = NAME_BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[length];
+            NAME_BUFFER.set(buffer);
+        }
+        first.getChars(0, first.length(), buffer, 0);
+        buffer[first.length()] = ' ';
+        last.getChars(0, last.length(), buffer, first.length() + 1);
+        gen.writeString(buffer, 0, length);
+    }
+
+    // As the unwrapped content of an EntityModel
+    @Override
+    public boolean isUnwrappingSerializer() {
+        return unwrapping;
+    }
+
+    @Override
+    public JsonSerializer<Employee> unwrappingSerializer(NameTransformer names) {
+        return names == NameTransformer.NOP ? UNWRAPPING : new EmployeeSerializer(names, true);
+    }
+}
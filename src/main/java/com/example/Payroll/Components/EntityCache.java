@@ -0,0 +1,107 @@
+package com.example.Payroll.Components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of entities by id, evicting by size and by time since write.
+ *
+ * Only hits are cached; a missing id always goes to the loader. Invalidation inside a transaction is
+ * repeated after commit, so a reader that loaded the old row while the transaction was open cannot
+ * leave it in the cache.
+ */
+public class EntityCache<T> {
+
+    private final String name;
+
+    private final Cache<Long, T> cache;
+
+    private EntityCache(String name, Cache<Long, T> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    public static <T> EntityCache<T> of(String name, long maximumSize, Duration timeToLive) {
+
+        return new EntityCache<>(name, Caffeine.newBuilder() //
+                .maximumSize(maximumSize) //
+                .expireAfterWrite(timeToLive) //
+                .recordStats() //
+                .build());
+    }
+
+    public static <T> EntityCache<T> disabled(String name) {
+        return new EntityCache<>(name, null);
+    }
+
+    public Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public void invalidate(Long id) {
+
+        if (cache == null || id == null) {
+            return;
+        }
+        cache.invalidate(id);
+        afterCommit(() -> cache.invalidate(id));
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(ids);
+        afterCommit(() -> cache.invalidateAll(ids));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        if (cache != null) {
+            CacheStats cacheStats = cache.stats();
+            stats.put("size", cache.estimatedSize());
+            stats.put("hits", cacheStats.hitCount());
+            stats.put("misses", cacheStats.missCount());
+            stats.put("hitRate", cacheStats.hitRate());
+            stats.put("evictions", cacheStats.evictionCount());
+        }
+        return stats;
+    }
+
+    private static void afterCommit(Runnable action) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
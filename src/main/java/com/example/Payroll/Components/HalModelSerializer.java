@@ -0,0 +1,239 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.LinkRelationProvider;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes the HAL form of an EntityModel of an employee or an order, and of a CollectionModel of those, straight
+ * to the generator: the entity's fields or "_embedded" under the collection relation, then "_links" with one
+ * {"href"} object per relation, or an array of them when a relation repeats.
+ *
+ * That covers every model the assemblers build. Any other content, or a link carrying more than an href (a
+ * template, a title, a type...), goes to the serializer Spring HATEOAS configured, so the output never differs
+ * from it.
+ */
+public class HalModelSerializer extends StdSerializer<RepresentationModel<?>>
+        implements ContextualSerializer, ResolvableSerializer {
+
+    private static final SerializedString EMBEDDED = new SerializedString("_embedded");
+
+    private static final SerializedString LINKS = new SerializedString("_links");
+
+    private static final SerializedString HREF = new SerializedString("href");
+
+    private static final EmployeeSerializer EMPLOYEES = new EmployeeSerializer();
+
+    private static final OrderSerializer ORDERS = new OrderSerializer();
+
+    private final JsonSerializer<Object> delegate;
+
+    private final SerializedString employeesRel;
+
+    private final SerializedString ordersRel;
+
+    public HalModelSerializer(JsonSerializer<?> delegate, LinkRelationProvider relProvider) {
+        this(delegate, new SerializedString(relProvider.getCollectionResourceRelFor(Employee.class).value()),
+                new SerializedString(relProvider.getCollectionResourceRelFor(Order.class).value()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private HalModelSerializer(JsonSerializer<?> delegate, SerializedString employeesRel, SerializedString ordersRel) {
+        super(RepresentationModel.class, false);
+        this.delegate = (JsonSerializer<Object>) delegate;
+        this.employeesRel = employeesRel;
+        this.ordersRel = ordersRel;
+    }
+
+    @Override
+    public void serialize(RepresentationModel<?> model, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+
+        if (model.getClass() == EntityModel.class) {
+            EntityModel<?> entity = (EntityModel<?>) model;
+            List<Link> links = entity.getLinks().toList();
+            if (isWritable(entity.getContent(), links)) {
+                writeEntity(entity.getContent(), links, gen);
+                return;
+            }
+        } else if (model.getClass() == CollectionModel.class && isWritable((CollectionModel<?>) model)) {
+            writeCollection((CollectionModel<?>) model, gen);
+            return;
+        }
+        delegate.serialize(model, gen, provider);
+    }
+
+    @Override
+    public void serializeWithType(RepresentationModel<?> model, JsonGenerator gen, SerializerProvider provider,
+                                  TypeSerializer typeSerializer) throws IOException {
+        delegate.serializeWithType(model, gen, provider, typeSerializer);
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+            throws JsonMappingException {
+
+        if (delegate instanceof ContextualSerializer) {
+            JsonSerializer<?> contextual = ((ContextualSerializer) delegate).createContextual(provider, property);
+            if (contextual != delegate) {
+                return new HalModelSerializer(contextual, employeesRel, ordersRel);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+
+        if (delegate instanceof ResolvableSerializer) {
+            ((ResolvableSerializer) delegate).resolve(provider);
+        }
+    }
+
+    // Exact classes: a Hibernate proxy, like any subclass, is left to the bean serializer
+    private static boolean isWritable(Object content, List<Link> links) {
+
+        return content != null && (content.getClass() == Employee.class || content.getClass() == Order.class)
+                && hrefsOnly(links);
+    }
+
+    // Non-empty and all of one kind, so that everything goes under one relation
+    private static boolean isWritable(CollectionModel<?> model) {
+
+        Collection<?> content = model.getContent();
+        if (content.isEmpty() || !hrefsOnly(model.getLinks().toList())) {
+            return false;
+        }
+        Class<?> type = null;
+        for (Object element : content) {
+            if (element == null || element.getClass() != EntityModel.class) {
+                return false;
+            }
+            EntityModel<?> entity = (EntityModel<?>) element;
+            if (!isWritable(entity.getContent(), entity.getLinks().toList())) {
+                return false;
+            }
+            Class<?> elementType = entity.getContent().getClass();
+            if (type != null && type != elementType) {
+                return false;
+            }
+            type = elementType;
+        }
+        return true;
+    }
+
+    private void writeCollection(CollectionModel<?> model, JsonGenerator gen) throws IOException {
+
+        Collection<?> content = model.getContent();
+        EntityModel<?> first = (EntityModel<?>) content.iterator().next();
+
+        gen.writeStartObject(model);
+        gen.writeFieldName(EMBEDDED);
+        gen.writeStartObject();
+        gen.writeFieldName(first.getContent().getClass() == Employee.class ? employeesRel : ordersRel);
+        gen.writeStartArray();
+        for (Object element : content) {
+            EntityModel<?> entity = (EntityModel<?>) element;
+            writeEntity(entity.getContent(), entity.getLinks().toList(), gen);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        writeLinks(model.getLinks().toList(), gen);
+        gen.writeEndObject();
+    }
+
+    private static void writeEntity(Object content, List<Link> links, JsonGenerator gen) throws IOException {
+
+        gen.writeStartObject(content);
+        if (content.getClass() == Employee.class) {
+            EMPLOYEES.writeFields((Employee) content, gen);
+        } else {
+            ORDERS.writeFields((Order) content, gen);
+        }
+        writeLinks(links, gen);
+        gen.writeEndObject();
+    }
+
+    private static boolean hrefsOnly(List<Link> links) {
+
+        for (Link link : links) {
+            if (link.getHreflang() != null || link.getMedia() != null || link.getTitle() != null
+                    || link.getType() != null || link.getDeprecation() != null || link.getProfile() != null
+                    || link.getName() != null || link.isTemplated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Relations in order of first appearance; there are a handful of links, so a scan beats a map
+    private static void writeLinks(List<Link> links, JsonGenerator gen) throws IOException {
+
+        if (links.isEmpty()) {
+            return;
+        }
+        gen.writeFieldName(LINKS);
+        gen.writeStartObject();
+        for (int i = 0; i < links.size(); i++) {
+            String rel = links.get(i).getRel().value();
+            if (seenBefore(links, i, rel)) {
+                continue;
+            }
+            gen.writeFieldName(rel);
+            int count = 0;
+            for (int j = i; j < links.size(); j++) {
+                if (links.get(j).getRel().value().equals(rel)) {
+                    count++;
+                }
+            }
+            if (count == 1) {
+                writeLink(links.get(i), gen);
+                continue;
+            }
+            gen.writeStartArray();
+            for (int j = i; j < links.size(); j++) {
+                if (links.get(j).getRel().value().equals(rel)) {
+                    writeLink(links.get(j), gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    private static boolean seenBefore(List<Link> links, int index, String rel) {
+
+        for (int i = 0; i < index; i++) {
+            if (links.get(i).getRel().value().equals(rel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeLink(Link link, JsonGenerator gen) throws IOException {
+
+        gen.writeStartObject();
+        gen.writeFieldName(HREF);
+        gen.writeString(link.getHref());
+        gen.writeEndObject();
+    }
+}
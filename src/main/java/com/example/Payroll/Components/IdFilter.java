@@ -0,0 +1,174 @@
+package com.example.Payroll.Components;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Exact in-memory set of the ids that exist for one entity, consulted before the cache and the repository.
+ *
+ * Ids come from sequences and are dense, so one bit per id in lazily allocated pages costs far less than a
+ * Bloom filter of the same accuracy and never reports a false positive. The set may hold ids that are
+ * gone, but must never miss one that exists: ids are added as soon as they are assigned, removed only
+ * after the deleting transaction commits, and every answer is "maybe" until the initial load is done.
+ */
+public class IdFilter<T> {
+
+    private static final int PAGE_SHIFT = 16;
+
+    private static final int PAGE_WORDS = (1 << PAGE_SHIFT) / Long.SIZE;
+
+    // Ids from 2^31 up are not tracked and always pass through
+    private static final int MAX_PAGES = 1 << (31 - PAGE_SHIFT);
+
+    private final String name;
+
+    private final AtomicReferenceArray<AtomicLongArray> pages;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean ready;
+
+    private IdFilter(String name, AtomicReferenceArray<AtomicLongArray> pages) {
+        this.name = name;
+        this.pages = pages;
+    }
+
+    public static <T> IdFilter<T> of(String name) {
+        return new IdFilter<>(name, new AtomicReferenceArray<>(MAX_PAGES));
+    }
+
+    public static <T> IdFilter<T> disabled(String name) {
+        return new IdFilter<>(name, null);
+    }
+
+    /**
+     * False only when the id certainly does not exist.
+     */
+    public boolean mightContain(Long id) {
+
+        if (pages == null || !ready || !tracked(id)) {
+            return true;
+        }
+        AtomicLongArray page = pages.get(page(id));
+        if (page != null && (page.get(word(id)) & mask(id)) != 0) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public void add(Long id) {
+
+        if (pages == null || !tracked(id)) {
+            return;
+        }
+        AtomicLongArray page = pages.get(page(id));
+        if (page == null) {
+            pages.compareAndSet(page(id), null, new AtomicLongArray(PAGE_WORDS));
+            page = pages.get(page(id));
+        }
+        long mask = mask(id);
+        long word;
+        do {
+            word = page.get(word(id));
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!page.compareAndSet(word(id), word, word | mask));
+        count.increment();
+    }
+
+    /**
+     * Forgets the id once the surrounding transaction commits, or right away outside of one.
+     */
+    public void remove(Long id) {
+
+        if (pages == null || !tracked(id)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear(id);
+                }
+            });
+        } else {
+            clear(id);
+        }
+    }
+
+    /**
+     * Adds every existing id and starts answering lookups; ids added concurrently are kept.
+     */
+    public void load(Stream<Long> ids) {
+
+        if (pages == null) {
+            return;
+        }
+        ids.forEach(this::add);
+        ready = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", pages != null);
+        if (pages != null) {
+            stats.put("ready", ready);
+            stats.put("size", count.sum());
+            stats.put("rejected", rejected.sum());
+        }
+        return stats;
+    }
+
+    private void clear(Long id) {
+
+        AtomicLongArray page = pages.get(page(id));
+        if (page == null) {
+            return;
+        }
+        long mask = mask(id);
+        long word;
+        do {
+            word = page.get(word(id));
+            if ((word & mask) == 0) {
+                return;
+            }
+        } while (!page.compareAndSet(word(id), word, word & ~mask));
+        count.decrement();
+    }
+
+    private static boolean tracked(Long id) {
+        return id != null && id >= 0 && id < ((long) MAX_PAGES << PAGE_SHIFT);
+    }
+
+    private static int page(long id) {
+        return (int) (id >>> PAGE_SHIFT);
+    }
+
+    private static int word(long id) {
+        return (int) (id & ((1 << PAGE_SHIFT) - 1)) >>> 6;
+    }
+
+    private static long mask(long id) {
+        return 1L << (id & 63);
+    }
+}
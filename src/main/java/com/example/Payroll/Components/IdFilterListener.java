@@ -0,0 +1,43 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+
+/**
+ * Keeps the id filters in step with every insert and delete that goes through JPA, whichever code path
+ * makes it. Hibernate obtains it from the Spring context, so the filters are constructor-injected.
+ */
+public class IdFilterListener {
+
+    private final IdFilter<Employee> employeeIds;
+
+    private final IdFilter<Order> orderIds;
+
+    public IdFilterListener(IdFilter<Employee> employeeIds, IdFilter<Order> orderIds) {
+        this.employeeIds = employeeIds;
+        this.orderIds = orderIds;
+    }
+
+    @PostPersist
+    void persisted(Object entity) {
+
+        if (entity instanceof Employee) {
+            employeeIds.add(((Employee) entity).getId());
+        } else if (entity instanceof Order) {
+            orderIds.add(((Order) entity).getId());
+        }
+    }
+
+    @PostRemove
+    void removed(Object entity) {
+
+        if (entity instanceof Employee) {
+            employeeIds.remove(((Employee) entity).getId());
+        } else if (entity instanceof Order) {
+            orderIds.remove(((Order) entity).getId());
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.example.Payroll.Components;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Remembers what a POST with an Idempotency-Key created, so a retry gets the same resource back instead of a copy.
+ *
+ * The first request with a key claims it, runs, and stores what it created when its transaction commits; a retry
+ * with the same key and body is answered from the store without running again, and without a repository call.
+ * A retry that arrives while the first request is still running is told so, as is one that reuses the key for
+ * a different body. Keys expire timeToLive after they were claimed, and at most maximumSize are kept.
+ *
+ * In memory, keys are a bounded cache local to the process. In the database they are rows of idempotency_key
+ * written in the caller's transaction, so the key and the resource commit or roll back together, and every
+ * instance of the application sees them; expired rows are deleted every minute.
+ */
+public class IdempotencyKeys<T> implements AutoCloseable {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    public enum Outcome { CREATED, REPLAYED, IN_PROGRESS, MISMATCH }
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeys.class);
+
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private final String name;
+
+    private final Store store;
+
+    private final ObjectMapper objectMapper;
+
+    private final Class<T> type;
+
+    private final LongAdder created = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    private final LongAdder inProgress = new LongAdder();
+
+    private final LongAdder mismatched = new LongAdder();
+
+    private IdempotencyKeys(String name, ObjectMapper objectMapper, Class<T> type,
+                            Function<IdempotencyKeys<T>, IdempotencyKeys<T>.Store> store) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.store = store != null ? store.apply(this) : null;
+    }
+
+    public static <T> IdempotencyKeys<T> inMemory(String name, ObjectMapper objectMapper, Class<T> type,
+                                                  long maximumSize, Duration timeToLive) {
+
+        return new IdempotencyKeys<>(name, objectMapper, type, keys -> keys.new MemoryStore(maximumSize, timeToLive));
+    }
+
+    public static <T> IdempotencyKeys<T> jdbc(String name, ObjectMapper objectMapper, Class<T> type,
+                                              JdbcTemplate jdbcTemplate, long maximumSize, Duration timeToLive) {
+
+        return new IdempotencyKeys<>(name, objectMapper, type,
+                keys -> keys.new JdbcStore(jdbcTemplate, maximumSize, timeToLive));
+    }
+
+    public static <T> IdempotencyKeys<T> disabled(String name) {
+        return new IdempotencyKeys<>(name, null, null, null);
+    }
+
+    public static boolean isValid(String key) {
+        return !key.isEmpty() && key.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * Runs {@code create} unless {@code key} has been used before; call it inside the transaction that creates.
+     */
+    public Result<T> execute(String key, Object request, Supplier<T> create) {
+
+        if (store == null) {
+            return new Result<>(Outcome.CREATED, create.get());
+        }
+
+        String fingerprint = fingerprint(request);
+        Entry<T> existing = store.claim(key, fingerprint);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                mismatched.increment();
+                return new Result<>(Outcome.MISMATCH, null);
+            }
+            if (existing.value == null) {
+                inProgress.increment();
+                return new Result<>(Outcome.IN_PROGRESS, null);
+            }
+            replayed.increment();
+            return new Result<>(Outcome.REPLAYED, existing.value);
+        }
+
+        T value;
+        try {
+            value = create.get();
+        } catch (RuntimeException | Error e) {
+            store.release(key);
+            throw e;
+        }
+        store.complete(key, fingerprint, value);
+        created.increment();
+        return new Result<>(Outcome.CREATED, value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        if (store != null) {
+            stats.put("store", store.getKind());
+            stats.put("created", created.sum());
+            stats.put("replayed", replayed.sum());
+            stats.put("inProgress", inProgress.sum());
+            stats.put("mismatched", mismatched.sum());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private String fingerprint(Object request) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class Result<T> {
+
+        private final Outcome outcome;
+
+        private final T value;
+
+        Result(Outcome outcome, T value) {
+            this.outcome = outcome;
+            this.value = value;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+
+    // A claimed key; value is null until the request that claimed it has committed
+    private static final class Entry<T> {
+
+        private final String fingerprint;
+
+        private final T value;
+
+        Entry(String fingerprint, T value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+    }
+
+    private abstract class Store {
+
+        abstract String getKind();
+
+        /**
+         * Claims {@code key} for the caller, or returns whoever has it.
+         */
+        abstract Entry<T> claim(String key, String fingerprint);
+
+        abstract void complete(String key, String fingerprint, T value);
+
+        abstract void release(String key);
+
+        abstract void close();
+    }
+
+    private final class MemoryStore extends Store {
+
+        private final Cache<String, Entry<T>> keys;
+
+        MemoryStore(long maximumSize, Duration timeToLive) {
+            this.keys = Caffeine.newBuilder() //
+                    .maximumSize(maximumSize) //
+                    .expireAfterWrite(timeToLive) //
+                    .build();
+        }
+
+        @Override
+        String getKind() {
+            return "memory";
+        }
+
+        @Override
+        Entry<T> claim(String key, String fingerprint) {
+            return keys.asMap().putIfAbsent(key, new Entry<>(fingerprint, null));
+        }
+
+        @Override
+        void complete(String key, String fingerprint, T value) {
+
+            Entry<T> entry = new Entry<>(fingerprint, value);
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                keys.put(key, entry);
+                return;
+            }
+            // visible to retries only once the resource is, and forgotten if it never will be
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        keys.put(key, entry);
+                    } else {
+                        keys.invalidate(key);
+                    }
+                }
+            });
+        }
+
+        @Override
+        void release(String key) {
+            keys.invalidate(key);
+        }
+
+        @Override
+        void close() {
+            keys.invalidateAll();
+        }
+    }
+
+    private final class JdbcStore extends Store {
+
+        private static final String DELETE_EXPIRED_KEY = "delete from idempotency_key where id = ? and created_at < ?";
+
+        private static final String SELECT_KEY = "select fingerprint, result from idempotency_key where id = ?";
+
+        private static final String INSERT_KEY = "insert into idempotency_key (id, scope, fingerprint, created_at) " +
+                "select ?, ?, ?, ? where not exists (select 1 from idempotency_key where id = ?)";
+
+        private static final String UPDATE_RESULT = "update idempotency_key set result = ? where id = ?";
+
+        private static final String DELETE_KEY = "delete from idempotency_key where id = ?";
+
+        private static final String DELETE_EXPIRED = "delete from idempotency_key where scope = ? and created_at < ?";
+
+        private static final String SELECT_FIRST_DROPPED = "select created_at from idempotency_key where scope = ? " +
+                "order by created_at desc offset ? rows fetch next 1 rows only";
+
+        private static final String DELETE_DROPPED = "delete from idempotency_key where scope = ? and created_at <= ?";
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final long maximumSize;
+
+        private final Duration timeToLive;
+
+        private final ScheduledExecutorService purger;
+
+        JdbcStore(JdbcTemplate jdbcTemplate, long maximumSize, Duration timeToLive) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.maximumSize = maximumSize;
+            this.timeToLive = timeToLive;
+            this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name + "-purge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.purger.scheduleWithFixedDelay(this::purge, PURGE_INTERVAL.toMillis(), PURGE_INTERVAL.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        String getKind() {
+            return "jdbc";
+        }
+
+        @Override
+        Entry<T> claim(String key, String fingerprint) {
+
+            String id = name + ":" + key;
+            Instant now = Instant.now();
+            // an expired key is free again even if the purge has not got to it yet
+            jdbcTemplate.update(DELETE_EXPIRED_KEY, id, Timestamp.from(now.minus(timeToLive)));
+
+            Entry<T> existing = find(id);
+            if (existing != null) {
+                return existing;
+            }
+
+            try {
+                if (insert(id, fingerprint, now) == 1) {
+                    return null;
+                }
+            } catch (DuplicateKeyException | PessimisticLockingFailureException e) {
+                // claimed by a concurrent request; H2 only raises the duplicate once that one has committed
+            }
+            // the stored fingerprint and result decide, unless the claim is not visible yet
+            existing = find(id);
+            return existing != null ? existing : new Entry<>(fingerprint, null);
+        }
+
+        private Entry<T> find(String id) {
+
+            List<Entry<T>> existing = jdbcTemplate.query(SELECT_KEY, (row, i) -> new Entry<>(row.getString(1),
+                    row.getString(2) != null ? read(row.getString(2)) : null), id);
+            return existing.isEmpty() ? null : existing.get(0);
+        }
+
+        // A concurrent claim can still collide on the key; within the caller's transaction a savepoint keeps that
+        // from aborting it on databases that fail the whole transaction on an error
+        private int insert(String id, String fingerprint, Instant now) {
+
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                return jdbcTemplate.update(INSERT_KEY, id, name, fingerprint, Timestamp.from(now), id);
+            }
+            return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    int inserted = jdbcTemplate.update(INSERT_KEY, id, name, fingerprint, Timestamp.from(now), id);
+                    connection.releaseSavepoint(savepoint);
+                    return inserted;
+                } catch (DataAccessException e) {
+                    connection.rollback(savepoint);
+                    throw e;
+                }
+            });
+        }
+
+        @Override
+        void complete(String key, String fingerprint, T value) {
+
+            try {
+                jdbcTemplate.update(UPDATE_RESULT, objectMapper.writeValueAsString(value), name + ":" + key);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void release(String key) {
+
+            // inside a transaction the rollback takes the claim with it
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                jdbcTemplate.update(DELETE_KEY, name + ":" + key);
+            }
+        }
+
+        @Override
+        void close() {
+            purger.shutdownNow();
+        }
+
+        void purge() {
+
+            try {
+                jdbcTemplate.update(DELETE_EXPIRED, name, Timestamp.from(Instant.now().minus(timeToLive)));
+                // beyond maximumSize, the oldest keys go first
+                List<Timestamp> firstDropped = jdbcTemplate.queryForList(SELECT_FIRST_DROPPED, Timestamp.class, name,
+                        maximumSize);
+                if (!firstDropped.isEmpty()) {
+                    jdbcTemplate.update(DELETE_DROPPED, name, firstDropped.get(0));
+                }
+            } catch (DataAccessException e) {
+                log.warn("Purging {} failed", name, e);
+            }
+        }
+
+        private T read(String json) {
+
+            try {
+                return objectMapper.readValue(json, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
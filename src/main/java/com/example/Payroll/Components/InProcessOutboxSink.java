@@ -0,0 +1,52 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands events to consumers in the same JVM through a bounded queue, for tests and in-process listeners.
+ *
+ * A batch that does not fit is refused as a whole, so the relay keeps it in the outbox until there is room.
+ */
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final String name;
+
+    private final BlockingQueue<OutboxEvent> queue;
+
+    public InProcessOutboxSink(String name, int capacity) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+
+        if (queue.remainingCapacity() < events.size()) {
+            throw new IllegalStateException(name + " has room for " + queue.remainingCapacity() + " of "
+                    + events.size() + " events");
+        }
+        queue.addAll(events);
+    }
+
+    public OutboxEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    public List<OutboxEvent> drain() {
+
+        List<OutboxEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        return events;
+    }
+}
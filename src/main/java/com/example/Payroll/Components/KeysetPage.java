@@ -0,0 +1,105 @@
+package com.example.Payroll.Components;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated collection.
+ *
+ * Rows are read with "id > after" or "id < before" and a bounded limit, so the cost of a page
+ * does not depend on how deep into the table it is. One extra row is fetched to know whether
+ * another page exists in the direction of travel.
+ */
+public class KeysetPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> content;
+    private final Long after;
+    private final Long before;
+    private final Integer size;
+    private final Long next;
+    private final Long previous;
+
+    public KeysetPage(List<T> content, Long after, Long before, Integer size, Long next, Long previous) {
+        this.content = content;
+        this.after = after;
+        this.before = before;
+        this.size = size;
+        this.next = next;
+        this.previous = previous;
+    }
+
+    public static <T> KeysetPage<T> of(Long after, Long before, Integer size, //
+                                       BiFunction<Long, Pageable, List<T>> forward, //
+                                       BiFunction<Long, Pageable, List<T>> backward, //
+                                       Function<T, Long> idOf) {
+
+        int limit = limit(size);
+        Pageable pageable = PageRequest.of(0, limit + 1);
+
+        List<T> rows;
+        boolean hasNext;
+        boolean hasPrevious;
+
+        if (before != null) {
+            rows = new ArrayList<>(backward.apply(before, pageable));
+            hasPrevious = rows.size() > limit;
+            if (hasPrevious) {
+                rows.remove(limit);
+            }
+            Collections.reverse(rows);
+            hasNext = true;
+        } else {
+            rows = new ArrayList<>(forward.apply(after == null ? 0L : after, pageable));
+            hasNext = rows.size() > limit;
+            if (hasNext) {
+                rows.remove(limit);
+            }
+            hasPrevious = after != null;
+        }
+
+        Long next = hasNext && !rows.isEmpty() ? idOf.apply(rows.get(rows.size() - 1)) : null;
+        Long previous = hasPrevious && !rows.isEmpty() ? idOf.apply(rows.get(0)) : null;
+
+        return new KeysetPage<>(rows, after, before, size, next, previous);
+    }
+
+    public static int limit(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public Long getNext() {
+        return next;
+    }
+
+    public Long getPrevious() {
+        return previous;
+    }
+}
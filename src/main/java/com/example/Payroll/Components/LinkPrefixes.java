@@ -0,0 +1,36 @@
+package com.example.Payroll.Components;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Resolves a link prefix such as "http://host/orders" once per request.
+ *
+ * linkTo(methodOn(...)) builds a proxy invocation and walks the request mapping on every call, which adds up
+ * when a page of entities each carries several links. The assemblers resolve the collection URI through it
+ * once, keep it as a request attribute, and append ids with plain string concatenation afterwards.
+ */
+final class LinkPrefixes {
+
+    private static final String ATTRIBUTE_PREFIX = LinkPrefixes.class.getName() + ".";
+
+    private LinkPrefixes() {}
+
+    static String resolve(String name, Supplier<String> resolver) {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return resolver.get();
+        }
+
+        String key = ATTRIBUTE_PREFIX + name;
+        String prefix = (String) attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        if (prefix == null) {
+            prefix = resolver.get();
+            attributes.setAttribute(key, prefix, RequestAttributes.SCOPE_REQUEST);
+        }
+        return prefix;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Appends each event as one JSON line to a local file, or to the "payroll.outbox" log when there is no file.
+ *
+ * The file is synced to disk before publish returns, so a batch the relay deletes has really been written.
+ */
+public class LogOutboxSink implements OutboxSink, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger("payroll.outbox");
+
+    private final ObjectWriter writer;
+
+    private final FileOutputStream file;
+
+    public LogOutboxSink(ObjectMapper objectMapper, Path path) throws IOException {
+        this.writer = objectMapper.writer();
+        this.file = path != null ? new FileOutputStream(path.toFile(), true) : null;
+    }
+
+    @Override
+    public String getName() {
+        return file != null ? "file" : "log";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+
+        if (file == null) {
+            for (OutboxEvent event : events) {
+                log.info(writer.writeValueAsString(event));
+            }
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder(events.size() * 96);
+        for (OutboxEvent event : events) {
+            lines.append(writer.writeValueAsString(event)).append('\n');
+        }
+        file.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        file.getFD().sync();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (file != null) {
+            file.close();
+        }
+    }
+}
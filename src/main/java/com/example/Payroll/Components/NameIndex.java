@@ -0,0 +1,450 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.EmployeeName;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over employee names for typeahead: "bil", "bilbo b" and "bag" all find Bilbo Baggins.
+ *
+ * Each employee is filed twice, as "first last" and as "last first", in one sorted arena of UTF-8 bytes with
+ * an int offset and a long id per key, so a million employees cost a few tens of megabytes and a lookup is a
+ * binary search plus a short forward scan. Matching ignores ASCII case. Writes go to a small concurrent overlay
+ * that shadows the arena by id; once the overlay outgrows an eighth of the arena both are merged into a new one
+ * under the write lock, while readers keep using the previous state. Like IdFilter, changes made inside a
+ * transaction are applied after it commits.
+ */
+public class NameIndex {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final int MIN_OVERLAY = 4_096;
+
+    // Separates the two names in a key and records their order; both compare as a space
+    private static final byte FIRST_LAST = 0;
+
+    private static final byte LAST_FIRST = 1;
+
+    private final String name;
+
+    private final boolean enabled;
+
+    private final Object writeLock = new Object();
+
+    private volatile State state = new State(Arena.EMPTY);
+
+    private volatile boolean ready;
+
+    private NameIndex(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+
+    public static NameIndex of(String name) {
+        return new NameIndex(name, true);
+    }
+
+    public static NameIndex disabled(String name) {
+        return new NameIndex(name, false);
+    }
+
+    /**
+     * Up to {@code limit} employees with a name starting with {@code prefix}, in name order.
+     */
+    public List<EmployeeName> suggest(String prefix, int limit) {
+
+        List<EmployeeName> suggestions = new ArrayList<>(limit);
+        byte[] query = prefix.trim().getBytes(StandardCharsets.UTF_8);
+        if (!enabled || query.length == 0) {
+            return suggestions;
+        }
+
+        State state = this.state;
+        Arena arena = state.arena;
+        int i = arena.lowerBound(query);
+        Iterator<Key> added = state.added.tailSet(new Key(query, Long.MIN_VALUE)).iterator();
+        Key next = added.hasNext() ? added.next() : null;
+
+        // Merge the arena and the overlay in key order, skipping arena keys the overlay shadows
+        while (suggestions.size() < limit) {
+            boolean fromArena = i < arena.size() && arena.startsWith(i, query);
+            if (fromArena && state.shadowed(arena.ids[i])) {
+                i++;
+                continue;
+            }
+            boolean fromOverlay = next != null && next.startsWith(query);
+            if (!fromArena && !fromOverlay) {
+                break;
+            }
+
+            if (fromOverlay && (!fromArena || next.compareTo(arena.text, arena.start[i], arena.start[i + 1], arena.ids[i]) < 0)) {
+                add(suggestions, next.id, next.text, 0, next.text.length);
+                next = added.hasNext() ? added.next() : null;
+            } else {
+                add(suggestions, arena.ids[i], arena.text, arena.start[i], arena.start[i + 1]);
+                i++;
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Files the employee under its current names, replacing whatever it was filed under before.
+     */
+    public void put(Long id, String firstName, String lastName) {
+
+        if (enabled && id != null) {
+            afterCommit(() -> write(id, firstName, lastName));
+        }
+    }
+
+    public void remove(Long id) {
+
+        if (enabled && id != null) {
+            afterCommit(() -> write(id, null, null));
+        }
+    }
+
+    /**
+     * Builds the arena from every existing employee; changes made meanwhile stay in the overlay and win.
+     */
+    public void load(Stream<EmployeeName> names) {
+
+        if (!enabled) {
+            return;
+        }
+        Arena.Builder builder = new Arena.Builder();
+        names.forEach(employee -> {
+            builder.add(key(employee.getFirstName(), FIRST_LAST, employee.getLastName()), employee.getId());
+            builder.add(key(employee.getLastName(), LAST_FIRST, employee.getFirstName()), employee.getId());
+        });
+        Arena arena = builder.build(true);
+
+        synchronized (writeLock) {
+            State current = state;
+            State loaded = new State(arena);
+            loaded.added.addAll(current.added);
+            loaded.addedById.putAll(current.addedById);
+            loaded.removed.addAll(current.removed);
+            state = loaded;
+        }
+        ready = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (enabled) {
+            State state = this.state;
+            stats.put("ready", ready);
+            stats.put("keys", state.arena.size());
+            stats.put("overlay", state.added.size());
+            stats.put("removed", state.removed.size());
+            stats.put("arenaBytes", state.arena.bytes());
+        }
+        return stats;
+    }
+
+    private void write(Long id, String firstName, String lastName) {
+
+        synchronized (writeLock) {
+            State state = this.state;
+            Key[] previous = state.addedById.remove(id);
+            if (previous != null) {
+                state.added.removeAll(Arrays.asList(previous));
+            }
+
+            if (firstName == null && lastName == null) {
+                state.removed.add(id);
+            } else {
+                Key[] keys = {new Key(key(firstName, FIRST_LAST, lastName), id), new Key(key(lastName, LAST_FIRST, firstName), id)};
+                state.addedById.put(id, keys);
+                state.added.addAll(Arrays.asList(keys));
+                state.removed.remove(id);
+            }
+
+            // before load() the overlay holds everything written so far, and load() carries it over as is
+            if (ready && state.added.size() > Math.max(MIN_OVERLAY, state.arena.size() / 8)) {
+                this.state = new State(state.merge());
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static void add(List<EmployeeName> suggestions, long id, byte[] text, int from, int to) {
+
+        for (EmployeeName suggestion : suggestions) {
+            if (suggestion.getId() == id) {
+                return;
+            }
+        }
+        int separator = from;
+        while (text[separator] != FIRST_LAST && text[separator] != LAST_FIRST) {
+            separator++;
+        }
+        String before = new String(text, from, separator - from, StandardCharsets.UTF_8);
+        String after = new String(text, separator + 1, to - separator - 1, StandardCharsets.UTF_8);
+        suggestions.add(text[separator] == FIRST_LAST ? new EmployeeName(id, before, after) : new EmployeeName(id, after, before));
+    }
+
+    private static byte[] key(String name, byte separator, String otherName) {
+
+        byte[] first = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+        byte[] second = (otherName == null ? "" : otherName).getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[first.length + 1 + second.length];
+        System.arraycopy(first, 0, key, 0, first.length);
+        key[first.length] = separator;
+        System.arraycopy(second, 0, key, first.length + 1, second.length);
+        return key;
+    }
+
+    private static int fold(byte b) {
+        if (b >= 'A' && b <= 'Z') {
+            return b + ('a' - 'A');
+        }
+        if (b == FIRST_LAST || b == LAST_FIRST) {
+            return ' ';
+        }
+        return b & 0xFF;
+    }
+
+    private static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+
+        int length = Math.min(aTo - aFrom, bTo - bFrom);
+        for (int k = 0; k < length; k++) {
+            int difference = fold(a[aFrom + k]) - fold(b[bFrom + k]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (aTo - aFrom) - (bTo - bFrom);
+    }
+
+    private static boolean startsWith(byte[] text, int from, int to, byte[] prefix) {
+
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length; k++) {
+            if (fold(text[from + k]) != fold(prefix[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The arena plus the overlay written since it was built; a new State replaces both on every merge.
+     */
+    private static final class State {
+
+        final Arena arena;
+
+        final NavigableSet<Key> added = new ConcurrentSkipListSet<>();
+
+        final Map<Long, Key[]> addedById = new ConcurrentHashMap<>();
+
+        final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+        State(Arena arena) {
+            this.arena = arena;
+        }
+
+        boolean shadowed(long id) {
+            return addedById.containsKey(id) || removed.contains(id);
+        }
+
+        Arena merge() {
+
+            Arena.Builder builder = new Arena.Builder();
+            Iterator<Key> overlay = added.iterator();
+            Key next = overlay.hasNext() ? overlay.next() : null;
+            for (int i = 0; i < arena.size(); i++) {
+                if (shadowed(arena.ids[i])) {
+                    continue;
+                }
+                while (next != null && next.compareTo(arena.text, arena.start[i], arena.start[i + 1], arena.ids[i]) < 0) {
+                    builder.add(next.text, next.id);
+                    next = overlay.hasNext() ? overlay.next() : null;
+                }
+                builder.add(Arrays.copyOfRange(arena.text, arena.start[i], arena.start[i + 1]), arena.ids[i]);
+            }
+            while (next != null) {
+                builder.add(next.text, next.id);
+                next = overlay.hasNext() ? overlay.next() : null;
+            }
+            return builder.build(false);
+        }
+    }
+
+    /**
+     * Immutable sorted keys: key i is text[start[i], start[i + 1]) and belongs to employee ids[i].
+     */
+    private static final class Arena {
+
+        static final Arena EMPTY = new Arena(new byte[0], new int[] {0}, new long[0]);
+
+        final byte[] text;
+
+        final int[] start;
+
+        final long[] ids;
+
+        Arena(byte[] text, int[] start, long[] ids) {
+            this.text = text;
+            this.start = start;
+            this.ids = ids;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        long bytes() {
+            return text.length + 4L * start.length + 8L * ids.length;
+        }
+
+        boolean startsWith(int i, byte[] prefix) {
+            return NameIndex.startsWith(text, start[i], start[i + 1], prefix);
+        }
+
+        // First key not below the prefix; every key starting with it follows contiguously
+        int lowerBound(byte[] prefix) {
+
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(text, start[middle], start[middle + 1], prefix, 0, prefix.length) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        static final class Builder {
+
+            private final ByteArrayOutputStream text = new ByteArrayOutputStream();
+
+            private int[] start = new int[1024];
+
+            private long[] ids = new long[1024];
+
+            private int size;
+
+            void add(byte[] key, long id) {
+
+                if (size + 1 == start.length) {
+                    start = Arrays.copyOf(start, start.length * 2);
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                start[size] = text.size();
+                ids[size] = id;
+                text.write(key, 0, key.length);
+                size++;
+            }
+
+            Arena build(boolean sort) {
+
+                start[size] = text.size();
+                Arena unsorted = new Arena(text.toByteArray(), Arrays.copyOf(start, size + 1), Arrays.copyOf(ids, size));
+                if (!sort) {
+                    return unsorted;
+                }
+
+                Integer[] order = new Integer[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = i;
+                }
+                Arrays.sort(order, (i, j) -> {
+                    int byText = compare(unsorted.text, unsorted.start[i], unsorted.start[i + 1],
+                            unsorted.text, unsorted.start[j], unsorted.start[j + 1]);
+                    return byText != 0 ? byText : Long.compare(unsorted.ids[i], unsorted.ids[j]);
+                });
+
+                Builder sorted = new Builder();
+                for (Integer i : order) {
+                    sorted.add(Arrays.copyOfRange(unsorted.text, unsorted.start[i], unsorted.start[i + 1]), unsorted.ids[i]);
+                }
+                return sorted.build(false);
+            }
+        }
+    }
+
+    /**
+     * An overlay key, ordered like the arena: by folded text, then by id.
+     */
+    private static final class Key implements Comparable<Key> {
+
+        final byte[] text;
+
+        final long id;
+
+        Key(byte[] text, long id) {
+            this.text = text;
+            this.id = id;
+        }
+
+        boolean startsWith(byte[] prefix) {
+            return NameIndex.startsWith(text, 0, text.length, prefix);
+        }
+
+        int compareTo(byte[] other, int from, int to, long otherId) {
+            int byText = compare(text, 0, text.length, other, from, to);
+            return byText != 0 ? byText : Long.compare(id, otherId);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return compareTo(other.text, 0, other.text.length, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Files every employee JPA inserts, updates or deletes in the name index. Bulk JPQL updates bypass it, so
+ * EmployeeService puts replaced names itself.
+ */
+public class NameIndexListener {
+
+    private final NameIndex employeeNames;
+
+    public NameIndexListener(NameIndex employeeNames) {
+        this.employeeNames = employeeNames;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void saved(Employee employee) {
+        employeeNames.put(employee.getId(), employee.getFirstName(), employee.getLastName());
+    }
+
+    @PostRemove
+    void removed(Employee employee) {
+        employeeNames.remove(employee.getId());
+    }
+}
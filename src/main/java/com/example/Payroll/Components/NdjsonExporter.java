@@ -0,0 +1,62 @@
+package com.example.Payroll.Components;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of entities as newline delimited JSON, one row per line, as they come off the cursor.
+ *
+ * The persistence context is cleared every {@link #CLEAR_EVERY} rows so that an export of the whole table
+ * runs in constant memory instead of keeping every managed entity alive until the transaction ends.
+ */
+@Component
+public class NdjsonExporter {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final int CLEAR_EVERY = 1000;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    public NdjsonExporter(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        // the generator is flushed in batches below, not after every row
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public <T> long write(Stream<T> rows, OutputStream out) throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.writeValue(generator, iterator.next());
+            generator.writeRaw('\n');
+
+            if (++count % CLEAR_EVERY == 0) {
+                generator.flush();
+                entityManager.clear();
+            }
+        }
+
+        generator.flush();
+        return count;
+    }
+}
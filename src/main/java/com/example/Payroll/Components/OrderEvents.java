@@ -0,0 +1,361 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OrderEvent;
+import com.example.Payroll.Models.Status;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans order status changes out to Server-Sent Events subscribers from one bounded ring of recent events.
+ *
+ * Publishing only appends to the ring, after the transaction commits, and wakes the subscribers; each subscriber
+ * is drained by its own task on a pool of at most maxSubscribers threads, so a client whose socket is full holds
+ * up nobody but itself. A subscriber more than maxLag events behind is dropped. Event ids are "epoch-sequence",
+ * so a client reconnecting with Last-Event-ID resumes where it stopped as long as that event is still in the
+ * ring; otherwise, or after a restart, it gets a "reset" event and should re-read the orders it follows.
+ */
+public class OrderEvents implements AutoCloseable {
+
+    public static final String RESET_EVENT = "reset";
+
+    // Events sent per hold of the ring lock
+    private static final int SEND_BATCH = 256;
+
+    private final String name;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final OrderEvent[] ring;
+
+    // Sequence of the last event appended; guarded by this
+    private long sequence;
+
+    private final int maxLag;
+
+    private final int maxSubscribers;
+
+    private final long timeoutMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor senders;
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder resumed = new LongAdder();
+
+    private final LongAdder resets = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public OrderEvents(String name, int bufferSize, int maxLag, int maxSubscribers, Duration timeout) {
+        this.name = name;
+        this.ring = new OrderEvent[bufferSize];
+        this.maxLag = Math.min(maxLag, bufferSize);
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    public void publish(Long orderId, Status status) {
+        publish(Collections.singletonList(orderId), status);
+    }
+
+    /**
+     * Publishes {@code orderIds} entering {@code status} once the current transaction commits.
+     */
+    public void publish(List<Long> orderIds, Status status) {
+
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(orderIds, status);
+                }
+            });
+        } else {
+            append(orderIds, status);
+        }
+    }
+
+    /**
+     * Subscribes a client that last saw {@code lastEventId}, or null for live events only.
+     *
+     * @return null if there are maxSubscribers already
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+
+        Subscriber subscriber;
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                rejected.increment();
+                return null;
+            }
+            long last = sequenceOf(lastEventId);
+            boolean resumable = last >= 0 && last <= sequence && sequence - last <= ring.length;
+            if (resumable) {
+                resumed.increment();
+            } else if (lastEventId != null) {
+                resets.increment();
+            }
+            // a resumed client may start further behind than maxLag, but never further than the ring reaches
+            long start = resumable ? last : sequence;
+            subscriber = new Subscriber(emitter, start, Math.max(maxLag, sequence - start), lastEventId != null && !resumable);
+            subscribers.add(subscriber);
+        }
+
+        emitter.onCompletion(subscriber::finished);
+        emitter.onTimeout(subscriber::finished);
+        emitter.onError(error -> subscriber.finished());
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Sends a comment to every subscriber that has nothing else to send, so idle streams stay open through
+     * proxies and a client that went away is noticed on the write.
+     */
+    @Scheduled(initialDelayString = "${payroll.order-events.heartbeat-interval:PT15S}",
+            fixedDelayString = "${payroll.order-events.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("resumed", resumed.sum());
+        stats.put("resets", resets.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Ends every stream; clients reconnect with their Last-Event-ID and get a reset from the next process.
+     */
+    @Override
+    public void close() {
+
+        subscribers.forEach(Subscriber::drop);
+        senders.shutdown();
+    }
+
+    private void append(List<Long> orderIds, Status status) {
+
+        Instant at = Instant.now();
+        long last;
+        synchronized (this) {
+            for (Long orderId : orderIds) {
+                sequence++;
+                ring[(int) (sequence % ring.length)] = new OrderEvent(sequence, orderId, status, at);
+            }
+            last = sequence;
+        }
+        published.add(orderIds.size());
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(last);
+        }
+    }
+
+    private synchronized long head() {
+        return sequence;
+    }
+
+    /**
+     * Up to SEND_BATCH events after {@code after}, or null if the ring has already overwritten the next one.
+     */
+    private synchronized List<OrderEvent> eventsAfter(long after) {
+
+        if (sequence - after > ring.length) {
+            return null;
+        }
+        long to = Math.min(sequence, after + SEND_BATCH);
+        List<OrderEvent> events = new ArrayList<>((int) (to - after));
+        for (long next = after + 1; next <= to; next++) {
+            events.add(ring[(int) (next % ring.length)]);
+        }
+        return events;
+    }
+
+    private String idOf(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    // -1 for no id, a malformed one or one from another process
+    private long sequenceOf(String eventId) {
+
+        if (eventId == null || !eventId.startsWith(epoch + "-")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+
+        private final long allowedLag;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Sequence of the last event sent; written by the running drain task only
+        private volatile long sent;
+
+        private volatile boolean resetDue;
+
+        private volatile boolean heartbeatDue;
+
+        private volatile boolean dropped;
+
+        private volatile boolean finished;
+
+        Subscriber(SseEmitter emitter, long sent, long allowedLag, boolean resetDue) {
+            this.emitter = emitter;
+            this.sent = sent;
+            this.allowedLag = allowedLag;
+            this.resetDue = resetDue;
+        }
+
+        void offer(long head) {
+
+            if (head - sent > allowedLag) {
+                drop();
+            } else {
+                schedule();
+            }
+        }
+
+        // The emitter is completed by the drain task, never by a publisher that could block on it
+        void drop() {
+
+            if (!dropped && !finished) {
+                dropped = true;
+                subscribers.remove(this);
+                OrderEvents.this.dropped.increment();
+                schedule();
+            }
+        }
+
+        void heartbeat() {
+
+            heartbeatDue = true;
+            schedule();
+        }
+
+        void finished() {
+
+            finished = true;
+            subscribers.remove(this);
+        }
+
+        void schedule() {
+
+            if (!finished && scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                do {
+                    drain();
+                    scheduled.set(false);
+                } while (isPending() && scheduled.compareAndSet(false, true));
+            } catch (IOException | RuntimeException e) {
+                // the client has gone away; the container completes the emitter
+                finished();
+            }
+        }
+
+        private boolean isPending() {
+            return !finished && (dropped || resetDue || heartbeatDue || sent < head());
+        }
+
+        private void drain() throws IOException {
+
+            if (dropped) {
+                finished();
+                emitter.complete();
+                return;
+            }
+            if (resetDue) {
+                resetDue = false;
+                emitter.send(SseEmitter.event() //
+                        .id(idOf(sent)) //
+                        .name(RESET_EVENT) //
+                        .data("Events were missed; re-read the orders you follow"));
+            }
+
+            List<OrderEvent> events = eventsAfter(sent);
+            if (events == null) {
+                drop();
+                return;
+            }
+            if (heartbeatDue && events.isEmpty()) {
+                emitter.send(SseEmitter.event().comment(""));
+            }
+            heartbeatDue = false;
+            for (OrderEvent event : events) {
+                emitter.send(SseEmitter.event() //
+                        .id(idOf(event.getSequence())) //
+                        .data(event, MediaType.APPLICATION_JSON));
+                sent = event.getSequence();
+                delivered.increment();
+            }
+        }
+    }
+}
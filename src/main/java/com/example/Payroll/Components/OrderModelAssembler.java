@@ -3,32 +3,129 @@ package com.example.Payroll.Components;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.MultiGetModel;
+import com.example.Payroll.Models.OrderStats;
 import com.example.Payroll.Models.Status;
 import com.example.Payroll.Controllers.OrderController;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Component
 public class OrderModelAssembler implements RepresentationModelAssembler<Order, EntityModel<Order>> {
 
     @Override
     public EntityModel<Order> toModel(Order order) {
 
+        // Every order link hangs off the aggregate root, resolved once per request
+
+        String orders = ordersHref();
+        String self = orders + "/" + order.getId();
+
         // Unconditional links to single-item resource and aggregate root
 
         EntityModel<Order> orderModel = EntityModel.of(order,
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                Link.of(self),
+                Link.of(orders, "orders"));
 
         // Conditional links based on state of the order
 
         if (order.getStatus() == Status.IN_PROGRESS) {
-            orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-            orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+            orderModel.add(Link.of(self + "/cancel", "cancel"));
+            orderModel.add(Link.of(self + "/complete", "complete"));
         }
 
         return orderModel;
     }
+
+    public CollectionModel<EntityModel<Order>> toModel(KeysetPage<Order> page) {
+
+        List<EntityModel<Order>> orders = page.getContent().stream() //
+                .map(this::toModel) //
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Order>> collectionModel = CollectionModel.of(orders, //
+                linkTo(methodOn(OrderController.class).all(page.getAfter(), page.getBefore(), page.getSize())).withSelfRel().expand());
+
+        // Cursor links only when there is something on the other side
+
+        if (page.getNext() != null) {
+            collectionModel.add(linkTo(methodOn(OrderController.class).all(page.getNext(), null, page.getSize())).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        if (page.getPrevious() != null) {
+            collectionModel.add(linkTo(methodOn(OrderController.class).all(null, page.getPrevious(), page.getSize())).withRel(IanaLinkRelations.PREV).expand());
+        }
+
+        return collectionModel;
+    }
+
+    public CollectionModel<EntityModel<Order>> toModel(KeysetPage<Order> page, Status status) {
+
+        List<EntityModel<Order>> orders = page.getContent().stream() //
+                .map(this::toModel) //
+                .collect(Collectors.toList());
+
+        CollectionModel<EntityModel<Order>> collectionModel = CollectionModel.of(orders, //
+                linkTo(methodOn(OrderController.class).byStatus(status, page.getAfter(), page.getBefore(), page.getSize())).withSelfRel().expand());
+
+        if (page.getNext() != null) {
+            collectionModel.add(linkTo(methodOn(OrderController.class).byStatus(status, page.getNext(), null, page.getSize())).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        if (page.getPrevious() != null) {
+            collectionModel.add(linkTo(methodOn(OrderController.class).byStatus(status, null, page.getPrevious(), page.getSize())).withRel(IanaLinkRelations.PREV).expand());
+        }
+
+        return collectionModel;
+    }
+
+    /**
+     * Per-status counts, each linking to the orders it counts.
+     */
+    public OrderStats toModel(Map<Status, Long> counts, Instant reconciledAt) {
+
+        String orders = ordersHref();
+
+        OrderStats stats = new OrderStats(counts, reconciledAt);
+        stats.add(Link.of(orders + "/stats"));
+        counts.keySet().forEach(status -> stats.add(Link.of(orders + "?status=" + status, status.name().toLowerCase())));
+
+        return stats;
+    }
+
+    /**
+     * Orders found for an id list, kept in request order; ids without an order are listed as missing.
+     */
+    public MultiGetModel<Order> toModel(List<Long> ids, Map<Long, Order> found) {
+
+        List<EntityModel<Order>> orders = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+
+        for (Long id : ids) {
+            Order order = found.get(id);
+            if (order == null) {
+                missing.add(id);
+            } else {
+                orders.add(toModel(order));
+            }
+        }
+
+        String self = ordersHref() + "?ids=" + ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        return new MultiGetModel<>(orders, missing, Link.of(self));
+    }
+
+    private String ordersHref() {
+
+        return LinkPrefixes.resolve("orders", () -> //
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withSelfRel().expand().getHref());
+    }
 }
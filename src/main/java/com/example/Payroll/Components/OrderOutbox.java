@@ -0,0 +1,54 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records order status changes in the outbox table, in the transaction that makes them.
+ *
+ * Rows go in as JDBC batches: an identity id would stop Hibernate from batching, and a bulk transition can
+ * record thousands of them.
+ */
+@Component
+public class OrderOutbox {
+
+    private static final String INSERT_EVENT = "insert into order_outbox (order_id, status, created_at) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int batchSize;
+
+    public OrderOutbox(JdbcTemplate jdbcTemplate,
+                       @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long orderId, Status status) {
+        record(Collections.singletonList(orderId), status);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Long> orderIds, Status status) {
+
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_EVENT, orderIds, batchSize, (statement, orderId) -> {
+            statement.setLong(1, orderId);
+            statement.setString(2, status.name());
+            statement.setTimestamp(3, now);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.IOException;
+
+/**
+ * Writes an order as the bean serializer would, {"id", "description", "status"}, without reflection.
+ */
+public class OrderSerializer extends StdSerializer<Order> {
+
+    private static final SerializedString[] STATUSES = new SerializedString[Status.values().length];
+
+    static {
+        for (Status status : Status.values()) {
+            STATUSES[status.ordinal()] = new SerializedString(status.name());
+        }
+    }
+
+    // What an EntityModel asks for on every write
+    private static final OrderSerializer UNWRAPPING = new OrderSerializer(NameTransformer.NOP, true);
+
+    private final SerializedString id;
+
+    private final SerializedString description;
+
+    private final SerializedString status;
+
+    private final boolean unwrapping;
+
+    public OrderSerializer() {
+        this(NameTransformer.NOP, false);
+    }
+
+    private OrderSerializer(NameTransformer names, boolean unwrapping) {
+        super(Order.class);
+        this.id = new SerializedString(names.transform("id"));
+        this.description = new SerializedString(names.transform("description"));
+        this.status = new SerializedString(names.transform("status"));
+        this.unwrapping = unwrapping;
+    }
+
+    @Override
+    public void serialize(Order order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+
+        if (unwrapping) {
+            writeFields(order, gen);
+            return;
+        }
+        gen.writeStartObject(order);
+        writeFields(order, gen);
+        gen.writeEndObject();
+    }
+
+    void writeFields(Order order, JsonGenerator gen) throws IOException {
+
+        gen.writeFieldName(id);
+        if (order.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(order.getId());
+        }
+        gen.writeFieldName(description);
+        gen.writeString(order.getDescription());
+        gen.writeFieldName(status);
+        if (order.getStatus() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(STATUSES[order.getStatus().ordinal()]);
+        }
+    }
+
+    // As the unwrapped content of an EntityModel
+    @Override
+    public boolean isUnwrappingSerializer() {
+        return unwrapping;
+    }
+
+    @Override
+    public JsonSerializer<Order> unwrappingSerializer(NameTransformer names) {
+        return names == NameTransformer.NOP ? UNWRAPPING : new OrderSerializer(names, true);
+    }
+}
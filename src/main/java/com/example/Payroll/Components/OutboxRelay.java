@@ -0,0 +1,116 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OutboxEvent;
+import com.example.Payroll.Ropositories.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves outbox rows to the sinks in batches of batchSize, oldest first, and deletes them once every sink has them.
+ *
+ * Delivery is at least once: a batch whose delivery fails, or whose delete is lost to a crash, is delivered again.
+ * Rows are deleted by id rather than up to the last id read, because a transaction holding a lower id may commit
+ * after a higher one has been relayed. Only one relay should run against a table at a time.
+ */
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+
+    private final List<OutboxSink> sinks;
+
+    private final int batchSize;
+
+    private final Timer lagTimer;
+
+    private final Counter relayedCounter;
+
+    private final Counter failureCounter;
+
+    // When the oldest row seen by the last poll was written, or null if the outbox was empty
+    private volatile Instant oldestPending;
+
+    public OutboxRelay(OutboxRepository outboxRepository, List<OutboxSink> sinks, MeterRegistry registry,
+                       int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        this.lagTimer = Timer.builder("payroll.outbox.lag") //
+                .description("Time from an order change committing to its event reaching every sink") //
+                .register(registry);
+        this.relayedCounter = Counter.builder("payroll.outbox.relayed") //
+                .description("Outbox events delivered to every sink") //
+                .register(registry);
+        this.failureCounter = Counter.builder("payroll.outbox.failures") //
+                .description("Outbox batches that a sink failed to take") //
+                .register(registry);
+        Gauge.builder("payroll.outbox.oldest.age", this, OutboxRelay::oldestPendingSeconds) //
+                .description("Age of the oldest outbox event not yet relayed, as of the last poll") //
+                .baseUnit("seconds") //
+                .register(registry);
+    }
+
+    /**
+     * Relays full batches until the outbox is drained or a sink fails; the next poll starts a fixed delay after
+     * this one has finished.
+     *
+     * @return how many events were relayed
+     */
+    @Scheduled(initialDelayString = "${payroll.outbox.poll-interval:PT1S}",
+            fixedDelayString = "${payroll.outbox.poll-interval:PT1S}")
+    public int relay() {
+
+        int relayed = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                oldestPending = null;
+                return relayed;
+            }
+            oldestPending = batch.get(0).getCreatedAt();
+
+            for (OutboxSink sink : sinks) {
+                try {
+                    sink.publish(batch);
+                } catch (Exception e) {
+                    failureCounter.increment();
+                    log.warn("Outbox sink {} failed; {} events will be retried", sink.getName(), batch.size(), e);
+                    return relayed;
+                }
+            }
+
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+            for (List<Long> chunk : Chunks.of(ids, Chunks.IN_CLAUSE_SIZE)) {
+                outboxRepository.deleteAllByIdInBatch(chunk);
+            }
+
+            Instant now = Instant.now();
+            batch.forEach(event -> lagTimer.record(Duration.between(event.getCreatedAt(), now)));
+            relayedCounter.increment(batch.size());
+            relayed += batch.size();
+
+            if (batch.size() < batchSize) {
+                oldestPending = null;
+                return relayed;
+            }
+        }
+    }
+
+    private double oldestPendingSeconds() {
+
+        Instant oldest = oldestPending;
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+}
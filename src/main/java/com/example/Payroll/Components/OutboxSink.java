@@ -0,0 +1,16 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Somewhere OutboxRelay delivers order events. A batch counts as delivered once publish returns; if it throws,
+ * the same events come again on the next poll, so a sink may see an event more than once.
+ */
+public interface OutboxSink {
+
+    String getName();
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
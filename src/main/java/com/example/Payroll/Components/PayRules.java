@@ -0,0 +1,51 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Payslip;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Monthly pay by role: a fixed gross salary per role (a default for roles without one) and a flat tax rate.
+ *
+ * Roles are matched ignoring case and surrounding spaces, so "Burglar " is paid as "burglar".
+ */
+public class PayRules {
+
+    private final Map<String, BigDecimal> salaries = new HashMap<>();
+
+    private final BigDecimal defaultSalary;
+
+    private final BigDecimal taxRate;
+
+    public PayRules(Map<String, BigDecimal> salaries, BigDecimal defaultSalary, BigDecimal taxRate) {
+        salaries.forEach((role, salary) -> this.salaries.put(normalize(role), salary));
+        this.defaultSalary = defaultSalary;
+        this.taxRate = taxRate;
+    }
+
+    public Payslip payslip(Long runId, Long employeeId, String role) {
+
+        BigDecimal gross = salaries.getOrDefault(normalize(role), defaultSalary);
+        BigDecimal tax = gross.multiply(taxRate).setScale(2, RoundingMode.HALF_EVEN);
+
+        return new Payslip(runId, employeeId, role, gross, tax);
+    }
+
+    public Map<String, Object> describe() {
+
+        Map<String, Object> rules = new LinkedHashMap<>();
+        rules.put("salaries", new HashMap<>(salaries));
+        rules.put("defaultSalary", defaultSalary);
+        rules.put("taxRate", taxRate);
+        return rules;
+    }
+
+    private static String normalize(String role) {
+        return role == null ? "" : role.trim().toLowerCase(Locale.ROOT);
+    }
+}
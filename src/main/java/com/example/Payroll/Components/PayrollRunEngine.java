@@ -0,0 +1,264 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.Payslip;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Computes the payslips of one run on a dedicated fork-join pool, one task per partition of the run's id range.
+ *
+ * A partition advances in chunks of at most chunkSize employees after its checkpoint. Each chunk reads
+ * (id, role), applies the pay rules, inserts the payslips in JDBC batches of batchSize and moves the checkpoint
+ * to its last employee, all in one transaction; rows go through plain JDBC because a chunk never needs
+ * entities. The checkpoint only moves if it is still where the chunk started, and a payslip that already
+ * exists is left alone, so re-running a chunk after a crash or a lost race writes nothing twice.
+ *
+ * One run executes at a time. A pause, or a failed partition, lets every partition finish its current chunk
+ * and then stop.
+ */
+public class PayrollRunEngine implements AutoCloseable {
+
+    public enum Outcome { COMPLETED, PAUSED, FAILED }
+
+    private static final String SELECT_EMPLOYEES =
+            "select id, role from employee where id > ? and id < ? order by id fetch first ? rows only";
+
+    private static final String INSERT_PAYSLIP = "insert into payslip (run_id, employee_id, role, gross, tax, net) " +
+            "select ?, ?, ?, ?, ?, ? where not exists (select 1 from payslip where run_id = ? and employee_id = ?)";
+
+    private static final String ADVANCE_CHECKPOINT = "update payroll_checkpoint " +
+            "set last_id = ?, employees = employees + ?, gross = gross + ? " +
+            "where run_id = ? and partition_index = ? and last_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PayRules payRules;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    private final int batchSize;
+
+    private final Timer chunkTimer;
+
+    private final Counter employeeCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile long activeRunId;
+
+    private volatile boolean pauseRequested;
+
+    public PayrollRunEngine(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PayRules payRules,
+                            MeterRegistry registry, int parallelism, int chunkSize, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.payRules = payRules;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+        this.chunkTimer = Timer.builder("payroll.run.chunk") //
+                .description("Time to compute and insert the payslips of one chunk") //
+                .register(registry);
+        this.employeeCounter = Counter.builder("payroll.run.employees") //
+                .description("Payslips written by payroll runs") //
+                .register(registry);
+    }
+
+    /**
+     * Runs the unfinished partitions among {@code checkpoints} in the background unless another run is
+     * executing; {@code done} is told whether they all completed, were paused or failed.
+     *
+     * @return false if a run is already executing
+     */
+    public boolean start(long runId, List<PayrollCheckpoint> checkpoints, Consumer<Result> done) {
+
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        activeRunId = runId;
+        pauseRequested = false;
+
+        List<Partition> partitions = new ArrayList<>();
+        for (PayrollCheckpoint checkpoint : checkpoints) {
+            if (!checkpoint.isDone()) {
+                partitions.add(new Partition(runId, checkpoint.getPartitionIndex(), checkpoint.getLastId(), checkpoint.getToId()));
+            }
+        }
+
+        pool.execute(() -> {
+            Result result;
+            try {
+                // A failed partition stops the others after their current chunk; the run is over only once
+                // every one of them has returned, so nothing of it is still writing when the next run starts
+                partitions.forEach(ForkJoinTask::fork);
+                RuntimeException failure = null;
+                for (Partition partition : partitions) {
+                    try {
+                        partition.join();
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+                if (failure != null) {
+                    result = new Result(Outcome.FAILED, failure);
+                } else {
+                    boolean completed = partitions.stream().allMatch(Partition::isFinished);
+                    result = new Result(completed ? Outcome.COMPLETED : Outcome.PAUSED, null);
+                }
+            } finally {
+                running.set(false);
+            }
+            done.accept(result);
+        });
+        return true;
+    }
+
+    /**
+     * Asks the executing run to stop after its current chunks.
+     *
+     * @return false if {@code runId} is not the run executing here
+     */
+    public boolean pause(long runId) {
+
+        if (!running.get() || activeRunId != runId) {
+            return false;
+        }
+        pauseRequested = true;
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public boolean isRunning(long runId) {
+        return running.get() && activeRunId == runId;
+    }
+
+    @Override
+    public void close() {
+
+        pauseRequested = true;
+        pool.shutdown();
+        try {
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Processes the next chunk after lastId and returns the new checkpoint
+    private long chunk(long runId, int partitionIndex, long lastId, long toId) {
+
+        long started = System.nanoTime();
+
+        List<Payslip> payslips = new ArrayList<>(chunkSize);
+        long checkpoint = transactionTemplate.execute(status -> {
+            jdbcTemplate.query(SELECT_EMPLOYEES, resultSet -> {
+                payslips.add(payRules.payslip(runId, resultSet.getLong(1), resultSet.getString(2)));
+            }, lastId, toId, chunkSize);
+
+            jdbcTemplate.batchUpdate(INSERT_PAYSLIP, payslips, batchSize, (statement, payslip) -> {
+                statement.setLong(1, payslip.getRunId());
+                statement.setLong(2, payslip.getEmployeeId());
+                statement.setString(3, payslip.getRole());
+                statement.setBigDecimal(4, payslip.getGross());
+                statement.setBigDecimal(5, payslip.getTax());
+                statement.setBigDecimal(6, payslip.getNet());
+                statement.setLong(7, payslip.getRunId());
+                statement.setLong(8, payslip.getEmployeeId());
+            });
+
+            // a short chunk means nothing is left before toId
+            long next = payslips.size() < chunkSize ? toId - 1 : payslips.get(payslips.size() - 1).getEmployeeId();
+            BigDecimal gross = payslips.stream().map(Payslip::getGross).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            if (jdbcTemplate.update(ADVANCE_CHECKPOINT, next, payslips.size(), gross, runId, partitionIndex, lastId) != 1) {
+                throw new IllegalStateException("Checkpoint " + partitionIndex + " of payroll run " + runId
+                        + " moved past " + lastId + " while this chunk ran");
+            }
+            return next;
+        });
+
+        chunkTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        employeeCounter.increment(payslips.size());
+        return checkpoint;
+    }
+
+    private final class Partition extends RecursiveAction {
+
+        private final long runId;
+
+        private final int partitionIndex;
+
+        private final long toId;
+
+        private long lastId;
+
+        Partition(long runId, int partitionIndex, long lastId, long toId) {
+            this.runId = runId;
+            this.partitionIndex = partitionIndex;
+            this.lastId = lastId;
+            this.toId = toId;
+        }
+
+        boolean isFinished() {
+            return lastId >= toId - 1;
+        }
+
+        @Override
+        protected void compute() {
+
+            try {
+                while (!isFinished() && !pauseRequested) {
+                    lastId = chunk(runId, partitionIndex, lastId, toId);
+                }
+            } catch (RuntimeException | Error e) {
+                pauseRequested = true;
+                throw e;
+            }
+        }
+    }
+
+    public static final class Result {
+
+        private final Outcome outcome;
+
+        private final RuntimeException failure;
+
+        Result(Outcome outcome, RuntimeException failure) {
+            this.outcome = outcome;
+            this.failure = failure;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public RuntimeException getFailure() {
+            return failure;
+        }
+    }
+}
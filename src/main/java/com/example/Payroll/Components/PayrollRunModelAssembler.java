@@ -0,0 +1,36 @@
+package com.example.Payroll.Components;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+import com.example.Payroll.Controllers.PayrollController;
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Models.PayrollRunProgress;
+import com.example.Payroll.Models.RunStatus;
+import org.springframework.hateoas.Link;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+@Component
+public class PayrollRunModelAssembler {
+
+    public PayrollRunProgress toModel(PayrollRun run, List<PayrollCheckpoint> checkpoints) {
+
+        String self = linkTo(methodOn(PayrollController.class).one(run.getId())).withSelfRel().getHref();
+
+        PayrollRunProgress progress = new PayrollRunProgress(run, checkpoints, Instant.now());
+        progress.add(Link.of(self));
+
+        // Conditional links based on state of the run
+
+        if (run.getStatus() == RunStatus.RUNNING) {
+            progress.add(Link.of(self + "/pause", "pause"));
+        } else if (run.getStatus() == RunStatus.PAUSED || run.getStatus() == RunStatus.FAILED) {
+            progress.add(Link.of(self + "/resume", "resume"));
+        }
+
+        return progress;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * The hand-written serializers for employees, orders and their HAL models, in every object mapper Spring Boot
+ * builds; Spring HATEOAS copies the application's mapper for HAL, so they reach the HAL converters too.
+ * Only a mapper set up for HAL gets the HAL model serializer, naming collections as {@code relProvider} does.
+ */
+@Component
+public class RepresentationModule extends SimpleModule {
+
+    public RepresentationModule(LinkRelationProvider relProvider) {
+        super("RepresentationModule");
+        addSerializer(Employee.class, new EmployeeSerializer());
+        addSerializer(Order.class, new OrderSerializer());
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+
+                Class<?> type = description.getBeanClass();
+                if ((type == EntityModel.class || type == CollectionModel.class)
+                        && config.getHandlerInstantiator() instanceof Jackson2HalModule.HalHandlerInstantiator) {
+                    return new HalModelSerializer(serializer, relProvider);
+                }
+                return serializer;
+            }
+        });
+    }
+}
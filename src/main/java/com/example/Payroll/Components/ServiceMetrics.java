@@ -0,0 +1,160 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Controllers.Exceptions.EmployeeNotFoundException;
+import com.example.Payroll.Controllers.Exceptions.OrderNotFoundException;
+import com.example.Payroll.Controllers.Exceptions.PayrollRunNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public service method and tags the sample with how it ended, derived from the returned
+ * status or the thrown exception. Collection results also feed a size distribution.
+ *
+ * Meters are resolved once per method and outcome and kept here, so a call costs two clock reads and
+ * an array lookup rather than a registry search. Percentiles and histogram buckets are configured
+ * through management.metrics.distribution.* on the payroll.service prefix.
+ */
+@Aspect
+@Component
+public class ServiceMetrics {
+
+    static final String TIMER = "payroll.service";
+
+    static final String SIZE = "payroll.service.size";
+
+    enum Outcome {
+        OK, NOT_FOUND, WRONG_STATE, PRECONDITION_FAILED, BAD_REQUEST, ERROR;
+
+        final String tag = name().toLowerCase();
+    }
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentHashMap<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.example.Payroll.Services..*) && execution(public * *(..))")
+    public Object measure(ProceedingJoinPoint call) throws Throwable {
+
+        Meters meters = this.meters.computeIfAbsent(((MethodSignature) call.getSignature()).getMethod(), Meters::new);
+        Timer.Sample sample = Timer.start(registry);
+
+        Object result;
+        try {
+            result = call.proceed();
+        } catch (EmployeeNotFoundException | OrderNotFoundException | PayrollRunNotFoundException e) {
+            sample.stop(meters.timer(Outcome.NOT_FOUND));
+            throw e;
+        } catch (Throwable e) {
+            sample.stop(meters.timer(Outcome.ERROR));
+            throw e;
+        }
+
+        Outcome outcome = outcome(result);
+        sample.stop(meters.timer(outcome));
+        if (outcome == Outcome.OK) {
+            long size = size(result);
+            if (size >= 0) {
+                meters.size().record(size);
+            }
+        }
+        return result;
+    }
+
+    private static Outcome outcome(Object result) {
+
+        if (!(result instanceof ResponseEntity)) {
+            return Outcome.OK;
+        }
+        HttpStatus status = ((ResponseEntity<?>) result).getStatusCode();
+        switch (status) {
+            case NOT_FOUND:
+                return Outcome.NOT_FOUND;
+            case METHOD_NOT_ALLOWED:
+                return Outcome.WRONG_STATE;
+            case PRECONDITION_FAILED:
+                return Outcome.PRECONDITION_FAILED;
+            case BAD_REQUEST:
+                return Outcome.BAD_REQUEST;
+            default:
+                return status.isError() ? Outcome.ERROR : Outcome.OK;
+        }
+    }
+
+    // Number of items a call returned or wrote, or -1 when the result is not a collection
+    private static long size(Object result) {
+
+        if (result instanceof ResponseEntity) {
+            result = ((ResponseEntity<?>) result).getBody();
+        }
+        if (result instanceof CollectionModel) {
+            return ((CollectionModel<?>) result).getContent().size();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Long) {
+            return (Long) result;
+        }
+        return -1;
+    }
+
+    private final class Meters {
+
+        private final String service;
+
+        private final String operation;
+
+        private final Timer[] timers = new Timer[Outcome.values().length];
+
+        private volatile DistributionSummary size;
+
+        Meters(Method method) {
+            this.service = method.getDeclaringClass().getSimpleName();
+            this.operation = method.getName();
+        }
+
+        // Racing registrations are harmless: the registry hands both callers the same meter
+        Timer timer(Outcome outcome) {
+
+            Timer timer = timers[outcome.ordinal()];
+            if (timer == null) {
+                timer = Timer.builder(TIMER) //
+                        .description("Service operation latency by outcome") //
+                        .tags("service", service, "operation", operation, "outcome", outcome.tag) //
+                        .register(registry);
+                timers[outcome.ordinal()] = timer;
+            }
+            return timer;
+        }
+
+        DistributionSummary size() {
+
+            DistributionSummary size = this.size;
+            if (size == null) {
+                size = DistributionSummary.builder(SIZE) //
+                        .description("Items returned or written per service operation") //
+                        .tags("service", service, "operation", operation) //
+                        .register(registry);
+                this.size = size;
+            }
+            return size;
+        }
+    }
+}
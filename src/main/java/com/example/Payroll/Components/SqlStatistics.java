@@ -0,0 +1,122 @@
+package com.example.Payroll.Components;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Statements, rows and JDBC time spent by the current thread between open() and close(), usually one HTTP request.
+ *
+ * The counts come from a thin proxy around the DataSource: every execute* call on a statement is one statement
+ * (a JDBC batch is one round trip, so one statement), rows are the ones read through next() plus the update
+ * counts, and time is measured around the execute call only. Threads with no open scope are not counted.
+ */
+public final class SqlStatistics {
+
+    public static final String ATTRIBUTE = SqlStatistics.class.getName();
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long nanos;
+
+    private SqlStatistics() {}
+
+    public static SqlStatistics open() {
+
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    // Carries a scope opened on another thread, e.g. the request thread, over to the current one until close()
+    public static void resume(SqlStatistics statistics) {
+        CURRENT.set(statistics);
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return (DataSource) proxy(DataSource.class, dataSource);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    private static Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(SqlStatistics.class.getClassLoader(), new Class<?>[] {type}, new Counting(target));
+    }
+
+    private static final class Counting implements InvocationHandler {
+
+        private final Object target;
+
+        Counting(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if (name.equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+
+            SqlStatistics current = CURRENT.get();
+            boolean execute = current != null && target instanceof Statement && name.startsWith("execute");
+
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (execute) {
+                    current.statements++;
+                    current.nanos += System.nanoTime() - start;
+                }
+            }
+
+            if (execute && result instanceof Integer) {
+                current.rows += Math.max(0, (Integer) result);
+            } else if (execute && result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    current.rows += Math.max(0, count);
+                }
+            } else if (current != null && target instanceof ResultSet && name.equals("next") && (Boolean) result) {
+                current.rows++;
+            }
+
+            // Connections, statements and result sets handed out are wrapped in turn, keeping their declared type
+            Class<?> type = method.getReturnType();
+            if (result != null && (type == Connection.class || Statement.class.isAssignableFrom(type) || type == ResultSet.class)) {
+                return proxy(type, result);
+            }
+            return result;
+        }
+    }
+}
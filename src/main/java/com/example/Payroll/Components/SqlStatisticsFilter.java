@@ -0,0 +1,166 @@
+package com.example.Payroll.Components;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a SqlStatistics scope around each request, records it per endpoint and leaves it on the request for tests.
+ *
+ * Async handlers (the StreamingResponseBody exports) carry the scope onto the thread that writes the body and are
+ * recorded once the async request completes, so their statements count too.
+ *
+ * With headers on, the counts are written as X-Sql-* response headers just before the body starts, so statements
+ * issued while the body itself is serialized (lazy associations, streamed exports) only show up in the metrics.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    public static final String ROWS_HEADER = "X-Sql-Rows";
+
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final MeterRegistry registry;
+
+    private final boolean headers;
+
+    public SqlStatisticsFilter(MeterRegistry registry, boolean headers) {
+        this.registry = registry;
+        this.headers = headers;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        SqlStatistics statistics = SqlStatistics.open();
+        request.setAttribute(SqlStatistics.ATTRIBUTE, statistics);
+        HeaderWriter headerWriter = headers ? new HeaderWriter(response, statistics) : null;
+
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(SqlStatistics.ATTRIBUTE, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
+                SqlStatistics.resume(statistics);
+            }
+
+            @Override
+            public <T> void postProcess(NativeWebRequest webRequest, Callable<T> task, Object result) {
+                SqlStatistics.close();
+            }
+        });
+
+        try {
+            chain.doFilter(request, headerWriter != null ? headerWriter : response);
+        } finally {
+            SqlStatistics.close();
+            if (request.isAsyncStarted()) {
+                // the body is still to be written; it sets the headers and completion records the request
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, statistics);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            } else {
+                if (headerWriter != null) {
+                    headerWriter.writeHeaders();
+                }
+                record(request, statistics);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+
+        DistributionSummary.builder("payroll.sql.statements") //
+                .description("JDBC statements executed per request") //
+                .tags(tags) //
+                .register(registry) //
+                .record(statistics.getStatements());
+        DistributionSummary.builder("payroll.sql.rows") //
+                .description("Rows read or written per request") //
+                .tags(tags) //
+                .register(registry) //
+                .record(statistics.getRows());
+        Timer.builder("payroll.sql.time") //
+                .description("Time spent executing JDBC statements per request") //
+                .tags(tags) //
+                .register(registry) //
+                .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Sets the headers the first time the body is about to be written, or at the end for bodiless responses
+    private static final class HeaderWriter extends HttpServletResponseWrapper {
+
+        private final SqlStatistics statistics;
+
+        private boolean written;
+
+        HeaderWriter(HttpServletResponse response, SqlStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        void writeHeaders() {
+
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+            setHeader(ROWS_HEADER, String.valueOf(statistics.getRows()));
+            setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", statistics.getNanos() / 1_000_000.0));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Status;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Live number of orders in each status, so dashboards never have to count the table.
+ *
+ * Every transition is applied after its transaction commits, as a move of n orders from one status to another.
+ * Writes that bypass OrderService (startup data, SQL run by hand) are only picked up by {@link #reconcile}, which
+ * replaces the counts with a GROUP BY result. A transaction holds the read side of a lock from just before it
+ * commits until its moves are applied, and the reconcile holds the write side around its query, so the result
+ * and the counts it replaces have seen exactly the same transitions. Its drift is how far the counts were off,
+ * and should stay at zero.
+ */
+public class StatusCounts {
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final String name;
+
+    private final AtomicLongArray counts = new AtomicLongArray(STATUSES.length);
+
+    private final ReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+
+    private volatile Instant reconciledAt;
+
+    private volatile long reconciliations;
+
+    private volatile long drift;
+
+    public StatusCounts(String name) {
+        this.name = name;
+    }
+
+    public void created(Status status, long n) {
+        move(null, status, n);
+    }
+
+    /**
+     * Counts n orders as moved from {@code from} to {@code to} once the current transaction commits.
+     */
+    public void move(Status from, Status to, long n) {
+
+        if (n == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                // a rollback never gets to beforeCommit, a failed commit does
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    reconcileLock.readLock().lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+
+                    if (!locked) {
+                        return;
+                    }
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            apply(from, to, n);
+                        }
+                    } finally {
+                        reconcileLock.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            reconcileLock.readLock().lock();
+            try {
+                apply(from, to, n);
+            } finally {
+                reconcileLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Replaces the counts with {@code count}, a query of the actual ones. No transition commits while it runs,
+     * and every one that committed before it has been applied.
+     */
+    public void reconcile(Supplier<Map<Status, Long>> count) {
+
+        reconcileLock.writeLock().lock();
+        try {
+            Map<Status, Long> actual = count.get();
+            long difference = 0;
+            for (Status status : STATUSES) {
+                long value = actual.getOrDefault(status, 0L);
+                difference += Math.abs(counts.getAndSet(status.ordinal(), value) - value);
+            }
+            drift = difference;
+            reconciliations++;
+            reconciledAt = Instant.now();
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+    }
+
+    public Map<Status, Long> snapshot() {
+
+        Map<Status, Long> snapshot = new EnumMap<>(Status.class);
+        for (Status status : STATUSES) {
+            snapshot.put(status, counts.get(status.ordinal()));
+        }
+        return snapshot;
+    }
+
+    public Instant getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Object> stats() {
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reconciliations", reconciliations);
+        stats.put("drift", drift);
+        stats.put("reconciledAt", reconciledAt);
+        return stats;
+    }
+
+    private void apply(Status from, Status to, long n) {
+
+        if (from != null) {
+            counts.addAndGet(from.ordinal(), -n);
+        }
+        counts.addAndGet(to.ordinal(), n);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Components.SingleFlight;
+import com.example.Payroll.Components.StatusCounts;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    EntityCache<Employee> employeeCache(@Value("${payroll.cache.employees.enabled:true}") boolean enabled,
+                                        @Value("${payroll.cache.employees.maximum-size:10000}") long maximumSize,
+                                        @Value("${payroll.cache.employees.time-to-live:PT10M}") Duration timeToLive) {
+
+        return enabled ? EntityCache.of("employees", maximumSize, timeToLive) : EntityCache.disabled("employees");
+    }
+
+    @Bean
+    EntityCache<Order> orderCache(@Value("${payroll.cache.orders.enabled:true}") boolean enabled,
+                                  @Value("${payroll.cache.orders.maximum-size:10000}") long maximumSize,
+                                  @Value("${payroll.cache.orders.time-to-live:PT1M}") Duration timeToLive) {
+
+        return enabled ? EntityCache.of("orders", maximumSize, timeToLive) : EntityCache.disabled("orders");
+    }
+
+    @Bean
+    IdFilter<Employee> employeeIds(@Value("${payroll.id-filter.enabled:true}") boolean enabled) {
+
+        return enabled ? IdFilter.of("employeeIds") : IdFilter.disabled("employeeIds");
+    }
+
+    @Bean
+    IdFilter<Order> orderIds(@Value("${payroll.id-filter.enabled:true}") boolean enabled) {
+
+        return enabled ? IdFilter.of("orderIds") : IdFilter.disabled("orderIds");
+    }
+
+    @Bean
+    NameIndex employeeNames(@Value("${payroll.name-index.enabled:true}") boolean enabled) {
+
+        return enabled ? NameIndex.of("employeeNames") : NameIndex.disabled("employeeNames");
+    }
+
+    @Bean
+    StatusCounts orderCounts() {
+        return new StatusCounts("orderCounts");
+    }
+
+    @Bean
+    SingleFlight<Long, Optional<Employee>> employeeLoads() {
+        return new SingleFlight<>("employeeLoads");
+    }
+
+    @Bean
+    SingleFlight<Long, Optional<Order>> orderLoads() {
+        return new SingleFlight<>("orderLoads");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${payroll.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payroll.idempotency.store:memory}")
+    private String store;
+
+    @Value("${payroll.idempotency.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${payroll.idempotency.time-to-live:PT24H}")
+    private Duration timeToLive;
+
+    @Bean(destroyMethod = "close")
+    IdempotencyKeys<Order> orderKeys(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        return keys("orders", Order.class, objectMapper, jdbcTemplate);
+    }
+
+    @Bean(destroyMethod = "close")
+    IdempotencyKeys<Employee> employeeKeys(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+        return keys("employees", Employee.class, objectMapper, jdbcTemplate);
+    }
+
+    private <T> IdempotencyKeys<T> keys(String name, Class<T> type, ObjectMapper objectMapper,
+                                        JdbcTemplate jdbcTemplate) {
+
+        if (!enabled) {
+            return IdempotencyKeys.disabled(name);
+        }
+        return "jdbc".equals(store) //
+                ? IdempotencyKeys.jdbc(name, objectMapper, type, jdbcTemplate, maximumSize, timeToLive) //
+                : IdempotencyKeys.inMemory(name, objectMapper, type, maximumSize, timeToLive);
+    }
+}
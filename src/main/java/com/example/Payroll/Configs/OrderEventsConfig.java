@@ -0,0 +1,21 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.OrderEvents;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class OrderEventsConfig {
+
+    @Bean(destroyMethod = "close")
+    OrderEvents orderEvents(@Value("${payroll.order-events.buffer-size:10000}") int bufferSize,
+                            @Value("${payroll.order-events.max-lag:1000}") int maxLag,
+                            @Value("${payroll.order-events.max-subscribers:256}") int maxSubscribers,
+                            @Value("${payroll.order-events.timeout:PT30M}") Duration timeout) {
+
+        return new OrderEvents("orderEvents", bufferSize, maxLag, maxSubscribers, timeout);
+    }
+}
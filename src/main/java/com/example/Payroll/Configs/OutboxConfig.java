@@ -0,0 +1,34 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.LogOutboxSink;
+import com.example.Payroll.Components.OutboxRelay;
+import com.example.Payroll.Components.OutboxSink;
+import com.example.Payroll.Ropositories.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    LogOutboxSink logOutboxSink(ObjectMapper objectMapper, @Value("${payroll.outbox.file:}") String file)
+            throws IOException {
+
+        // no file means the log
+        return new LogOutboxSink(objectMapper, file.isEmpty() ? null : Paths.get(file));
+    }
+
+    @Bean
+    OutboxRelay outboxRelay(OutboxRepository outboxRepository, List<OutboxSink> sinks, MeterRegistry registry,
+                            @Value("${payroll.outbox.batch-size:500}") int batchSize) {
+
+        return new OutboxRelay(outboxRepository, sinks, registry, batchSize);
+    }
+}
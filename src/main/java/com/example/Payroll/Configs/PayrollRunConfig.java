@@ -0,0 +1,45 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.PayRules;
+import com.example.Payroll.Components.PayrollRunEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+@Configuration
+public class PayrollRunConfig {
+
+    @Bean
+    PayRules payRules(Environment environment,
+                      @Value("${payroll.run.default-salary:3000.00}") BigDecimal defaultSalary,
+                      @Value("${payroll.run.tax-rate:0.20}") BigDecimal taxRate) {
+
+        return new PayRules(Binder.get(environment) //
+                .bind("payroll.run.salaries", Bindable.mapOf(String.class, BigDecimal.class)) //
+                .orElse(Collections.emptyMap()), defaultSalary, taxRate);
+    }
+
+    @Bean(destroyMethod = "close")
+    PayrollRunEngine payrollRunEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      PayRules payRules, MeterRegistry registry,
+                                      @Value("${payroll.run.parallelism:0}") int parallelism,
+                                      @Value("${payroll.run.chunk-size:1000}") int chunkSize,
+                                      @Value("${payroll.run.batch-size:500}") int batchSize) {
+
+        // 0 means one worker per core
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        return new PayrollRunEngine(jdbcTemplate, new TransactionTemplate(transactionManager), payRules, registry,
+                workers, chunkSize, batchSize);
+    }
+}
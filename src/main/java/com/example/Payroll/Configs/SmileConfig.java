@@ -0,0 +1,77 @@
+package com.example.Payroll.Configs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.hateoas.Links;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.hal.HalMediaTypeConfiguration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary Smile bodies for service-to-service callers, chosen by the Accept (or Content-Type) header.
+ *
+ * application/x-jackson-smile is the HAL document, links included, in Smile instead of JSON.
+ * application/vnd.payroll.plain+x-jackson-smile leaves the links out, for callers that know the URIs anyway;
+ * a collection is then {"content": [...]} rather than HAL's _embedded. Both converters come after the JSON ones,
+ * so a client that accepts anything still gets HAL JSON.
+ */
+@Configuration
+public class SmileConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String APPLICATION_PLAIN_SMILE_VALUE = "application/vnd.payroll.plain+x-jackson-smile";
+
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    public static final MediaType APPLICATION_PLAIN_SMILE = MediaType.parseMediaType(APPLICATION_PLAIN_SMILE_VALUE);
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    private final HalMediaTypeConfiguration halConfiguration;
+
+    public SmileConfig(Jackson2ObjectMapperBuilder objectMapperBuilder, HalMediaTypeConfiguration halConfiguration) {
+        this.objectMapperBuilder = objectMapperBuilder;
+        this.halConfiguration = halConfiguration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+
+        // replaces the stock Smile converter, which would render links as a plain "links" array
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        converters.add(converter(halConfiguration.configureObjectMapper(smileMapper.copy()), APPLICATION_SMILE));
+        converters.add(converter(withoutLinks(smileMapper.copy()), APPLICATION_PLAIN_SMILE));
+    }
+
+    /**
+     * Leaves the links of every representation model out of what {@code mapper} writes.
+     */
+    public static ObjectMapper withoutLinks(ObjectMapper mapper) {
+        return mapper.addMixIn(RepresentationModel.class, WithoutLinks.class);
+    }
+
+    private static MappingJackson2SmileHttpMessageConverter converter(ObjectMapper mapper, MediaType mediaType) {
+
+        MappingJackson2SmileHttpMessageConverter converter = new MappingJackson2SmileHttpMessageConverter(mapper);
+        converter.setSupportedMediaTypes(Collections.singletonList(mediaType));
+        return converter;
+    }
+
+    private abstract static class WithoutLinks {
+
+        @JsonIgnore
+        abstract Links getLinks();
+    }
+}
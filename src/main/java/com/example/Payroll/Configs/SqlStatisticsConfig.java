@@ -0,0 +1,40 @@
+package com.example.Payroll.Configs;
+
+import com.example.Payroll.Components.SqlStatistics;
+import com.example.Payroll.Components.SqlStatisticsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "payroll.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    // static, so wrapping the DataSource does not pull this configuration in before post-processing is set up
+    @Bean
+    static BeanPostProcessor sqlStatisticsDataSource() {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ? SqlStatistics.wrap((DataSource) bean) : bean;
+            }
+        };
+    }
+
+    @Bean
+    FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(MeterRegistry registry,
+                                                                    @Value("${payroll.sql-stats.headers:false}") boolean headers) {
+
+        FilterRegistrationBean<SqlStatisticsFilter> registration = new FilterRegistrationBean<>(new SqlStatisticsFilter(registry, headers));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Components.OrderEvents;
+import com.example.Payroll.Components.SingleFlight;
+import com.example.Payroll.Components.StatusCounts;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+@RestController
+public class CacheController {
+
+    private final List<EntityCache<?>> caches;
+
+    private final List<IdFilter<?>> idFilters;
+
+    private final List<SingleFlight<?, ?>> singleFlights;
+
+    private final List<NameIndex> nameIndexes;
+
+    private final List<StatusCounts> statusCounts;
+
+    private final List<OrderEvents> orderEvents;
+
+    private final List<IdempotencyKeys<?>> idempotencyKeys;
+
+    public CacheController(List<EntityCache<?>> caches, List<IdFilter<?>> idFilters,
+                           List<SingleFlight<?, ?>> singleFlights, List<NameIndex> nameIndexes,
+                           List<StatusCounts> statusCounts, List<OrderEvents> orderEvents,
+                           List<IdempotencyKeys<?>> idempotencyKeys) {
+        this.caches = caches;
+        this.idFilters = idFilters;
+        this.singleFlights = singleFlights;
+        this.nameIndexes = nameIndexes;
+        this.statusCounts = statusCounts;
+        this.orderEvents = orderEvents;
+        this.idempotencyKeys = idempotencyKeys;
+    }
+
+    @GetMapping("/caches")
+    public Map<String, Map<String, Object>> stats() {
+
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        caches.forEach(cache -> stats.put(cache.getName(), cache.stats()));
+        idFilters.forEach(idFilter -> stats.put(idFilter.getName(), idFilter.stats()));
+        singleFlights.forEach(singleFlight -> stats.put(singleFlight.getName(), singleFlight.stats()));
+        nameIndexes.forEach(nameIndex -> stats.put(nameIndex.getName(), nameIndex.stats()));
+        statusCounts.forEach(counts -> stats.put(counts.getName(), counts.stats()));
+        orderEvents.forEach(events -> stats.put(events.getName(), events.stats()));
+        idempotencyKeys.forEach(keys -> stats.put(keys.getName() + "IdempotencyKeys", keys.stats()));
+        return stats;
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.Payroll.Controllers;
 
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.NdjsonExporter;
 import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
 import com.example.Payroll.Services.EmployeeService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,7 +21,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 
 @RestController
@@ -19,34 +37,98 @@ public class EmployeeController {
 
     private final EmployeeService employeeService;
 
-    public EmployeeController(EmployeeService employeeService) {
+    private final ObjectReader employeeReader;
+
+    public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.employeeReader = objectMapper.readerFor(Employee.class);
     }
 
     @GetMapping("/employees")
-    public CollectionModel<EntityModel<Employee>> all() {
+    public CollectionModel<EntityModel<Employee>> all(@RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Long before,
+                                                      @RequestParam(required = false) Integer size) {
+
+        return employeeService.getEmployees(after, before, size);
+    }
+
+    @GetMapping(value = "/employees", params = "ids")
+    public ResponseEntity<?> byIds(@RequestParam List<Long> ids) {
+
+        return employeeService.getEmployees(ids);
+    }
+
+    @GetMapping("/employees/search")
+    public CollectionModel<EntityModel<Employee>> search(@RequestParam(required = false) String firstName,
+                                                         @RequestParam(required = false) String lastName,
+                                                         @RequestParam(required = false) String role,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Long before,
+                                                         @RequestParam(required = false) Integer size) {
+
+        return employeeService.searchEmployees(firstName, lastName, role, after, before, size);
+    }
+
+    @GetMapping("/employees/suggest")
+    public CollectionModel<EntityModel<EmployeeName>> suggest(@RequestParam String q,
+                                                              @RequestParam(required = false) Integer limit) {
 
-        return employeeService.getEmployees();
+        return employeeService.suggestEmployees(q, limit);
     }
 
+    @GetMapping(value = "/employees/export", produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+
+        StreamingResponseBody body = out -> employeeService.exportEmployees(out);
+
+        return ResponseEntity.ok() //
+                .contentType(MediaType.parseMediaType(NdjsonExporter.APPLICATION_NDJSON_VALUE)) //
+                .body(body);
+    }
 
     @PostMapping("/employees")
-    ResponseEntity<EntityModel<Employee>> newEmployee(@RequestBody Employee newEmployee) {
+    ResponseEntity<EntityModel<Employee>> newEmployee(@RequestBody Employee newEmployee,
+                                                      @RequestHeader(value = IdempotencyKeys.KEY_HEADER, required = false) String idempotencyKey) {
+
+        return (ResponseEntity<EntityModel<Employee>>) employeeService.newEmployee(newEmployee, idempotencyKey);
+    }
+
+    /**
+     * Reads the JSON array element by element while inserting, so the payload is never held in memory as a whole.
+     */
+    @PostMapping(value = "/employees/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<Long>> newEmployees(InputStream body) throws IOException {
+
+        try (MappingIterator<Employee> employees = employeeReader.readValues(body)) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(employeeService.newEmployees(employees));
+        } catch (JsonProcessingException e) {
+            throw invalidBatch(e);
+        } catch (RuntimeException e) {
+            // MappingIterator reports parse errors met while iterating as unchecked exceptions
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw invalidBatch((JsonProcessingException) e.getCause());
+            }
+            throw e;
+        }
+    }
 
-        return employeeService.newEmployee(newEmployee);
+    private static ResponseStatusException invalidBatch(JsonProcessingException e) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid employee batch: " + e.getOriginalMessage(), e);
     }
 
     @GetMapping("/employees/{id}")
-    public EntityModel<Employee> one(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Employee>> one(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        return employeeService.getEmployee(id);
+        return employeeService.getEmployee(id, ifNoneMatch);
     }
 
 
     @PutMapping("/employees/{id}")
-    public ResponseEntity<EntityModel<Employee>> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id) {
+    public ResponseEntity<EntityModel<Employee>> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        return employeeService.replaceEmployee(newEmployee, id);
+        return (ResponseEntity<EntityModel<Employee>>) employeeService.replaceEmployee(newEmployee, id, ifMatch);
     }
 
     @DeleteMapping("/employees/{id}")
@@ -3,7 +3,8 @@ package com.example.Payroll.Controllers.Exceptions;
 public class EmployeeNotFoundException extends RuntimeException {
 
     public EmployeeNotFoundException(Long id) {
-        super("Could not find employee " + id);
+        // Only the message reaches the client, so no stack trace is captured
+        super("Could not find employee " + id, null, false, false);
     }
 
 }
@@ -3,6 +3,7 @@ package com.example.Payroll.Controllers.Exceptions;
 public class OrderNotFoundException extends RuntimeException {
 
     public OrderNotFoundException(Long id) {
-        super("Could not find order " + id);
+        // Only the message reaches the client, so no stack trace is captured
+        super("Could not find order " + id, null, false, false);
     }
 }
@@ -0,0 +1,18 @@
+package com.example.Payroll.Controllers.Exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ControllerAdvice
+public class PayrollRunNotFoundAdvice {
+
+    @ResponseBody
+    @ExceptionHandler(PayrollRunNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    String payrollRunNotFoundHandler(PayrollRunNotFoundException ex) {
+        return ex.getMessage();
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.Payroll.Controllers.Exceptions;
+
+public class PayrollRunNotFoundException extends RuntimeException {
+
+    public PayrollRunNotFoundException(Long id) {
+        super("Could not find payroll run " + id, null, false, false);
+    }
+}
@@ -1,11 +1,22 @@
 package com.example.Payroll.Controllers;
 
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.NdjsonExporter;
+import com.example.Payroll.Models.BulkTransition;
 import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.OrderStats;
+import com.example.Payroll.Models.Status;
 import com.example.Payroll.Services.OrderService;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 
 @RestController
@@ -18,32 +29,87 @@ public class OrderController {
     }
 
     @GetMapping("/orders")
-    public CollectionModel<EntityModel<Order>> all() {
+    public CollectionModel<EntityModel<Order>> all(@RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Long before,
+                                                   @RequestParam(required = false) Integer size) {
+
+        return orderService.getOrders(after, before, size);
+    }
+
+    @GetMapping(value = "/orders", params = "ids")
+    public ResponseEntity<?> byIds(@RequestParam List<Long> ids) {
+
+        return orderService.getOrders(ids);
+    }
 
-        return orderService.getOrders();
+    @GetMapping(value = "/orders", params = "status")
+    public CollectionModel<EntityModel<Order>> byStatus(@RequestParam Status status,
+                                                        @RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Long before,
+                                                        @RequestParam(required = false) Integer size) {
+
+        return orderService.getOrders(status, after, before, size);
+    }
+
+    @GetMapping("/orders/stats")
+    public OrderStats stats() {
+
+        return orderService.getOrderStats();
+    }
+
+    @GetMapping(value = "/orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        return orderService.subscribeToOrders(lastEventId);
+    }
+
+    @GetMapping(value = "/orders/export", produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+
+        StreamingResponseBody body = out -> orderService.exportOrders(out);
+
+        return ResponseEntity.ok() //
+                .contentType(MediaType.parseMediaType(NdjsonExporter.APPLICATION_NDJSON_VALUE)) //
+                .body(body);
     }
 
     @GetMapping("/orders/{id}")
-    public EntityModel<Order> one(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Order>> one(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        return orderService.getOrder(id);
+        return orderService.getOrder(id, ifNoneMatch);
     }
 
     @PostMapping("/orders")
-    ResponseEntity<EntityModel<Order>> newOrder(@RequestBody Order order) {
+    ResponseEntity<EntityModel<Order>> newOrder(@RequestBody Order order,
+                                                @RequestHeader(value = IdempotencyKeys.KEY_HEADER, required = false) String idempotencyKey) {
 
-        return orderService.newOrder(order);
+        return (ResponseEntity<EntityModel<Order>>) orderService.newOrder(order, idempotencyKey);
     }
 
     @DeleteMapping("/orders/{id}/cancel")
-    public ResponseEntity<EntityModel<Order>> cancel(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Order>> cancel(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        return (ResponseEntity<EntityModel<Order>>) orderService.cancelOrder(id);
+        return (ResponseEntity<EntityModel<Order>>) orderService.cancelOrder(id, ifMatch);
     }
 
     @PutMapping("/orders/{id}/complete")
-    public ResponseEntity<EntityModel<Order>> complete(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Order>> complete(@PathVariable Long id,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+        return (ResponseEntity<EntityModel<Order>>) orderService.completeOrder(id, ifMatch);
+    }
+
+    @PostMapping("/orders/cancel")
+    public ResponseEntity<?> cancelAll(@RequestBody BulkTransition transition) {
+
+        return orderService.cancelOrders(transition);
+    }
+
+    @PostMapping("/orders/complete")
+    public ResponseEntity<?> completeAll(@RequestBody BulkTransition transition) {
 
-        return (ResponseEntity<EntityModel<Order>>) orderService.completeOrder(id);
+        return orderService.completeOrders(transition);
     }
 }
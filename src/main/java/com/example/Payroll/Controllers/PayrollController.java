@@ -0,0 +1,44 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Models.PayrollRunProgress;
+import com.example.Payroll.Services.PayrollService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+public class PayrollController {
+
+    private final PayrollService payrollService;
+
+    public PayrollController(PayrollService payrollService) {
+        this.payrollService = payrollService;
+    }
+
+    @PostMapping("/payroll/runs")
+    public ResponseEntity<?> start() {
+
+        return payrollService.startRun();
+    }
+
+    @GetMapping("/payroll/runs/{id}")
+    public PayrollRunProgress one(@PathVariable Long id) {
+
+        return payrollService.getRun(id);
+    }
+
+    @PostMapping("/payroll/runs/{id}/pause")
+    public ResponseEntity<?> pause(@PathVariable Long id) {
+
+        return payrollService.pauseRun(id);
+    }
+
+    @PostMapping("/payroll/runs/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable Long id) {
+
+        return payrollService.resumeRun(id);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.Payroll.Models;
+
+import java.util.List;
+
+/**
+ * Selects the orders of a bulk status transition, either by explicit ids or by an inclusive id range.
+ */
+public class BulkTransition {
+
+    private List<Long> ids;
+    private Long fromId;
+    private Long toId;
+
+    public BulkTransition() {}
+
+    public BulkTransition(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public BulkTransition(Long fromId, Long toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Long getFromId() {
+        return fromId;
+    }
+
+    public void setFromId(Long fromId) {
+        this.fromId = fromId;
+    }
+
+    public Long getToId() {
+        return toId;
+    }
+
+    public void setToId(Long toId) {
+        this.toId = toId;
+    }
+}
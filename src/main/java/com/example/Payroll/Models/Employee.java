@@ -2,18 +2,40 @@ package com.example.Payroll.Models;
 
 import java.util.Objects;
 
+import com.example.Payroll.Components.IdFilterListener;
+import com.example.Payroll.Components.NameIndexListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
+@EntityListeners({IdFilterListener.class, NameIndexListener.class})
+@Table(indexes = {
+        // GET /employees/search walks one of these in order, ending with id so that a page boundary is exact
+        @Index(name = "employee_last_name_idx", columnList = "lastName, firstName, id"),
+        @Index(name = "employee_first_name_idx", columnList = "firstName, lastName, id"),
+        @Index(name = "employee_role_idx", columnList = "role, id")})
 public class Employee {
 
-    private @Id @GeneratedValue Long id;
+    // Pooled sequence: one sequence call hands out 50 ids, which keeps bulk inserts batchable
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employee_seq", allocationSize = 50)
+    private @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq") Long id;
     private String firstName;
     private String lastName;
     private String role;
 
+    // Bumped on every update; it is the ETag, so clients never read or write it in the body
+    @JsonIgnore
+    private @Version Long version;
+
     public Employee() {}
 
     public Employee(String firstName, String lastName, String role) {
@@ -65,6 +87,14 @@ public class Employee {
         this.lastName = lastName;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
 
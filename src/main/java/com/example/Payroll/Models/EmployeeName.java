@@ -0,0 +1,58 @@
+package com.example.Payroll.Models;
+
+import java.util.Objects;
+
+/**
+ * An employee's id and names without the rest of the entity: one row of the name index, and one suggestion.
+ */
+public class EmployeeName {
+
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+
+    public EmployeeName(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getName() {
+        return this.firstName + " " + this.lastName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof EmployeeName))
+            return false;
+        EmployeeName that = (EmployeeName) o;
+        return Objects.equals(this.id, that.id) && Objects.equals(this.firstName, that.firstName)
+                && Objects.equals(this.lastName, that.lastName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.firstName, this.lastName);
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeName{" + "id=" + this.id + ", firstName='" + this.firstName + '\'' + ", lastName='"
+                + this.lastName + '\'' + '}';
+    }
+}
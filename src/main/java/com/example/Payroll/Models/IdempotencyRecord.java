@@ -0,0 +1,60 @@
+package com.example.Payroll.Models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * The outcome of one POST made with an Idempotency-Key, when the keys are kept in the database.
+ * Only defines the table; IdempotencyKeys reads and writes it with plain JDBC.
+ */
+@Entity
+@Table(name = "IDEMPOTENCY_KEY", indexes = {
+        // expiry deletes each scope's oldest rows first
+        @Index(name = "idempotency_key_scope_idx", columnList = "scope, createdAt")})
+public class IdempotencyRecord {
+
+    // "<scope>:<key>", where the scope is the endpoint's store, e.g. "orders"
+    @Id
+    @Column(length = 300)
+    private String id;
+
+    @Column(length = 32)
+    private String scope;
+
+    // SHA-256 of the request body, so a key reused for a different request is refused
+    @Column(length = 64)
+    private String fingerprint;
+
+    // The created resource as JSON; null while the first request is still running
+    @Lob
+    private String result;
+
+    private Instant createdAt;
+
+    public IdempotencyRecord() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
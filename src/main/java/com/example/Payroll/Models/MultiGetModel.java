@@ -0,0 +1,44 @@
+package com.example.Payroll.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Entities fetched by a list of ids, in the order they were requested, plus the ids that matched nothing.
+ */
+public class MultiGetModel<T> extends CollectionModel<EntityModel<T>> {
+
+    private final List<Long> missing;
+
+    @SuppressWarnings("deprecation")
+    public MultiGetModel(List<EntityModel<T>> content, List<Long> missing, Link... links) {
+        super(content, links);
+        this.missing = missing;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<Long> getMissing() {
+        return missing;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!super.equals(o))
+            return false;
+        MultiGetModel<?> that = (MultiGetModel<?>) o;
+        return Objects.equals(this.missing, that.missing);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), this.missing);
+    }
+}
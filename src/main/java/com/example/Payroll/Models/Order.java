@@ -2,20 +2,40 @@ package com.example.Payroll.Models;
 
 import java.util.Objects;
 
+import com.example.Payroll.Components.IdFilterListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
-@Table(name = "CUSTOMER_ORDER")
+@EntityListeners(IdFilterListener.class)
+@Table(name = "CUSTOMER_ORDER", indexes = {
+        // GET /orders?status= pages through one status in id order
+        @Index(name = "customer_order_status_idx", columnList = "status, id")})
 public class Order {
 
     private @Id @GeneratedValue Long id;
 
     private String description;
+
+    // By name rather than ordinal, so reordering Status can't silently relabel stored orders
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
     private Status status;
 
+    // The status UPDATEs in OrderRepository bump it by hand, since bulk JPQL bypasses versioning
+    @JsonIgnore
+    private @Version Long version;
+
     public Order() {}
 
     public Order(String description, Status status) {
@@ -48,6 +68,14 @@ public class Order {
         this.status = status;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
 
@@ -0,0 +1,64 @@
+package com.example.Payroll.Models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One order entering a status, as pushed to GET /orders/events; its sequence number travels as the event id.
+ */
+public class OrderEvent {
+
+    private final long sequence;
+    private final Long orderId;
+    private final Status status;
+    private final Instant at;
+
+    public OrderEvent(long sequence, Long orderId, Status status, Instant at) {
+        this.sequence = sequence;
+        this.orderId = orderId;
+        this.status = status;
+        this.at = at;
+    }
+
+    @JsonIgnore
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getAt() {
+        return at;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof OrderEvent))
+            return false;
+        OrderEvent that = (OrderEvent) o;
+        return this.sequence == that.sequence && Objects.equals(this.orderId, that.orderId)
+                && this.status == that.status && Objects.equals(this.at, that.at);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.sequence, this.orderId, this.status, this.at);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{" + "sequence=" + this.sequence + ", orderId=" + this.orderId + ", status=" + this.status
+                + ", at=" + this.at + '}';
+    }
+}
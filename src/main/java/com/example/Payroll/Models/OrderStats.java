@@ -0,0 +1,50 @@
+package com.example.Payroll.Models;
+
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Number of orders per status, as last counted in memory, and when those counts were last checked against the table.
+ */
+public class OrderStats extends RepresentationModel<OrderStats> {
+
+    private final Map<Status, Long> counts;
+
+    private final Instant reconciledAt;
+
+    public OrderStats(Map<Status, Long> counts, Instant reconciledAt) {
+        this.counts = counts;
+        this.reconciledAt = reconciledAt;
+    }
+
+    public Map<Status, Long> getCounts() {
+        return counts;
+    }
+
+    public long getTotal() {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Instant getReconciledAt() {
+        return reconciledAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!super.equals(o))
+            return false;
+        OrderStats that = (OrderStats) o;
+        return Objects.equals(this.counts, that.counts) && Objects.equals(this.reconciledAt, that.reconciledAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), this.counts, this.reconciledAt);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.Payroll.Models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * An order status change waiting to be relayed. Written in the transaction that changed the order by OrderOutbox,
+ * read and deleted by OutboxRelay once every sink has it.
+ */
+@Entity
+@Table(name = "ORDER_OUTBOX")
+public class OutboxEvent {
+
+    // An identity column, so plain JDBC inserts need no id and the relay can read in commit-ish order
+    private @Id @GeneratedValue(strategy = GenerationType.IDENTITY) Long id;
+
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Status status;
+
+    private Instant createdAt;
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(Long orderId, Status status, Instant createdAt) {
+
+        this.orderId = orderId;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Long getOrderId() {
+        return this.orderId;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof OutboxEvent))
+            return false;
+        OutboxEvent that = (OutboxEvent) o;
+        return Objects.equals(this.id, that.id) && Objects.equals(this.orderId, that.orderId)
+                && this.status == that.status && Objects.equals(this.createdAt, that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.orderId, this.status, this.createdAt);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" + "id=" + this.id + ", orderId=" + this.orderId + ", status=" + this.status
+                + ", createdAt=" + this.createdAt + '}';
+    }
+}
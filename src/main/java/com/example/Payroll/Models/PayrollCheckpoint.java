@@ -0,0 +1,147 @@
+package com.example.Payroll.Models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * How far one partition of a payroll run has got: every employee in (fromId - 1, lastId] has a committed payslip.
+ *
+ * PayrollRunEngine moves lastId forward in the same transaction that writes the payslips, so after a crash the
+ * partition resumes right after its last committed chunk.
+ */
+@Entity
+@IdClass(PayrollCheckpoint.Key.class)
+@Table(indexes = {
+        @Index(name = "payroll_checkpoint_run_idx", columnList = "runId, partitionIndex", unique = true)})
+public class PayrollCheckpoint {
+
+    @JsonIgnore
+    private @Id Long runId;
+    private @Id Integer partitionIndex;
+
+    private Long fromId;
+    private Long toId;
+    private Long lastId;
+
+    private long employees;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal gross = BigDecimal.ZERO;
+
+    public PayrollCheckpoint() {}
+
+    public PayrollCheckpoint(Long runId, Integer partitionIndex, Long fromId, Long toId) {
+
+        this.runId = runId;
+        this.partitionIndex = partitionIndex;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.lastId = fromId - 1;
+    }
+
+    public Long getRunId() {
+        return this.runId;
+    }
+
+    public Integer getPartitionIndex() {
+        return this.partitionIndex;
+    }
+
+    public Long getFromId() {
+        return this.fromId;
+    }
+
+    public Long getToId() {
+        return this.toId;
+    }
+
+    public Long getLastId() {
+        return this.lastId;
+    }
+
+    public long getEmployees() {
+        return this.employees;
+    }
+
+    public BigDecimal getGross() {
+        return this.gross;
+    }
+
+    public boolean isDone() {
+        return this.lastId >= this.toId - 1;
+    }
+
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public void setEmployees(long employees) {
+        this.employees = employees;
+    }
+
+    public void setGross(BigDecimal gross) {
+        this.gross = gross;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof PayrollCheckpoint))
+            return false;
+        PayrollCheckpoint checkpoint = (PayrollCheckpoint) o;
+        return Objects.equals(this.runId, checkpoint.runId) && Objects.equals(this.partitionIndex, checkpoint.partitionIndex)
+                && Objects.equals(this.fromId, checkpoint.fromId) && Objects.equals(this.toId, checkpoint.toId)
+                && Objects.equals(this.lastId, checkpoint.lastId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.runId, this.partitionIndex, this.fromId, this.toId, this.lastId);
+    }
+
+    @Override
+    public String toString() {
+        return "PayrollCheckpoint{" + "runId=" + this.runId + ", partitionIndex=" + this.partitionIndex + ", fromId="
+                + this.fromId + ", toId=" + this.toId + ", lastId=" + this.lastId + '}';
+    }
+
+    public static class Key implements Serializable {
+
+        private Long runId;
+        private Integer partitionIndex;
+
+        public Key() {}
+
+        public Key(Long runId, Integer partitionIndex) {
+            this.runId = runId;
+            this.partitionIndex = partitionIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return Objects.equals(this.runId, key.runId) && Objects.equals(this.partitionIndex, key.partitionIndex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.runId, this.partitionIndex);
+        }
+    }
+}
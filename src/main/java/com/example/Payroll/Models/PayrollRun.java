@@ -0,0 +1,164 @@
+package com.example.Payroll.Models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Version;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One pass of the pay rules over every employee with an id in [fromId, toId), fixed when the run starts.
+ *
+ * Progress lives in the run's PayrollCheckpoint rows; the run itself only records its status and how long it
+ * has actually been executing, so pauses and restarts don't count against its throughput.
+ */
+@Entity
+public class PayrollRun {
+
+    private @Id @GeneratedValue Long id;
+
+    // Pause, resume and the engine's finish all write the status; each save must see the one before it
+    private @Version Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private RunStatus status;
+
+    private Long fromId;
+    private Long toId;
+
+    private Instant startedAt;
+    private Instant resumedAt;
+    private Instant finishedAt;
+
+    // Execution time before resumedAt, summed over every stretch the run spent RUNNING
+    private long runningMillis;
+
+    private String failure;
+
+    public PayrollRun() {}
+
+    public PayrollRun(Long fromId, Long toId) {
+
+        this.status = RunStatus.RUNNING;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.startedAt = Instant.now();
+        this.resumedAt = this.startedAt;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public RunStatus getStatus() {
+        return this.status;
+    }
+
+    public Long getFromId() {
+        return this.fromId;
+    }
+
+    public Long getToId() {
+        return this.toId;
+    }
+
+    public Instant getStartedAt() {
+        return this.startedAt;
+    }
+
+    public Instant getResumedAt() {
+        return this.resumedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return this.finishedAt;
+    }
+
+    public long getRunningMillis() {
+        return this.runningMillis;
+    }
+
+    public String getFailure() {
+        return this.failure;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Execution time so far, including the current stretch if the run is executing.
+     */
+    public Duration elapsed(Instant now) {
+
+        long millis = this.runningMillis;
+        if (this.status == RunStatus.RUNNING && this.resumedAt != null) {
+            millis += Math.max(0, Duration.between(this.resumedAt, now).toMillis());
+        }
+        return Duration.ofMillis(millis);
+    }
+
+    public void resume(Instant now) {
+
+        this.status = RunStatus.RUNNING;
+        this.resumedAt = now;
+        this.failure = null;
+    }
+
+    /**
+     * Leaves RUNNING for {@code status}, banking the time spent executing since the last resume.
+     */
+    public void stop(RunStatus status, Instant now, String failure) {
+
+        this.runningMillis = elapsed(now).toMillis();
+        this.status = status;
+        this.resumedAt = null;
+        this.failure = failure;
+        if (status == RunStatus.COMPLETED) {
+            this.finishedAt = now;
+        }
+    }
+
+    /**
+     * Marks a run whose process died while it was RUNNING as PAUSED, without counting the downtime as execution.
+     */
+    public void interrupt(String reason) {
+
+        this.status = RunStatus.PAUSED;
+        this.resumedAt = null;
+        this.failure = reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof PayrollRun))
+            return false;
+        PayrollRun run = (PayrollRun) o;
+        return Objects.equals(this.id, run.id) && this.status == run.status && Objects.equals(this.fromId, run.fromId)
+                && Objects.equals(this.toId, run.toId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.status, this.fromId, this.toId);
+    }
+
+    @Override
+    public String toString() {
+        return "PayrollRun{" + "id=" + this.id + ", status=" + this.status + ", fromId=" + this.fromId + ", toId="
+                + this.toId + '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.Payroll.Models;
+
+import org.springframework.hateoas.RepresentationModel;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A payroll run as clients see it: its status plus totals and throughput summed over its checkpoints.
+ */
+public class PayrollRunProgress extends RepresentationModel<PayrollRunProgress> {
+
+    private final PayrollRun run;
+
+    private final List<PayrollCheckpoint> checkpoints;
+
+    private final Duration elapsed;
+
+    public PayrollRunProgress(PayrollRun run, List<PayrollCheckpoint> checkpoints, Instant now) {
+        this.run = run;
+        this.checkpoints = checkpoints;
+        this.elapsed = run.elapsed(now);
+    }
+
+    public Long getId() {
+        return run.getId();
+    }
+
+    public RunStatus getStatus() {
+        return run.getStatus();
+    }
+
+    public Instant getStartedAt() {
+        return run.getStartedAt();
+    }
+
+    public Instant getFinishedAt() {
+        return run.getFinishedAt();
+    }
+
+    public String getFailure() {
+        return run.getFailure();
+    }
+
+    public long getEmployees() {
+        return checkpoints.stream().mapToLong(PayrollCheckpoint::getEmployees).sum();
+    }
+
+    public BigDecimal getGross() {
+        return checkpoints.stream().map(PayrollCheckpoint::getGross).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Share of the run's id range already behind a checkpoint, from 0 to 1.
+     */
+    public double getProgress() {
+
+        long span = run.getToId() - run.getFromId();
+        if (span <= 0) {
+            return 1.0;
+        }
+        long covered = checkpoints.stream() //
+                .mapToLong(checkpoint -> checkpoint.getLastId() + 1 - checkpoint.getFromId()) //
+                .sum();
+        return (double) covered / span;
+    }
+
+    public long getElapsedMillis() {
+        return elapsed.toMillis();
+    }
+
+    public double getEmployeesPerSecond() {
+        return getEmployees() * 1000.0 / Math.max(1, elapsed.toMillis());
+    }
+
+    public List<PayrollCheckpoint> getCheckpoints() {
+        return checkpoints;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!super.equals(o))
+            return false;
+        PayrollRunProgress that = (PayrollRunProgress) o;
+        return Objects.equals(this.run, that.run) && Objects.equals(this.checkpoints, that.checkpoints)
+                && Objects.equals(this.elapsed, that.elapsed);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), this.run, this.checkpoints, this.elapsed);
+    }
+}
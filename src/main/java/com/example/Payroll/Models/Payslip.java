@@ -0,0 +1,125 @@
+package com.example.Payroll.Models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * What one payroll run pays one employee. Written in JDBC batches by PayrollRunEngine, read through JPA.
+ */
+@Entity
+@IdClass(Payslip.Key.class)
+@Table(indexes = {
+        // Hibernate orders the key columns by name, (employee_id, run_id); this serves everything asked per run
+        @Index(name = "payslip_run_idx", columnList = "runId, employeeId", unique = true)})
+public class Payslip {
+
+    private @Id Long runId;
+    private @Id Long employeeId;
+
+    private String role;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal gross;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal tax;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal net;
+
+    public Payslip() {}
+
+    public Payslip(Long runId, Long employeeId, String role, BigDecimal gross, BigDecimal tax) {
+
+        this.runId = runId;
+        this.employeeId = employeeId;
+        this.role = role;
+        this.gross = gross;
+        this.tax = tax;
+        this.net = gross.subtract(tax);
+    }
+
+    public Long getRunId() {
+        return this.runId;
+    }
+
+    public Long getEmployeeId() {
+        return this.employeeId;
+    }
+
+    public String getRole() {
+        return this.role;
+    }
+
+    public BigDecimal getGross() {
+        return this.gross;
+    }
+
+    public BigDecimal getTax() {
+        return this.tax;
+    }
+
+    public BigDecimal getNet() {
+        return this.net;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof Payslip))
+            return false;
+        Payslip payslip = (Payslip) o;
+        return Objects.equals(this.runId, payslip.runId) && Objects.equals(this.employeeId, payslip.employeeId)
+                && Objects.equals(this.role, payslip.role) && Objects.equals(this.gross, payslip.gross)
+                && Objects.equals(this.tax, payslip.tax) && Objects.equals(this.net, payslip.net);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.runId, this.employeeId, this.role, this.gross, this.tax, this.net);
+    }
+
+    @Override
+    public String toString() {
+        return "Payslip{" + "runId=" + this.runId + ", employeeId=" + this.employeeId + ", role='" + this.role + '\''
+                + ", gross=" + this.gross + ", tax=" + this.tax + ", net=" + this.net + '}';
+    }
+
+    public static class Key implements Serializable {
+
+        private Long runId;
+        private Long employeeId;
+
+        public Key() {}
+
+        public Key(Long runId, Long employeeId) {
+            this.runId = runId;
+            this.employeeId = employeeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return Objects.equals(this.runId, key.runId) && Objects.equals(this.employeeId, key.employeeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.runId, this.employeeId);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.Payroll.Models;
+
+public enum RunStatus {
+    RUNNING, //
+    PAUSED, //
+    COMPLETED, //
+    FAILED
+}
@@ -0,0 +1,80 @@
+package com.example.Payroll.Models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Objects;
+
+/**
+ * What a bulk status transition did to one order.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransitionResult {
+
+    public enum Outcome {
+        TRANSITIONED, //
+        NOT_FOUND, //
+        WRONG_STATE
+    }
+
+    private final Long id;
+    private final Outcome outcome;
+    private final Status status;
+    private final String detail;
+
+    private TransitionResult(Long id, Outcome outcome, Status status, String detail) {
+        this.id = id;
+        this.outcome = outcome;
+        this.status = status;
+        this.detail = detail;
+    }
+
+    public static TransitionResult transitioned(Long id, Status status) {
+        return new TransitionResult(id, Outcome.TRANSITIONED, status, null);
+    }
+
+    public static TransitionResult notFound(Long id) {
+        return new TransitionResult(id, Outcome.NOT_FOUND, null, "Could not find order " + id);
+    }
+
+    public static TransitionResult wrongState(Long id, Status status, String detail) {
+        return new TransitionResult(id, Outcome.WRONG_STATE, status, detail);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o)
+            return true;
+        if (!(o instanceof TransitionResult))
+            return false;
+        TransitionResult result = (TransitionResult) o;
+        return Objects.equals(this.id, result.id) && this.outcome == result.outcome && this.status == result.status
+                && Objects.equals(this.detail, result.detail);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.outcome, this.status, this.detail);
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionResult{" + "id=" + this.id + ", outcome=" + this.outcome + ", status=" + this.status + '}';
+    }
+}
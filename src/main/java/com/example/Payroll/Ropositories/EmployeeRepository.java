@@ -1,8 +1,65 @@
 package com.example.Payroll.Ropositories;
 
 import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeSearch {
+
+    List<Employee> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Employee> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Employee> streamAllByOrderByIdAsc();
+
+    @Query("select e.id from Employee e")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<Long> streamAllIds();
+
+    @Query("select new com.example.Payroll.Models.EmployeeName(e.id, e.firstName, e.lastName) from Employee e")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<EmployeeName> streamAllNames();
+
+    @Query("select min(e.id) from Employee e")
+    Long findMinId();
+
+    @Query("select max(e.id) from Employee e")
+    Long findMaxId();
+
+    @Query("select e.version from Employee e where e.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    /**
+     * Replaces the employee's fields in place with one UPDATE, bumping the version.
+     *
+     * @return 1 if the employee exists, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.firstName = :firstName, e.lastName = :lastName, e.role = :role, " +
+            "e.version = e.version + 1 where e.id = :id")
+    int replace(@Param("id") Long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                @Param("role") String role);
+
+    /**
+     * Same as {@link #replace(Long, String, String, String)}, but only while the version is one of {@code versions}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.firstName = :firstName, e.lastName = :lastName, e.role = :role, " +
+            "e.version = e.version + 1 where e.id = :id and e.version in :versions")
+    int replace(@Param("id") Long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                @Param("role") String role, @Param("versions") Collection<Long> versions);
 }
@@ -0,0 +1,19 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.Employee;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated employee search; every filter is optional and null means "any".
+ *
+ * firstName and lastName match by prefix, role matches exactly, all case-sensitively so each filter
+ * stays a range or equality on its index.
+ */
+public interface EmployeeSearch {
+
+    List<Employee> searchAfter(String firstName, String lastName, String role, Long id, Pageable pageable);
+
+    List<Employee> searchBefore(String firstName, String lastName, String role, Long id, Pageable pageable);
+}
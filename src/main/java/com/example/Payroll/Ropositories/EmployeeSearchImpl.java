@@ -0,0 +1,107 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.Employee;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the JPQL from the filters that are actually present, so every search is a range scan on one index.
+ *
+ * A name search walks its name index in order (last name, first name, id, or first name first when only that
+ * is given), and the id cursor is turned into that position by reading the cursor employee's names. A role
+ * search keeps id order on the (role, id) index. Prefixes become half-open ranges rather than LIKE, which
+ * not every planner matches to an index once the pattern is a bind parameter.
+ */
+class EmployeeSearchImpl implements EmployeeSearch {
+
+    // Sorts after any character a name can realistically contain, closing the prefix range
+    private static final char PREFIX_END = Character.MAX_VALUE;
+
+    private final EntityManager entityManager;
+
+    EmployeeSearchImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Employee> searchAfter(String firstName, String lastName, String role, Long id, Pageable pageable) {
+        return search(firstName, lastName, role, id, true, pageable);
+    }
+
+    @Override
+    public List<Employee> searchBefore(String firstName, String lastName, String role, Long id, Pageable pageable) {
+        return search(firstName, lastName, role, id, false, pageable);
+    }
+
+    private List<Employee> search(String firstName, String lastName, String role, Long id, boolean forward,
+                                  Pageable pageable) {
+
+        List<String> keys = lastName != null ? Arrays.asList("lastName", "firstName")
+                : firstName != null ? Arrays.asList("firstName", "lastName")
+                : Collections.<String>emptyList();
+
+        StringBuilder where = new StringBuilder();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (firstName != null) {
+            where.append(" and e.firstName >= :firstName and e.firstName < :firstNameEnd");
+            parameters.put("firstName", firstName);
+            parameters.put("firstNameEnd", firstName + PREFIX_END);
+        }
+        if (lastName != null) {
+            where.append(" and e.lastName >= :lastName and e.lastName < :lastNameEnd");
+            parameters.put("lastName", lastName);
+            parameters.put("lastNameEnd", lastName + PREFIX_END);
+        }
+        if (role != null) {
+            where.append(" and e.role = :role");
+            parameters.put("role", role);
+        }
+
+        String beyond = forward ? ">" : "<";
+        if (keys.isEmpty()) {
+            where.append(" and e.id ").append(beyond).append(" :id");
+            parameters.put("id", id);
+        } else if (!forward || id > 0) {
+            // after=0 is the first page; any other cursor is the position of that employee in name order
+            List<Object[]> cursor = entityManager.createQuery("select e." + keys.get(0) + ", e." + keys.get(1) + //
+                    " from Employee e where e.id = :id", Object[].class) //
+                    .setParameter("id", id) //
+                    .getResultList();
+            if (cursor.isEmpty()) {
+                // the cursor employee was deleted, so there is no position to continue from
+                return Collections.emptyList();
+            }
+            // (first, second, id) beyond the cursor, with the bound on the first key repeated as a plain range
+            where.append(String.format(" and e.%1$s %3$s= :cursor0 and (e.%1$s %3$s :cursor0"
+                            + " or (e.%1$s = :cursor0 and (e.%2$s %3$s :cursor1 or (e.%2$s = :cursor1 and e.id %3$s :id))))",
+                    keys.get(0), keys.get(1), beyond));
+            parameters.put("cursor0", cursor.get(0)[0]);
+            parameters.put("cursor1", cursor.get(0)[1]);
+            parameters.put("id", id);
+        }
+
+        String direction = forward ? " asc" : " desc";
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        for (String key : keys) {
+            orderBy.append("e.").append(key).append(direction).append(", ");
+        }
+        orderBy.append("e.id").append(direction);
+
+        // every branch above adds at least one term, each starting with " and"
+        String jpql = "select e from Employee e where" + where.substring(4) + orderBy;
+        TypedQuery<Employee> query = entityManager.createQuery(jpql, Employee.class) //
+                .setFirstResult((int) pageable.getOffset()) //
+                .setMaxResults(pageable.getPageSize());
+        parameters.forEach(query::setParameter);
+
+        return query.getResultList();
+    }
+}
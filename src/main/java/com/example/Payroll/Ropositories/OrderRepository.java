@@ -1,7 +1,86 @@
 package com.example.Payroll.Ropositories;
 
 import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Order> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    List<Order> findByStatusAndIdGreaterThanOrderByIdAsc(Status status, Long id, Pageable pageable);
+
+    List<Order> findByStatusAndIdLessThanOrderByIdDesc(Status status, Long id, Pageable pageable);
+
+    @Query("select o.status as status, count(o) as count from Order o group by o.status")
+    List<StatusCount> countByStatus();
+
+    interface StatusCount {
+
+        Status getStatus();
+
+        long getCount();
+    }
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Order> streamAllByOrderByIdAsc();
+
+    @Query("select o.id from Order o")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<Long> streamAllIds();
+
+    /**
+     * Moves the order to {@code status} only if it is currently in {@code expected}.
+     *
+     * @return 1 if this call made the transition, 0 if the order is missing or in another status
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.version = o.version + 1 where o.id = :id and o.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") Status expected, @Param("status") Status status);
+
+    /**
+     * Same as {@link #compareAndSetStatus(Long, Status, Status)}, but also requires the order to still be at
+     * {@code version}, for transitions made under If-Match.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.version = o.version + 1 " +
+            "where o.id = :id and o.status = :expected and o.version = :version")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") Status expected, @Param("status") Status status,
+                            @Param("version") Long version);
+
+    // Bulk transitions lock their rows in id order, then move them with one UPDATE per chunk
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Order> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Order> findByIdBetweenAndStatusOrderByIdAsc(Long fromId, Long toId, Status status);
+
+    /**
+     * Moves every order in {@code ids} that is still in {@code expected} to {@code status}.
+     *
+     * @return how many orders this call moved
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.version = o.version + 1 " +
+            "where o.id in :ids and o.status = :expected")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("expected") Status expected,
+                     @Param("status") Status status);
 }
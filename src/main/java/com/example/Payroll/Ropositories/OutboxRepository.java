@@ -0,0 +1,12 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.PayrollCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PayrollCheckpointRepository extends JpaRepository<PayrollCheckpoint, PayrollCheckpoint.Key> {
+
+    List<PayrollCheckpoint> findByRunIdOrderByPartitionIndexAsc(Long runId);
+}
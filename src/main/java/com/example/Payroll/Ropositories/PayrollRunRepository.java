@@ -0,0 +1,12 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Models.RunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PayrollRunRepository extends JpaRepository<PayrollRun, Long> {
+
+    List<PayrollRun> findByStatusOrderByIdDesc(RunStatus status);
+}
@@ -0,0 +1,9 @@
+package com.example.Payroll.Ropositories;
+
+import com.example.Payroll.Models.Payslip;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PayslipRepository extends JpaRepository<Payslip, Payslip.Key> {
+
+    long countByRunId(Long runId);
+}
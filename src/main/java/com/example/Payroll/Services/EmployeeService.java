@@ -1,83 +1,384 @@
 package com.example.Payroll.Services;
 
+import com.example.Payroll.Components.BatchInserter;
+import com.example.Payroll.Components.Chunks;
 import com.example.Payroll.Components.EmployeeModelAssembler;
+import com.example.Payroll.Components.ETags;
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Components.NdjsonExporter;
+import com.example.Payroll.Components.SingleFlight;
 import com.example.Payroll.Controllers.Exceptions.EmployeeNotFoundException;
 import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
 import com.example.Payroll.Ropositories.EmployeeRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.client.HttpServerErrorException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class EmployeeService {
 
+    static final int MAX_MULTI_GET = 5_000;
+
+    static final int DEFAULT_SUGGESTIONS = 10;
+
     private final EmployeeRepository employeeRepository;
 
     private final EmployeeModelAssembler assembler;
 
-    public EmployeeService(EmployeeRepository employeeRepository, EmployeeModelAssembler assembler) {
+    private final NdjsonExporter exporter;
+
+    private final BatchInserter batchInserter;
+
+    private final EntityCache<Employee> employeeCache;
+
+    private final IdFilter<Employee> employeeIds;
+
+    private final SingleFlight<Long, Optional<Employee>> employeeLoads;
+
+    private final NameIndex employeeNames;
+
+    private final IdempotencyKeys<Employee> employeeKeys;
+
+    public EmployeeService(EmployeeRepository employeeRepository, EmployeeModelAssembler assembler,
+                           NdjsonExporter exporter, BatchInserter batchInserter, EntityCache<Employee> employeeCache,
+                           IdFilter<Employee> employeeIds, SingleFlight<Long, Optional<Employee>> employeeLoads,
+                           NameIndex employeeNames, IdempotencyKeys<Employee> employeeKeys) {
         this.employeeRepository = employeeRepository;
         this.assembler = assembler;
+        this.exporter = exporter;
+        this.batchInserter = batchInserter;
+        this.employeeCache = employeeCache;
+        this.employeeIds = employeeIds;
+        this.employeeLoads = employeeLoads;
+        this.employeeNames = employeeNames;
+        this.employeeKeys = employeeKeys;
+    }
+
+    public CollectionModel<EntityModel<Employee>> getEmployees(Long after, Long before, Integer size) {
+
+        KeysetPage<Employee> page = KeysetPage.of(after, before, size, //
+                employeeRepository::findByIdGreaterThanOrderByIdAsc, //
+                employeeRepository::findByIdLessThanOrderByIdDesc, //
+                Employee::getId);
+
+        return assembler.toModel(page);
+    }
+
+    /**
+     * Filters by name prefixes and role, one keyset page at a time; blank filters are ignored.
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<Employee>> searchEmployees(String firstName, String lastName, String role,
+                                                                  Long after, Long before, Integer size) {
+
+        String first = blankToNull(firstName);
+        String last = blankToNull(lastName);
+        String exactRole = blankToNull(role);
+
+        KeysetPage<Employee> page = KeysetPage.of(after, before, size, //
+                (id, pageable) -> employeeRepository.searchAfter(first, last, exactRole, id, pageable), //
+                (id, pageable) -> employeeRepository.searchBefore(first, last, exactRole, id, pageable), //
+                Employee::getId);
+
+        return assembler.toModel(page, first, last, exactRole);
     }
 
-    public CollectionModel<EntityModel<Employee>> getEmployees() {
+    /**
+     * Typeahead over first and last names, answered from the name index. Until the index has loaded, it falls
+     * back to a last name prefix search in the database.
+     */
+    public CollectionModel<EntityModel<EmployeeName>> suggestEmployees(String q, Integer limit) {
+
+        String prefix = q == null ? "" : q.trim();
+        int k = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, NameIndex.MAX_SUGGESTIONS));
+
+        List<EmployeeName> suggestions;
+        if (prefix.isEmpty()) {
+            suggestions = new ArrayList<>();
+        } else if (employeeNames.isReady()) {
+            suggestions = employeeNames.suggest(prefix, k);
+        } else {
+            suggestions = employeeRepository.searchAfter(null, prefix, null, 0L, PageRequest.of(0, k)).stream() //
+                    .map(employee -> new EmployeeName(employee.getId(), employee.getFirstName(), employee.getLastName())) //
+                    .collect(Collectors.toList());
+        }
 
-        List<EntityModel<Employee>> employees = employeeRepository.findAll().stream() //
-                .map((employee) -> assembler.toModel(employee)) //
+        return assembler.toSuggestions(suggestions, prefix, k);
+    }
+
+    /**
+     * Looks up to MAX_MULTI_GET ids with one IN query per chunk; unknown ids never reach the database.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getEmployees(List<Long> ids) {
+
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (requested.size() > MAX_MULTI_GET) {
+            return badRequest("A lookup by ids is limited to " + MAX_MULTI_GET + " employees");
+        }
+
+        List<Long> candidates = requested.stream() //
+                .filter(employeeIds::mightContain) //
                 .collect(Collectors.toList());
 
-        return assembler.toModel(employees);
+        Map<Long, Employee> found = new HashMap<>();
+        for (List<Long> chunk : Chunks.of(candidates, Chunks.IN_CLAUSE_SIZE)) {
+            employeeRepository.findAllById(chunk).forEach(employee -> found.put(employee.getId(), employee));
+        }
+
+        return ResponseEntity.ok(assembler.toModel(requested, found));
+    }
+
+    /**
+     * Fills the id filter once startup data is in; until then it lets every lookup through.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIds() {
+
+        try (Stream<Long> ids = employeeRepository.streamAllIds()) {
+            employeeIds.load(ids);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadNames() {
+
+        try (Stream<EmployeeName> names = employeeRepository.streamAllNames()) {
+            employeeNames.load(names);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportEmployees(OutputStream out) throws IOException {
+
+        try (Stream<Employee> employees = employeeRepository.streamAllByOrderByIdAsc()) {
+            return exporter.write(employees, out);
+        }
     }
 
     public ResponseEntity<EntityModel<Employee>> newEmployee(Employee newEmployee) {
 
-        EntityModel<Employee> entityModel = assembler.toModel(employeeRepository.save(newEmployee));
+        return created(employeeRepository.save(newEmployee), false);
+    }
 
-        return ResponseEntity //
-                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
-                .body(entityModel);
+    /**
+     * Creates the employee once per Idempotency-Key; a retry with the same key and body gets the original 201 back.
+     */
+    @Transactional
+    public ResponseEntity<?> newEmployee(Employee newEmployee, String idempotencyKey) {
+
+        if (idempotencyKey == null) {
+            return newEmployee(newEmployee);
+        }
+        if (!IdempotencyKeys.isValid(idempotencyKey)) {
+            return badRequest("An Idempotency-Key must be 1 to " + IdempotencyKeys.MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyKeys.Result<Employee> result = employeeKeys.execute(idempotencyKey, newEmployee,
+                () -> employeeRepository.save(newEmployee));
+        switch (result.getOutcome()) {
+            case IN_PROGRESS:
+                return conflict("An employee with this Idempotency-Key is still being created");
+            case MISMATCH:
+                return unprocessable("This Idempotency-Key was used for a different employee");
+            default:
+                return created(result.getValue(), result.getOutcome() == IdempotencyKeys.Outcome.REPLAYED);
+        }
+    }
+
+    private ResponseEntity<EntityModel<Employee>> created(Employee employee, boolean replayed) {
+
+        EntityModel<Employee> entityModel = assembler.toModel(employee);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity //
+                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri());
+        if (replayed) {
+            response.header(IdempotencyKeys.REPLAYED_HEADER, "true");
+        }
+        return response.body(entityModel);
+    }
+
+    @Transactional
+    public List<Long> newEmployees(Iterator<Employee> newEmployees) {
+
+        // ids always come from the sequence, never from the payload
+        Iterator<Employee> employees = new Iterator<Employee>() {
+            @Override
+            public boolean hasNext() {
+                return newEmployees.hasNext();
+            }
+
+            @Override
+            public Employee next() {
+                Employee employee = newEmployees.next();
+                employee.setId(null);
+                return employee;
+            }
+        };
+
+        return batchInserter.persistAll(employees, Employee::getId);
     }
 
-    public EntityModel<Employee> getEmployee(@PathVariable Long id) {
+    public ResponseEntity<EntityModel<Employee>> getEmployee(@PathVariable Long id, String ifNoneMatch) {
 
-        Employee employee = employeeRepository.findById(id) //
+        if (!employeeIds.mightContain(id)) {
+            throw new EmployeeNotFoundException(id);
+        }
+
+        Employee employee = employeeCache.get(id, this::loadEmployee) //
                 .orElseThrow(() -> new EmployeeNotFoundException(id));
 
-        return assembler.toModel(employee);
+        String eTag = ETags.of(employee.getVersion());
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().headers(headers -> headers.setETag(eTag)).body(assembler.toModel(employee));
+    }
+
+    // Concurrent misses for one id share a single query; the cache above already shares hits
+    private Optional<Employee> loadEmployee(Long id) {
+
+        return employeeLoads.execute(id, () -> employeeRepository.findById(id));
     }
 
-    public ResponseEntity<EntityModel<Employee>> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id) {
+    /**
+     * Replaces an existing employee with a single conditional UPDATE, so concurrent PUTs serialize on the row
+     * and the last one wins whole, instead of racing a read-modify-write. Only when no row matched does it look
+     * further: under If-Match that is a failed precondition, otherwise the employee is created.
+     */
+    @Transactional
+    public ResponseEntity<?> replaceEmployee(@RequestBody Employee newEmployee, @PathVariable Long id, String ifMatch) {
+
+        int replaced;
+        List<Long> versions = Collections.emptyList();
+        if (ifMatch == null || ETags.isAny(ifMatch)) {
+            replaced = employeeRepository.replace(id, newEmployee.getFirstName(), newEmployee.getLastName(),
+                    newEmployee.getRole());
+        } else {
+            versions = ETags.versions(ifMatch).stream().distinct().collect(Collectors.toList());
+            replaced = versions.isEmpty() ? 0 : employeeRepository.replace(id, newEmployee.getFirstName(),
+                    newEmployee.getLastName(), newEmployee.getRole(), versions);
+        }
+
+        if (replaced == 1) {
+            employeeCache.invalidate(id);
+            // the bulk UPDATE bypasses entity listeners
+            employeeNames.put(id, newEmployee.getFirstName(), newEmployee.getLastName());
+
+            // The row now holds exactly what was sent; only its version may need reading back. Matching a single
+            // If-Match version pins the old one, so the new one is the next.
+            Long version = versions.size() == 1 ? versions.get(0) + 1 : employeeRepository.findVersionById(id);
+            Employee employee = new Employee(newEmployee.getFirstName(), newEmployee.getLastName(), newEmployee.getRole());
+            employee.setId(id);
+            employee.setVersion(version);
+            EntityModel<Employee> entityModel = assembler.toModel(employee);
+
+            return ResponseEntity //
+                    .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
+                    .headers(headers -> headers.setETag(ETags.of(version))) //
+                    .body(entityModel);
+        }
 
-        Employee updatedEmployee = employeeRepository.findById(id) //
-                .map(employee -> {
-                    employee.setName(newEmployee.getName());
-                    employee.setRole(newEmployee.getRole());
-                    return employeeRepository.save(employee);
-                }) //
-                .orElseGet(() -> {
-                    newEmployee.setId(id);
-                    return employeeRepository.save(newEmployee);
-                });
+        if (ifMatch != null) {
+            return preconditionFailed("Employee " + id + " has changed since it was read");
+        }
 
-        EntityModel<Employee> entityModel = assembler.toModel(updatedEmployee);
+        // a new employee takes its id from the sequence, as with POST
+        newEmployee.setId(null);
+        newEmployee.setVersion(null);
+        Employee createdEmployee = employeeRepository.save(newEmployee);
+
+        EntityModel<Employee> entityModel = assembler.toModel(createdEmployee);
 
         return ResponseEntity //
                 .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
+                .headers(headers -> headers.setETag(ETags.of(createdEmployee.getVersion()))) //
                 .body(entityModel);
     }
 
     public ResponseEntity<EntityModel<Employee>> deleteEmployee(@PathVariable Long id) {
 
         employeeRepository.deleteById(id);
+        employeeCache.invalidate(id);
 
         return ResponseEntity.noContent().build();
     }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static ResponseEntity<?> preconditionFailed(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.PRECONDITION_FAILED) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Precondition failed") //
+                        .withDetail(detail));
+    }
+
+    private static ResponseEntity<?> badRequest(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.BAD_REQUEST) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Bad request") //
+                        .withDetail(detail));
+    }
+
+    private static ResponseEntity<?> conflict(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.CONFLICT) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Conflict") //
+                        .withDetail(detail));
+    }
+
+    private static ResponseEntity<?> unprocessable(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.UNPROCESSABLE_ENTITY) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Unprocessable entity") //
+                        .withDetail(detail));
+    }
 }
@@ -1,102 +1,499 @@
 package com.example.Payroll.Services;
 
+import com.example.Payroll.Components.Chunks;
+import com.example.Payroll.Components.ETags;
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.NdjsonExporter;
+import com.example.Payroll.Components.OrderEvents;
+import com.example.Payroll.Components.OrderOutbox;
+import com.example.Payroll.Components.SingleFlight;
 import com.example.Payroll.Components.OrderModelAssembler;
-import com.example.Payroll.Controllers.OrderController;
+import com.example.Payroll.Components.StatusCounts;
 import com.example.Payroll.Controllers.Exceptions.OrderNotFoundException;
+import com.example.Payroll.Models.BulkTransition;
 import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.OrderStats;
 import com.example.Payroll.Models.Status;
+import com.example.Payroll.Models.TransitionResult;
 import com.example.Payroll.Ropositories.OrderRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
 
+    static final int MAX_BULK_ORDERS = 10_000;
+
+    static final int MAX_MULTI_GET = 5_000;
+
     private final OrderRepository orderRepository;
 
     private final OrderModelAssembler assembler;
 
-    public OrderService(OrderRepository orderRepository, OrderModelAssembler assembler) {
+    private final NdjsonExporter exporter;
+
+    private final EntityCache<Order> orderCache;
+
+    private final IdFilter<Order> orderIds;
+
+    private final SingleFlight<Long, Optional<Order>> orderLoads;
+
+    private final StatusCounts orderCounts;
+
+    private final OrderEvents orderEvents;
+
+    private final OrderOutbox orderOutbox;
+
+    private final IdempotencyKeys<Order> orderKeys;
+
+    public OrderService(OrderRepository orderRepository, OrderModelAssembler assembler, NdjsonExporter exporter,
+                        EntityCache<Order> orderCache, IdFilter<Order> orderIds,
+                        SingleFlight<Long, Optional<Order>> orderLoads, StatusCounts orderCounts,
+                        OrderEvents orderEvents, OrderOutbox orderOutbox, IdempotencyKeys<Order> orderKeys) {
         this.orderRepository = orderRepository;
         this.assembler = assembler;
+        this.exporter = exporter;
+        this.orderCache = orderCache;
+        this.orderIds = orderIds;
+        this.orderLoads = orderLoads;
+        this.orderCounts = orderCounts;
+        this.orderEvents = orderEvents;
+        this.orderOutbox = orderOutbox;
+        this.orderKeys = orderKeys;
+    }
+
+    public CollectionModel<EntityModel<Order>> getOrders(Long after, Long before, Integer size) {
+
+        KeysetPage<Order> page = KeysetPage.of(after, before, size, //
+                orderRepository::findByIdGreaterThanOrderByIdAsc, //
+                orderRepository::findByIdLessThanOrderByIdDesc, //
+                Order::getId);
+
+        return assembler.toModel(page);
+    }
+
+    public CollectionModel<EntityModel<Order>> getOrders(Status status, Long after, Long before, Integer size) {
+
+        KeysetPage<Order> page = KeysetPage.of(after, before, size, //
+                (id, pageable) -> orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, id, pageable), //
+                (id, pageable) -> orderRepository.findByStatusAndIdLessThanOrderByIdDesc(status, id, pageable), //
+                Order::getId);
+
+        return assembler.toModel(page, status);
+    }
+
+    public OrderStats getOrderStats() {
+
+        return assembler.toModel(orderCounts.snapshot(), orderCounts.getReconciledAt());
+    }
+
+    /**
+     * Recounts orders per status in the database, at startup and then periodically, and corrects the live counts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${payroll.order-stats.reconcile-interval:PT5M}",
+            fixedDelayString = "${payroll.order-stats.reconcile-interval:PT5M}")
+    @Transactional(readOnly = true)
+    public void reconcileOrderCounts() {
+
+        orderCounts.reconcile(() -> {
+            Map<Status, Long> actual = new HashMap<>();
+            orderRepository.countByStatus().forEach(count -> actual.put(count.getStatus(), count.getCount()));
+            return actual;
+        });
+    }
+
+    /**
+     * Streams status changes from now on, or from just after {@code lastEventId} when a client reconnects.
+     */
+    public ResponseEntity<SseEmitter> subscribeToOrders(String lastEventId) {
+
+        SseEmitter emitter = orderEvents.subscribe(lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) //
+                    .header(HttpHeaders.RETRY_AFTER, "5") //
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
     }
 
-    public CollectionModel<EntityModel<Order>> getOrders() {
+    /**
+     * Same shape as the bulk transitions: ids are deduplicated in request order and read in IN-clause chunks.
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getOrders(List<Long> ids) {
 
-        List<EntityModel<Order>> orders = orderRepository.findAll().stream() //
-                .map((order) -> assembler.toModel(order)) //
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (requested.size() > MAX_MULTI_GET) {
+            return badRequest("A lookup by ids is limited to " + MAX_MULTI_GET + " orders");
+        }
+
+        List<Long> candidates = requested.stream() //
+                .filter(orderIds::mightContain) //
                 .collect(Collectors.toList());
 
-        return CollectionModel.of(orders, //
-                linkTo(methodOn(OrderController.class).all()).withSelfRel());
+        Map<Long, Order> found = new HashMap<>();
+        for (List<Long> chunk : Chunks.of(candidates, Chunks.IN_CLAUSE_SIZE)) {
+            orderRepository.findAllById(chunk).forEach(order -> found.put(order.getId(), order));
+        }
+
+        return ResponseEntity.ok(assembler.toModel(requested, found));
     }
 
-    public EntityModel<Order> getOrder(@PathVariable Long id) {
+    /**
+     * Fills the id filter once startup data is in; until then it lets every lookup through.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIds() {
 
-        Order order = orderRepository.findById(id) //
+        try (Stream<Long> ids = orderRepository.streamAllIds()) {
+            orderIds.load(ids);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportOrders(OutputStream out) throws IOException {
+
+        try (Stream<Order> orders = orderRepository.streamAllByOrderByIdAsc()) {
+            return exporter.write(orders, out);
+        }
+    }
+
+    public ResponseEntity<EntityModel<Order>> getOrder(@PathVariable Long id, String ifNoneMatch) {
+
+        if (!orderIds.mightContain(id)) {
+            throw new OrderNotFoundException(id);
+        }
+
+        Order order = orderCache.get(id, this::loadOrder) //
                 .orElseThrow(() -> new OrderNotFoundException(id));
 
-        return assembler.toModel(order);
+        String eTag = ETags.of(order.getVersion());
+        if (ETags.isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        return ResponseEntity.ok().headers(headers -> headers.setETag(eTag)).body(assembler.toModel(order));
     }
 
+    // A burst of requests for an order that is not cached yet runs one findById between them
+    private Optional<Order> loadOrder(Long id) {
+
+        return orderLoads.execute(id, () -> orderRepository.findById(id));
+    }
+
+    @Transactional
     public ResponseEntity<EntityModel<Order>> newOrder(@RequestBody Order order) {
 
+        return created(createOrder(order), false);
+    }
+
+    /**
+     * Creates the order once per Idempotency-Key; a retry with the same key and body gets the original 201 back.
+     */
+    @Transactional
+    public ResponseEntity<?> newOrder(Order order, String idempotencyKey) {
+
+        if (idempotencyKey == null) {
+            return newOrder(order);
+        }
+        if (!IdempotencyKeys.isValid(idempotencyKey)) {
+            return badRequest("An Idempotency-Key must be 1 to " + IdempotencyKeys.MAX_KEY_LENGTH + " characters");
+        }
+
+        IdempotencyKeys.Result<Order> result = orderKeys.execute(idempotencyKey, order, () -> createOrder(order));
+        switch (result.getOutcome()) {
+            case IN_PROGRESS:
+                return conflict("An order with this Idempotency-Key is still being created");
+            case MISMATCH:
+                return unprocessable("This Idempotency-Key was used for a different order");
+            default:
+                return created(result.getValue(), result.getOutcome() == IdempotencyKeys.Outcome.REPLAYED);
+        }
+    }
+
+    private Order createOrder(Order order) {
+
         order.setStatus(Status.IN_PROGRESS);
         Order newOrder = orderRepository.save(order);
+        orderOutbox.record(newOrder.getId(), Status.IN_PROGRESS);
+        orderCache.invalidate(newOrder.getId());
+        orderCounts.created(Status.IN_PROGRESS, 1);
+        orderEvents.publish(newOrder.getId(), Status.IN_PROGRESS);
+        return newOrder;
+    }
 
-        return ResponseEntity //
-                .created(linkTo(methodOn(OrderController.class).one(newOrder.getId())).toUri()) //
-                .body(assembler.toModel(newOrder));
+    private ResponseEntity<EntityModel<Order>> created(Order order, boolean replayed) {
+
+        EntityModel<Order> entityModel = assembler.toModel(order);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity //
+                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri());
+        if (replayed) {
+            response.header(IdempotencyKeys.REPLAYED_HEADER, "true");
+        }
+        return response.body(entityModel);
     }
 
-    public ResponseEntity<?> cancelOrder(@PathVariable Long id) {
+    @Transactional
+    public ResponseEntity<?> cancelOrder(@PathVariable Long id, String ifMatch) {
+
+        return transitionOrder(id, Status.CANCELLED, "cancel", ifMatch);
+    }
+
+    @Transactional
+    public ResponseEntity<?> completeOrder(@PathVariable Long id, String ifMatch) {
+
+        return transitionOrder(id, Status.COMPLETED, "complete", ifMatch);
+    }
+
+    private ResponseEntity<?> transitionOrder(Long id, Status status, String action, String ifMatch) {
+
+        if (ifMatch == null) {
+            // One conditional UPDATE decides the transition, so a concurrent cancel or complete can't also win
+
+            if (orderRepository.compareAndSetStatus(id, Status.IN_PROGRESS, status) == 1) {
+                return transitioned(id, status);
+            }
+
+            Order order = orderRepository.findById(id) //
+                    .orElseThrow(() -> new OrderNotFoundException(id));
+
+            return wrongStatus(action, order.getStatus());
+        }
 
         Order order = orderRepository.findById(id) //
                 .orElseThrow(() -> new OrderNotFoundException(id));
 
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.CANCELLED);
-            return ResponseEntity.ok(assembler.toModel(orderRepository.save(order)));
+        if (ETags.isPreconditionFailed(ifMatch, ETags.of(order.getVersion()))) {
+            return preconditionFailed("Order " + id + " has changed since it was read");
         }
+        if (order.getStatus() != Status.IN_PROGRESS) {
+            return wrongStatus(action, order.getStatus());
+        }
+
+        // The version in the WHERE clause keeps the check above valid until the row is written
+        if (orderRepository.compareAndSetStatus(id, Status.IN_PROGRESS, status, order.getVersion()) == 1) {
+            return transitioned(id, status);
+        }
+        return preconditionFailed("Order " + id + " has changed since it was read");
+    }
+
+    private ResponseEntity<EntityModel<Order>> transitioned(Long id, Status status) {
+
+        orderOutbox.record(id, status);
+        orderCache.invalidate(id);
+        orderCounts.move(Status.IN_PROGRESS, status, 1);
+        orderEvents.publish(id, status);
+        Order order = orderRepository.findById(id) //
+                .orElseThrow(() -> new OrderNotFoundException(id));
+
+        return ResponseEntity.ok() //
+                .headers(headers -> headers.setETag(ETags.of(order.getVersion()))) //
+                .body(assembler.toModel(order));
+    }
+
+    private static ResponseEntity<?> wrongStatus(String action, Status status) {
 
         return ResponseEntity //
                 .status(HttpStatus.METHOD_NOT_ALLOWED) //
                 .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
                 .body(Problem.create() //
                         .withTitle("Method not allowed") //
-                        .withDetail("You can't cancel an order that is in the " + order.getStatus() + " status"));
+                        .withDetail(wrongStatusDetail(action, status)));
     }
 
-    public ResponseEntity<?> completeOrder(@PathVariable Long id) {
+    private static ResponseEntity<?> preconditionFailed(String detail) {
 
-        Order order = orderRepository.findById(id) //
-                .orElseThrow(() -> new OrderNotFoundException(id));
+        return ResponseEntity //
+                .status(HttpStatus.PRECONDITION_FAILED) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Precondition failed") //
+                        .withDetail(detail));
+    }
+
+    @Transactional
+    public ResponseEntity<?> cancelOrders(BulkTransition transition) {
+
+        return transitionOrders(transition, Status.CANCELLED, "cancel");
+    }
+
+    @Transactional
+    public ResponseEntity<?> completeOrders(BulkTransition transition) {
+
+        return transitionOrders(transition, Status.COMPLETED, "complete");
+    }
+
+    /**
+     * Applies the IN_PROGRESS precondition to the whole selection inside the caller's transaction.
+     *
+     * The selected rows are locked in id order first, so single-order transitions running at the same time
+     * wait for this one and then fail their own precondition instead of overwriting the outcome reported here.
+     */
+    private ResponseEntity<?> transitionOrders(BulkTransition transition, Status status, String action) {
 
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.COMPLETED);
-            Order saveOrder = orderRepository.save(order);
-            EntityModel<Order> entityModel = assembler.toModel(saveOrder);
-            return ResponseEntity.ok(entityModel);
+        boolean byIds = transition.getIds() != null && !transition.getIds().isEmpty();
+        boolean byRange = transition.getFromId() != null && transition.getToId() != null;
+
+        if (byIds == byRange) {
+            return badRequest("Select orders with either \"ids\" or \"fromId\" and \"toId\"");
+        }
+        if (byIds && transition.getIds().contains(null)) {
+            return badRequest("\"ids\" can't contain null");
+        }
+        if (byRange && transition.getFromId() > transition.getToId()) {
+            return badRequest("\"fromId\" can't be greater than \"toId\"");
         }
+        if (byIds ? transition.getIds().size() > MAX_BULK_ORDERS : !isBulkRange(transition)) {
+            return badRequest("A bulk transition is limited to " + MAX_BULK_ORDERS + " orders");
+        }
+
+        List<TransitionResult> results = new ArrayList<>();
+
+        if (byRange) {
+            // The range is a filter: orders in any other status are simply not part of it
+
+            List<Long> ids = orderRepository.findByIdBetweenAndStatusOrderByIdAsc( //
+                    transition.getFromId(), transition.getToId(), Status.IN_PROGRESS).stream() //
+                    .map(Order::getId) //
+                    .collect(Collectors.toList());
+
+            updateStatus(ids, status).forEach(id -> results.add(TransitionResult.transitioned(id, status)));
+
+            return ResponseEntity.ok(results);
+        }
+
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(transition.getIds()));
+        List<Long> sorted = requested.stream().sorted().collect(Collectors.toList());
+
+        Map<Long, Order> found = new HashMap<>();
+        for (List<Long> chunk : Chunks.of(sorted, Chunks.IN_CLAUSE_SIZE)) {
+            orderRepository.findByIdInOrderByIdAsc(chunk).forEach(order -> found.put(order.getId(), order));
+        }
+
+        List<Long> ids = sorted.stream() //
+                .filter(id -> found.containsKey(id) && found.get(id).getStatus() == Status.IN_PROGRESS) //
+                .collect(Collectors.toList());
+        Set<Long> moved = new HashSet<>(updateStatus(ids, status));
+
+        for (Long id : requested) {
+            Order order = found.get(id);
+            if (order != null && order.getStatus() == Status.IN_PROGRESS && !moved.contains(id)) {
+                // Selected but not moved by the UPDATE: report the status it is in now
+                order = orderRepository.findById(id).orElse(null);
+            }
+            if (order == null) {
+                results.add(TransitionResult.notFound(id));
+            } else if (moved.contains(id)) {
+                results.add(TransitionResult.transitioned(id, status));
+            } else {
+                results.add(TransitionResult.wrongState(id, order.getStatus(), wrongStatusDetail(action, order.getStatus())));
+            }
+        }
+
+        return ResponseEntity.ok(results);
+    }
+
+    // fromId <= toId here; the subtraction can still overflow for ranges spanning most of the long domain
+    private static boolean isBulkRange(BulkTransition transition) {
+
+        try {
+            return Math.subtractExact(transition.getToId(), transition.getFromId()) < MAX_BULK_ORDERS;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Moves the IN_PROGRESS orders among {@code ids} to {@code status}, one conditional UPDATE per chunk.
+     *
+     * @return the ids the UPDATEs actually moved, in the order of {@code ids}
+     */
+    private List<Long> updateStatus(List<Long> ids, Status status) {
+
+        List<Long> moved = new ArrayList<>(ids.size());
+        for (List<Long> chunk : Chunks.of(ids, Chunks.IN_CLAUSE_SIZE)) {
+            int updated = orderRepository.updateStatus(chunk, Status.IN_PROGRESS, status);
+            if (updated == chunk.size()) {
+                moved.addAll(chunk);
+            } else if (updated > 0) {
+                // Fewer rows than were locked as IN_PROGRESS: the ones now in the new status are the ones moved here
+                Set<Long> now = orderRepository.findAllById(chunk).stream() //
+                        .filter(order -> order.getStatus() == status) //
+                        .map(Order::getId) //
+                        .collect(Collectors.toSet());
+                chunk.stream().filter(now::contains).forEach(moved::add);
+            }
+        }
+        orderOutbox.record(moved, status);
+        orderCache.invalidateAll(moved);
+        orderCounts.move(Status.IN_PROGRESS, status, moved.size());
+        orderEvents.publish(moved, status);
+        return moved;
+    }
+
+    private static ResponseEntity<?> badRequest(String detail) {
 
         return ResponseEntity //
-                .status(HttpStatus.METHOD_NOT_ALLOWED) //
+                .status(HttpStatus.BAD_REQUEST) //
                 .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
                 .body(Problem.create() //
-                        .withTitle("Method not allowed") //
-                        .withDetail("You can't complete an order that is in the " + order.getStatus() + " status"));
+                        .withTitle("Bad request") //
+                        .withDetail(detail));
+    }
+
+    private static ResponseEntity<?> conflict(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.CONFLICT) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Conflict") //
+                        .withDetail(detail));
+    }
+
+    private static ResponseEntity<?> unprocessable(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.UNPROCESSABLE_ENTITY) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Unprocessable entity") //
+                        .withDetail(detail));
+    }
+
+    private static String wrongStatusDetail(String action, Status status) {
+        return "You can't " + action + " an order that is in the " + status + " status";
     }
 }
@@ -0,0 +1,257 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.PayrollRunEngine;
+import com.example.Payroll.Components.PayrollRunModelAssembler;
+import com.example.Payroll.Controllers.Exceptions.PayrollRunNotFoundException;
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Models.PayrollRunProgress;
+import com.example.Payroll.Models.RunStatus;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Ropositories.PayrollCheckpointRepository;
+import com.example.Payroll.Ropositories.PayrollRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class PayrollService {
+
+    private static final Logger log = LoggerFactory.getLogger(PayrollService.class);
+
+    private static final int FINISH_ATTEMPTS = 3;
+
+    private final PayrollRunRepository payrollRunRepository;
+
+    private final PayrollCheckpointRepository checkpointRepository;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final PayrollRunEngine engine;
+
+    private final PayrollRunModelAssembler assembler;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int partitions;
+
+    private final boolean resumeOnStartup;
+
+    public PayrollService(PayrollRunRepository payrollRunRepository, PayrollCheckpointRepository checkpointRepository,
+                          EmployeeRepository employeeRepository, PayrollRunEngine engine,
+                          PayrollRunModelAssembler assembler, TransactionTemplate transactionTemplate,
+                          @Value("${payroll.run.partitions:16}") int partitions,
+                          @Value("${payroll.run.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.payrollRunRepository = payrollRunRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.employeeRepository = employeeRepository;
+        this.engine = engine;
+        this.assembler = assembler;
+        this.transactionTemplate = transactionTemplate;
+        this.partitions = partitions;
+        this.resumeOnStartup = resumeOnStartup;
+    }
+
+    /**
+     * Records a run over every current employee, split into partitions with one checkpoint each, and starts it
+     * in the background; 202 points at the run to poll.
+     */
+    public ResponseEntity<?> startRun() {
+
+        if (engine.isRunning()) {
+            return conflict();
+        }
+
+        PayrollRun run = transactionTemplate.execute(status -> {
+            Long minId = employeeRepository.findMinId();
+            Long maxId = employeeRepository.findMaxId();
+            PayrollRun newRun = payrollRunRepository.save(minId == null ? new PayrollRun(0L, 0L) : new PayrollRun(minId, maxId + 1));
+            checkpointRepository.saveAll(partition(newRun));
+            return newRun;
+        });
+
+        return execute(run, true);
+    }
+
+    /**
+     * Stops a RUNNING run after its current chunks; it shows as PAUSED once they have committed.
+     */
+    public ResponseEntity<?> pauseRun(Long id) {
+
+        PayrollRun run = findRun(id);
+        if (run.getStatus() != RunStatus.RUNNING) {
+            return wrongStatus("pause", run.getStatus());
+        }
+
+        if (!engine.pause(id)) {
+            // RUNNING, but not executing in this process any more
+            run.interrupt(null);
+            try {
+                run = payrollRunRepository.save(run);
+            } catch (OptimisticLockingFailureException e) {
+                return conflict("Payroll run " + id + " changed while it was being paused");
+            }
+        }
+
+        return ResponseEntity.accepted().body(assembler.toModel(run, checkpointRepository.findByRunIdOrderByPartitionIndexAsc(id)));
+    }
+
+    /**
+     * Continues a PAUSED or FAILED run from its checkpoints.
+     */
+    public ResponseEntity<?> resumeRun(Long id) {
+
+        PayrollRun run = findRun(id);
+        if (run.getStatus() != RunStatus.PAUSED && run.getStatus() != RunStatus.FAILED) {
+            return wrongStatus("resume", run.getStatus());
+        }
+        if (engine.isRunning()) {
+            return conflict();
+        }
+
+        // Of several requests resuming the same run, only the first save goes through
+        run.resume(Instant.now());
+        try {
+            run = payrollRunRepository.save(run);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict("Payroll run " + id + " is already being resumed");
+        }
+        return execute(run, false);
+    }
+
+    public PayrollRunProgress getRun(Long id) {
+
+        return assembler.toModel(findRun(id), checkpointRepository.findByRunIdOrderByPartitionIndexAsc(id));
+    }
+
+    /**
+     * A run left RUNNING by a process that stopped is PAUSED at startup, and the latest one resumed if configured.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverRuns() {
+
+        List<PayrollRun> interrupted = payrollRunRepository.findByStatusOrderByIdDesc(RunStatus.RUNNING);
+        for (PayrollRun run : interrupted) {
+            log.warn("Payroll run " + run.getId() + " was interrupted, pausing it at its checkpoints");
+            run.interrupt("Interrupted by a restart");
+            payrollRunRepository.save(run);
+        }
+        if (resumeOnStartup && !interrupted.isEmpty()) {
+            resumeRun(interrupted.get(0).getId());
+        }
+    }
+
+    private ResponseEntity<?> execute(PayrollRun run, boolean created) {
+
+        List<PayrollCheckpoint> checkpoints = checkpointRepository.findByRunIdOrderByPartitionIndexAsc(run.getId());
+
+        if (!engine.start(run.getId(), checkpoints, result -> finishRun(run.getId(), result))) {
+            // Lost a race with another run since the isRunning() check. A new run is PAUSED so that it stays
+            // resumable; a resumed one only goes back to PAUSED if nothing has written it since its resume.
+            run.stop(RunStatus.PAUSED, Instant.now(), "Another payroll run was executing");
+            try {
+                payrollRunRepository.save(run);
+            } catch (OptimisticLockingFailureException e) {
+                if (created) {
+                    throw e;
+                }
+            }
+            return conflict();
+        }
+
+        PayrollRunProgress progress = assembler.toModel(run, checkpoints);
+
+        return ResponseEntity //
+                .accepted() //
+                .location(progress.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
+                .body(progress);
+    }
+
+    // The engine's outcome is final, so a concurrent write only means reading the run again
+    private void finishRun(Long id, PayrollRunEngine.Result result) {
+
+        if (result.getOutcome() == PayrollRunEngine.Outcome.FAILED) {
+            log.error("Payroll run " + id + " failed", result.getFailure());
+        }
+        for (int attempt = 1; ; attempt++) {
+            PayrollRun run = findRun(id);
+            switch (result.getOutcome()) {
+                case COMPLETED:
+                    run.stop(RunStatus.COMPLETED, Instant.now(), null);
+                    break;
+                case PAUSED:
+                    run.stop(RunStatus.PAUSED, Instant.now(), null);
+                    break;
+                default:
+                    run.stop(RunStatus.FAILED, Instant.now(), String.valueOf(result.getFailure().getMessage()));
+            }
+            try {
+                payrollRunRepository.save(run);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == FINISH_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Equal slices of the id range; a range shorter than the partition count gets one id per partition
+    private List<PayrollCheckpoint> partition(PayrollRun run) {
+
+        long span = run.getToId() - run.getFromId();
+        int count = (int) Math.max(1, Math.min(partitions, span));
+
+        List<PayrollCheckpoint> checkpoints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            checkpoints.add(new PayrollCheckpoint(run.getId(), i, run.getFromId() + span * i / count,
+                    run.getFromId() + span * (i + 1) / count));
+        }
+        return checkpoints;
+    }
+
+    private PayrollRun findRun(Long id) {
+
+        return payrollRunRepository.findById(id) //
+                .orElseThrow(() -> new PayrollRunNotFoundException(id));
+    }
+
+    private static ResponseEntity<?> wrongStatus(String action, RunStatus status) {
+
+        return ResponseEntity //
+                .status(HttpStatus.METHOD_NOT_ALLOWED) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Method not allowed") //
+                        .withDetail("You can't " + action + " a payroll run that is in the " + status + " status"));
+    }
+
+    private static ResponseEntity<?> conflict() {
+        return conflict("A payroll run is already in progress");
+    }
+
+    private static ResponseEntity<?> conflict(String detail) {
+
+        return ResponseEntity //
+                .status(HttpStatus.CONFLICT) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Conflict") //
+                        .withDetail(detail));
+    }
+}
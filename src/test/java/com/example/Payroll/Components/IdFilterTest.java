@@ -0,0 +1,73 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Employee;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdFilterTest {
+
+    // {{ membership
+    @Test
+    public void mightContain_PassesEverythingUntilLoaded() {
+
+        IdFilter<Employee> ids = IdFilter.of("employeeIds");
+        ids.add(1L);
+
+        assertTrue(ids.mightContain(2L));
+
+        ids.load(Stream.of(3L));
+
+        assertTrue(ids.mightContain(1L));
+        assertFalse(ids.mightContain(2L));
+        assertTrue(ids.mightContain(3L));
+    }
+
+    @Test
+    public void mightContain_AcrossPagesAndOutsideTrackedRange() {
+
+        IdFilter<Employee> ids = IdFilter.of("employeeIds");
+        ids.load(Stream.of(63L, 64L, 65_536L, 1_000_000L));
+
+        assertTrue(ids.mightContain(63L));
+        assertTrue(ids.mightContain(64L));
+        assertFalse(ids.mightContain(62L));
+        assertTrue(ids.mightContain(65_536L));
+        assertFalse(ids.mightContain(65_537L));
+        assertTrue(ids.mightContain(1_000_000L));
+        assertFalse(ids.mightContain(999_999L));
+
+        // untracked ids are never rejected
+        assertTrue(ids.mightContain(-1L));
+        assertTrue(ids.mightContain(Long.MAX_VALUE));
+        assertEquals(4L, ids.stats().get("size"));
+        assertEquals(3L, ids.stats().get("rejected"));
+    }
+
+    @Test
+    public void remove_OutsideTransactionIsImmediate() {
+
+        IdFilter<Employee> ids = IdFilter.of("employeeIds");
+        ids.load(Stream.of(7L));
+        ids.remove(7L);
+        ids.remove(7L);
+
+        assertFalse(ids.mightContain(7L));
+        assertEquals(0L, ids.stats().get("size"));
+    }
+
+    @Test
+    public void disabled_AlwaysMightContain() {
+
+        IdFilter<Employee> ids = IdFilter.disabled("employeeIds");
+        ids.load(Stream.of(1L));
+
+        assertTrue(ids.mightContain(2L));
+        assertFalse((Boolean) ids.stats().get("enabled"));
+    }
+    // }}
+}
@@ -0,0 +1,160 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Controllers.EmployeeController;
+import com.example.Payroll.Controllers.OrderController;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.MultiGetModel;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+public class ModelAssemblerTest {
+
+    private final EmployeeModelAssembler employeeAssembler = new EmployeeModelAssembler();
+
+    private final OrderModelAssembler orderAssembler = new OrderModelAssembler();
+
+    private final ObjectMapper halMapper = halMapper();
+
+    @AfterEach
+    public void reset() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    // {{ Employee links
+    @Test
+    public void employeeLinks_SameAsLinkBuilder_WithoutRequest() throws JsonProcessingException {
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+
+        assertEquals(hal(expected(employee)), hal(employeeAssembler.toModel(employee)));
+    }
+
+    @Test
+    public void employeeLinks_SameAsLinkBuilder_WithinRequest() throws JsonProcessingException {
+
+        bindRequest();
+
+        for (long id = 1L; id <= 3L; id++) {
+            Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+            employee.setId(id);
+
+            EntityModel<Employee> model = employeeAssembler.toModel(employee);
+            assertEquals(hal(expected(employee)), hal(model));
+            assertEquals("https://payroll.example.com:8443/api/employees/" + id, model.getRequiredLink("self").getHref());
+        }
+    }
+    // }}
+
+    // {{ Order links
+    @Test
+    public void orderLinks_SameAsLinkBuilder_InProgress() throws JsonProcessingException {
+
+        bindRequest();
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+
+        assertEquals(hal(expected(order)), hal(orderAssembler.toModel(order)));
+    }
+
+    @Test
+    public void orderLinks_SameAsLinkBuilder_Completed() throws JsonProcessingException {
+
+        Order order = new Order("MacBook Pro", Status.COMPLETED);
+        order.setId(1L);
+
+        assertEquals(hal(expected(order)), hal(orderAssembler.toModel(order)));
+    }
+    // }}
+
+    // {{ Lookup by ids
+    @Test
+    public void lookupByIds_RequestOrderAndMissing() {
+
+        bindRequest();
+
+        Order iPhone = new Order("iPhone", Status.IN_PROGRESS);
+        iPhone.setId(2L);
+        Order nokia = new Order("Nokia", Status.CANCELLED);
+        nokia.setId(3L);
+        Map<Long, Order> found = new HashMap<>();
+        found.put(2L, iPhone);
+        found.put(3L, nokia);
+
+        MultiGetModel<Order> model = orderAssembler.toModel(Arrays.asList(3L, 7L, 2L), found);
+
+        assertEquals(Arrays.asList(nokia, iPhone), model.getContent().stream() //
+                .map(EntityModel::getContent) //
+                .collect(Collectors.toList()));
+        assertEquals(Arrays.asList(7L), model.getMissing());
+        assertEquals("https://payroll.example.com:8443/api/orders?ids=3,7,2", model.getRequiredLink("self").getHref());
+    }
+    // }}
+
+    private String hal(EntityModel<?> model) throws JsonProcessingException {
+        return halMapper.writeValueAsString(model);
+    }
+
+    private static ObjectMapper halMapper() {
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator( //
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static void bindRequest() {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setScheme("https");
+        request.setServerName("payroll.example.com");
+        request.setServerPort(8443);
+        request.setContextPath("/api");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static EntityModel<Employee> expected(Employee employee) {
+
+        return EntityModel.of(employee, //
+                linkTo(methodOn(EmployeeController.class).one(employee.getId(), null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
+    }
+
+    private static EntityModel<Order> expected(Order order) {
+
+        EntityModel<Order> orderModel = EntityModel.of(order,
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(order.getId(), null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+
+        if (order.getStatus() == Status.IN_PROGRESS) {
+            orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId(), null)).withRel("cancel"));
+            orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId(), null)).withRel("complete"));
+        }
+
+        return orderModel;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.EmployeeName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NameIndexTest {
+
+    private static NameIndex loaded() {
+
+        NameIndex names = NameIndex.of("employeeNames");
+        names.load(Stream.of( //
+                new EmployeeName(1L, "Bilbo", "Baggins"), //
+                new EmployeeName(2L, "Frodo", "Baggins"), //
+                new EmployeeName(3L, "Samwise", "Gamgee"), //
+                new EmployeeName(4L, "Bandobras", "Took")));
+        return names;
+    }
+
+    private static List<Long> ids(List<EmployeeName> suggestions) {
+        return suggestions.stream().map(EmployeeName::getId).collect(Collectors.toList());
+    }
+
+    // {{ suggest
+    @Test
+    public void suggest_ByFirstOrLastNameInNameOrder() {
+
+        NameIndex names = loaded();
+
+        // "Baggins Bilbo", "Baggins Frodo", "Bandobras Took", "Bilbo Baggins" (already listed)
+        assertEquals(Arrays.asList(1L, 2L, 4L), ids(names.suggest("ba", 10)));
+        assertEquals(Arrays.asList(new EmployeeName(3L, "Samwise", "Gamgee")), names.suggest("GAM", 10));
+        assertEquals(Arrays.asList(2L), ids(names.suggest("baggins f", 10)));
+        assertEquals(Arrays.asList(2L), ids(names.suggest("frodo bag", 10)));
+        assertTrue(names.suggest("x", 10).isEmpty());
+        assertTrue(names.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void suggest_StopsAtLimit() {
+
+        NameIndex names = loaded();
+
+        assertEquals(Arrays.asList(1L, 2L), ids(names.suggest("b", 2)));
+    }
+
+    @Test
+    public void suggest_EmptyUntilLoadedWhenDisabled() {
+
+        NameIndex names = NameIndex.disabled("employeeNames");
+        names.load(Stream.of(new EmployeeName(1L, "Bilbo", "Baggins")));
+        names.put(2L, "Frodo", "Baggins");
+
+        assertFalse(names.isReady());
+        assertTrue(names.suggest("b", 10).isEmpty());
+        assertFalse((Boolean) names.stats().get("enabled"));
+    }
+    // }}
+
+    // {{ maintenance
+    @Test
+    public void put_ReplacesPreviousNames() {
+
+        NameIndex names = loaded();
+        names.put(1L, "Bilbo", "Underhill");
+        names.put(1L, "Bilbo", "Hill");
+
+        assertEquals(Arrays.asList(2L), ids(names.suggest("bag", 10)));
+        assertEquals(Arrays.asList(new EmployeeName(1L, "Bilbo", "Hill")), names.suggest("hi", 10));
+        assertTrue(names.suggest("under", 10).isEmpty());
+    }
+
+    @Test
+    public void put_InterleavesWithLoadedNames() {
+
+        NameIndex names = loaded();
+        names.put(5L, "Belladonna", "Took");
+        names.put(6L, "Bungo", "Baggins");
+
+        assertEquals(Arrays.asList(1L, 6L, 2L, 4L, 5L), ids(names.suggest("b", 10)));
+    }
+
+    @Test
+    public void remove_HidesLoadedAndPutNames() {
+
+        NameIndex names = loaded();
+        names.put(5L, "Belladonna", "Took");
+        names.remove(5L);
+        names.remove(2L);
+        names.remove(99L);
+
+        assertEquals(Arrays.asList(1L, 4L), ids(names.suggest("b", 10)));
+    }
+
+    @Test
+    public void load_KeepsChangesMadeWhileLoading() {
+
+        NameIndex names = NameIndex.of("employeeNames");
+        names.put(1L, "Bilbo", "Hill");
+        names.remove(2L);
+        names.load(Stream.of(new EmployeeName(1L, "Bilbo", "Baggins"), new EmployeeName(2L, "Frodo", "Baggins")));
+
+        assertTrue(names.isReady());
+        assertEquals(Arrays.asList(1L), ids(names.suggest("b", 10)));
+        assertTrue(names.suggest("bag", 10).isEmpty());
+    }
+
+    @Test
+    public void put_MergesOverlayOnceItOutgrowsTheArena() {
+
+        NameIndex names = loaded();
+        List<Long> expected = new ArrayList<>();
+        for (long id = 100; id < 5_100; id++) {
+            names.put(id, String.format("Hobbit%05d", id), "Smith");
+            expected.add(id);
+        }
+
+        assertTrue((Integer) names.stats().get("overlay") < 4_096);
+        assertEquals(expected.subList(0, 50), ids(names.suggest("hobbit", 50)));
+        assertEquals(Arrays.asList(4_999L), ids(names.suggest("Hobbit04999", 50)));
+        assertEquals(Arrays.asList(1L, 2L), ids(names.suggest("bag", 10)));
+    }
+    // }}
+}
@@ -0,0 +1,206 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.OrderEvent;
+import com.example.Payroll.Models.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderEventsTest {
+
+    private OrderEvents events = new OrderEvents("orderEvents", 10, 4, 3, Duration.ofMinutes(1));
+
+    @AfterEach
+    public void close() {
+        events.close();
+    }
+
+    // {{ fan-out
+    @Test
+    public void publish_DeliversToEverySubscriberInOrder() throws Exception {
+
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        events.subscribe(null, first);
+        events.subscribe(null, second);
+
+        events.publish(1L, Status.IN_PROGRESS);
+        events.publish(Arrays.asList(2L, 3L), Status.CANCELLED);
+
+        awaitTrue(() -> first.events.size() == 3 && second.events.size() == 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), first.orderIds());
+        assertEquals(Arrays.asList(1L, 2L, 3L), second.orderIds());
+        assertEquals(Status.CANCELLED, first.events.get(2).getStatus());
+        assertEquals(3L, events.stats().get("published"));
+        assertEquals(6L, events.stats().get("delivered"));
+    }
+
+    @Test
+    public void subscribe_RejectedBeyondMaxSubscribers() {
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(events.subscribe(null, new RecordingEmitter()));
+        }
+
+        assertNull(events.subscribe(null, new RecordingEmitter()));
+        assertEquals(1L, events.stats().get("rejected"));
+    }
+    // }}
+
+    // {{ Last-Event-ID
+    @Test
+    public void subscribe_ResumesAfterLastEventId() throws Exception {
+
+        RecordingEmitter live = new RecordingEmitter();
+        events.subscribe(null, live);
+        events.publish(Arrays.asList(1L, 2L, 3L), Status.IN_PROGRESS);
+        awaitTrue(() -> live.events.size() == 3);
+
+        RecordingEmitter resumed = new RecordingEmitter();
+        events.subscribe(live.ids.get(0), resumed);
+
+        awaitTrue(() -> resumed.events.size() == 2);
+        assertEquals(Arrays.asList(2L, 3L), resumed.orderIds());
+        assertFalse(resumed.names.contains(OrderEvents.RESET_EVENT));
+        assertEquals(1L, events.stats().get("resumed"));
+    }
+
+    @Test
+    public void subscribe_UnknownLastEventIdGetsReset() throws Exception {
+
+        events.publish(1L, Status.IN_PROGRESS);
+
+        RecordingEmitter reset = new RecordingEmitter();
+        events.subscribe("0-41", reset);
+        events.publish(2L, Status.IN_PROGRESS);
+
+        awaitTrue(() -> reset.events.size() == 1);
+        assertEquals(OrderEvents.RESET_EVENT, reset.names.get(0));
+        assertEquals(Arrays.asList(2L), reset.orderIds());
+        assertEquals(1L, events.stats().get("resets"));
+    }
+    // }}
+
+    // {{ backpressure
+    @Test
+    public void publish_SlowSubscriberDroppedWithoutHoldingUpOthers() throws Exception {
+
+        RecordingEmitter fast = new RecordingEmitter();
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.gate = new CountDownLatch(1);
+        events.subscribe(null, fast);
+        events.subscribe(null, slow);
+
+        events.publish(1L, Status.IN_PROGRESS);
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        for (long id = 2; id <= 6; id++) {
+            // the fast client keeps up with every event
+            int delivered = (int) id - 1;
+            awaitTrue(() -> fast.events.size() == delivered);
+            events.publish(id, Status.IN_PROGRESS);
+        }
+
+        awaitTrue(() -> fast.events.size() == 6);
+        assertEquals(1L, events.stats().get("dropped"));
+        assertEquals(1, events.stats().get("subscribers"));
+
+        slow.gate.countDown();
+        awaitTrue(() -> slow.completed);
+        assertEquals(Arrays.asList(1L), slow.orderIds());
+
+        // the dropped client reconnects and catches up from the buffer
+        RecordingEmitter reconnected = new RecordingEmitter();
+        events.subscribe(slow.ids.get(0), reconnected);
+        awaitTrue(() -> reconnected.events.size() == 5);
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L, 6L), reconnected.orderIds());
+    }
+    // }}
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Keeps what would have been written to the client; a gate makes it a client that has stopped reading.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private static final Pattern ID = Pattern.compile("id:(\\S+)");
+
+        private static final Pattern NAME = Pattern.compile("event:(\\S+)");
+
+        private final List<OrderEvent> events = new CopyOnWriteArrayList<>();
+
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+
+        private final List<String> names = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        private volatile CountDownLatch gate;
+
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+
+            sending.countDown();
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            StringBuilder text = new StringBuilder();
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof OrderEvent) {
+                    events.add((OrderEvent) data.getData());
+                } else {
+                    text.append(data.getData());
+                }
+            }
+            Matcher id = ID.matcher(text);
+            if (id.find()) {
+                ids.add(id.group(1));
+            }
+            Matcher name = NAME.matcher(text);
+            if (name.find()) {
+                names.add(name.group(1));
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        List<Long> orderIds() {
+            return events.stream().map(OrderEvent::getOrderId).collect(Collectors.toList());
+        }
+    }
+}
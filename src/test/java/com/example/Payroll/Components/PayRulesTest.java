@@ -0,0 +1,42 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Payslip;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PayRulesTest {
+
+    private final PayRules payRules = new PayRules(Collections.singletonMap("Burglar", new BigDecimal("4200.00")),
+            new BigDecimal("3000.00"), new BigDecimal("0.215"));
+
+    // {{ payslip
+    @Test
+    public void payslip_SalaryByRoleIgnoringCase() {
+
+        Payslip payslip = payRules.payslip(1L, 2L, " burglar");
+
+        assertEquals(new Payslip(1L, 2L, " burglar", new BigDecimal("4200.00"), new BigDecimal("903.00")), payslip);
+        assertEquals(new BigDecimal("3297.00"), payslip.getNet());
+    }
+
+    @Test
+    public void payslip_DefaultSalaryForOtherRoles() {
+
+        assertEquals(new BigDecimal("3000.00"), payRules.payslip(1L, 3L, "gardener").getGross());
+        assertEquals(new BigDecimal("3000.00"), payRules.payslip(1L, 4L, null).getGross());
+    }
+
+    @Test
+    public void payslip_TaxRoundedToCents() {
+
+        PayRules rules = new PayRules(Collections.emptyMap(), new BigDecimal("1000.05"), new BigDecimal("0.215"));
+
+        // 215.01075
+        assertEquals(new BigDecimal("215.01"), rules.payslip(1L, 1L, "cook").getTax());
+    }
+    // }}
+}
@@ -0,0 +1,90 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.PayrollCheckpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class PayrollRunEngineTest {
+
+    // Two partitions too long to ever finish on their own
+    private static final List<PayrollCheckpoint> CHECKPOINTS = Arrays.asList( //
+            new PayrollCheckpoint(1L, 0, 1L, 1_000_000L), //
+            new PayrollCheckpoint(1L, 1, 1_000_000L, 2_000_000L));
+
+    private final TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+
+    // {{ failures
+    @Test
+    public void start_FailedPartitionStopsTheOthersBeforeReporting() throws Exception {
+
+        // Every chunk stays at its checkpoint; the first one fails once the other partition is also in a chunk
+        AtomicInteger chunks = new AtomicInteger();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Mockito.when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation -> {
+            int chunk = chunks.incrementAndGet();
+            bothStarted.countDown();
+            bothStarted.await(5, TimeUnit.SECONDS);
+            if (chunk == 1) {
+                throw new IllegalStateException("chunk failed");
+            }
+            Thread.sleep(5);
+            return 0L;
+        });
+
+        try (PayrollRunEngine engine = engine()) {
+            CompletableFuture<PayrollRunEngine.Result> done = new CompletableFuture<>();
+            assertTrue(engine.start(1L, CHECKPOINTS, done::complete));
+
+            PayrollRunEngine.Result result = done.get(10, TimeUnit.SECONDS);
+            int chunksWhenReported = chunks.get();
+            Thread.sleep(100);
+
+            assertEquals(PayrollRunEngine.Outcome.FAILED, result.getOutcome());
+            assertFalse(engine.isRunning());
+            assertEquals(chunksWhenReported, chunks.get());
+        }
+    }
+
+    @Test
+    public void start_EveryFailureIsReported() throws Exception {
+
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Mockito.when(transactionTemplate.execute(any(TransactionCallback.class))).thenAnswer(invocation -> {
+            bothStarted.countDown();
+            bothStarted.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("chunk failed");
+        });
+
+        try (PayrollRunEngine engine = engine()) {
+            CompletableFuture<PayrollRunEngine.Result> done = new CompletableFuture<>();
+            assertTrue(engine.start(1L, CHECKPOINTS, done::complete));
+
+            PayrollRunEngine.Result result = done.get(10, TimeUnit.SECONDS);
+
+            assertEquals(PayrollRunEngine.Outcome.FAILED, result.getOutcome());
+            assertEquals(1, result.getFailure().getSuppressed().length);
+        }
+    }
+    // }}
+
+    private PayrollRunEngine engine() {
+        return new PayrollRunEngine(Mockito.mock(JdbcTemplate.class), transactionTemplate, Mockito.mock(PayRules.class),
+                new SimpleMeterRegistry(), 2, 100, 10);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Configs.SmileConfig;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RepresentationModuleTest {
+
+    private final ObjectMapper halMapper = halMapper(new JsonFactory()).registerModule(new RepresentationModule(new DefaultLinkRelationProvider()));
+
+    // {{ golden output
+    @Test
+    public void order_HalGolden() throws JsonProcessingException {
+
+        assertEquals("{\"id\":2,\"description\":\"iPhone\",\"status\":\"IN_PROGRESS\",\"_links\":{" //
+                        + "\"self\":{\"href\":\"/orders/2\"}," //
+                        + "\"orders\":{\"href\":\"/orders\"}," //
+                        + "\"cancel\":{\"href\":\"/orders/2/cancel\"}," //
+                        + "\"complete\":{\"href\":\"/orders/2/complete\"}}}", //
+                halMapper.writeValueAsString(orderModel(order(2L, "iPhone", Status.IN_PROGRESS))));
+    }
+
+    @Test
+    public void employee_HalGolden() throws JsonProcessingException {
+
+        assertEquals("{\"id\":1,\"firstName\":\"Bilbo\",\"lastName\":\"Baggins\",\"role\":\"burglar\"," //
+                        + "\"name\":\"Bilbo Baggins\",\"_links\":{" //
+                        + "\"self\":{\"href\":\"/employees/1\"}," //
+                        + "\"employees\":{\"href\":\"/employees\"}}}", //
+                halMapper.writeValueAsString(employeeModel(employee(1L, "Bilbo", "Baggins", "burglar"))));
+    }
+
+    @Test
+    public void orderPage_HalGolden() throws JsonProcessingException {
+
+        CollectionModel<EntityModel<Order>> page = CollectionModel.of(Arrays.asList( //
+                        orderModel(order(1L, "MacBook Pro", Status.COMPLETED)), //
+                        orderModel(order(2L, "iPhone", Status.IN_PROGRESS))), //
+                Link.of("/orders?after=2"), Link.of("/orders?after=2", "next"));
+
+        assertEquals("{\"_embedded\":{\"orderList\":[" //
+                        + "{\"id\":1,\"description\":\"MacBook Pro\",\"status\":\"COMPLETED\",\"_links\":{" //
+                        + "\"self\":{\"href\":\"/orders/1\"},\"orders\":{\"href\":\"/orders\"}}}," //
+                        + "{\"id\":2,\"description\":\"iPhone\",\"status\":\"IN_PROGRESS\",\"_links\":{" //
+                        + "\"self\":{\"href\":\"/orders/2\"},\"orders\":{\"href\":\"/orders\"}," //
+                        + "\"cancel\":{\"href\":\"/orders/2/cancel\"},\"complete\":{\"href\":\"/orders/2/complete\"}}}]}," //
+                        + "\"_links\":{\"self\":{\"href\":\"/orders?after=2\"},\"next\":{\"href\":\"/orders?after=2\"}}}", //
+                halMapper.writeValueAsString(page));
+    }
+    // }}
+
+    // {{ same as the bean serializers
+    @Test
+    public void hal_SameAsStock() throws Exception {
+
+        ObjectMapper stock = halMapper(new JsonFactory());
+        for (Object value : values()) {
+            assertEquals(stock.writeValueAsString(value), halMapper.writeValueAsString(value), String.valueOf(value));
+        }
+    }
+
+    @Test
+    public void halSmile_SameAsStock() throws Exception {
+
+        ObjectMapper stock = halMapper(new SmileFactory());
+        ObjectMapper mapper = halMapper(new SmileFactory()).registerModule(new RepresentationModule(new DefaultLinkRelationProvider()));
+        for (Object value : values()) {
+            assertArrayEquals(stock.writeValueAsBytes(value), mapper.writeValueAsBytes(value), String.valueOf(value));
+        }
+    }
+
+    @Test
+    public void plain_SameAsStock() throws Exception {
+
+        ObjectMapper stock = new ObjectMapper();
+        ObjectMapper mapper = new ObjectMapper().registerModule(new RepresentationModule(new DefaultLinkRelationProvider()));
+        ObjectMapper stockWithoutLinks = SmileConfig.withoutLinks(new ObjectMapper());
+        ObjectMapper mapperWithoutLinks = SmileConfig.withoutLinks(new ObjectMapper()).registerModule(new RepresentationModule(new DefaultLinkRelationProvider()));
+        for (Object value : values()) {
+            assertEquals(stock.writeValueAsString(value), mapper.writeValueAsString(value), String.valueOf(value));
+            assertEquals(stockWithoutLinks.writeValueAsString(value), mapperWithoutLinks.writeValueAsString(value),
+                    String.valueOf(value));
+        }
+    }
+    // }}
+
+    // Everything the serializers write themselves, and the cases they hand back to Spring HATEOAS
+    private static List<Object> values() {
+
+        Employee unnamed = employee(3L, null, null, null);
+        Employee escaped = employee(4L, "Frodo \"Ring-bearer\"", "Bägg’ins\n", "thief\\");
+        Employee unsaved = employee(null, "Samwise", "Gamgee", "gardener");
+
+        EntityModel<Order> repeatedRel = orderModel(order(5L, "Lembas", Status.IN_PROGRESS));
+        repeatedRel.add(Link.of("/orders/5/mirror", IanaLinkRelations.SELF));
+        EntityModel<Order> templated = EntityModel.of(order(6L, "Mithril", Status.COMPLETED),
+                Link.of("/orders/6"), Link.of("/orders{?status}", "search"));
+        EntityModel<Order> titled = EntityModel.of(order(7L, "Cloak", Status.CANCELLED),
+                Link.of("/orders/7").withTitle("Cloak"));
+
+        return Arrays.asList( //
+                order(1L, "iPhone", Status.IN_PROGRESS), //
+                order(null, null, null), //
+                employee(1L, "Bilbo", "Baggins", "burglar"), //
+                unnamed, //
+                escaped, //
+                orderModel(order(2L, "MacBook Pro", Status.COMPLETED)), //
+                orderModel(order(null, null, null)), //
+                employeeModel(escaped), //
+                employeeModel(unnamed), //
+                employeeModel(unsaved), //
+                EntityModel.of(order(8L, "Lantern", Status.IN_PROGRESS)), //
+                repeatedRel, //
+                templated, //
+                titled, //
+                EntityModel.of(Collections.singletonMap("total", 2L), Link.of("/orders/stats")), //
+                CollectionModel.of(Arrays.asList(orderModel(order(1L, "iPhone", Status.IN_PROGRESS)), templated),
+                        Link.of("/orders")), //
+                CollectionModel.of(Collections.singletonList(employeeModel(escaped)), Link.of("/employees")), //
+                CollectionModel.of(Arrays.asList(orderModel(order(1L, "iPhone", Status.IN_PROGRESS)),
+                        employeeModel(unsaved)), Link.of("/orders")), //
+                CollectionModel.of(Collections.emptyList(), Link.of("/orders")));
+    }
+
+    private static ObjectMapper halMapper(JsonFactory factory) {
+
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator( //
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static Order order(Long id, String description, Status status) {
+
+        Order order = new Order(description, status);
+        order.setId(id);
+        return order;
+    }
+
+    private static Employee employee(Long id, String firstName, String lastName, String role) {
+
+        Employee employee = new Employee(firstName, lastName, role);
+        employee.setId(id);
+        return employee;
+    }
+
+    // The links OrderModelAssembler builds
+    private static EntityModel<Order> orderModel(Order order) {
+
+        EntityModel<Order> model = EntityModel.of(order, Link.of("/orders/" + order.getId()), Link.of("/orders", "orders"));
+        if (order.getStatus() == Status.IN_PROGRESS) {
+            model.add(Link.of("/orders/" + order.getId() + "/cancel", "cancel"));
+            model.add(Link.of("/orders/" + order.getId() + "/complete", "complete"));
+        }
+        return model;
+    }
+
+    private static EntityModel<Employee> employeeModel(Employee employee) {
+        return EntityModel.of(employee, Link.of("/employees/" + employee.getId()), Link.of("/employees", "employees"));
+    }
+}
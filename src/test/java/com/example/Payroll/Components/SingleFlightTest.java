@@ -0,0 +1,116 @@
+package com.example.Payroll.Components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+
+    // {{ coalescing
+    @Test
+    public void execute_ConcurrentCallersShareOneLoad() throws Exception {
+
+        SingleFlight<Long, String> loads = new SingleFlight<>("loads");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = executor.submit(() -> loads.execute(1L, () -> {
+                calls.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "Bilbo";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> loads.execute(1L, () -> {
+                    calls.incrementAndGet();
+                    return "Frodo";
+                })));
+            }
+            while ((Long) loads.stats().get("coalesced") < 7) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("Bilbo", leader.get());
+            for (Future<String> follower : followers) {
+                assertEquals("Bilbo", follower.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(1L, loads.stats().get("loads"));
+        assertEquals(7L, loads.stats().get("coalesced"));
+        assertEquals(0, loads.stats().get("inFlight"));
+    }
+
+    @Test
+    public void execute_SequentialCallersLoadAgain() {
+
+        SingleFlight<Long, String> loads = new SingleFlight<>("loads");
+        AtomicInteger calls = new AtomicInteger();
+
+        loads.execute(1L, () -> "v" + calls.incrementAndGet());
+
+        assertEquals("v2", loads.execute(1L, () -> "v" + calls.incrementAndGet()));
+        assertEquals(0L, loads.stats().get("coalesced"));
+    }
+
+    @Test
+    public void execute_FollowersSeeLeadersException() throws Exception {
+
+        SingleFlight<Long, String> loads = new SingleFlight<>("loads");
+        IllegalStateException failure = new IllegalStateException("database is down");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> loads.execute(1L, () -> {
+                loading.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            Future<String> follower = executor.submit(() -> loads.execute(1L, () -> "unused"));
+            while ((Long) loads.stats().get("coalesced") < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertSame(failure, assertThrows(Exception.class, leader::get).getCause());
+            assertSame(failure, assertThrows(Exception.class, follower::get).getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    // }}
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.Payroll.Components;
+
+import com.example.Payroll.Models.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatusCountsTest {
+
+    // {{ counts
+    @Test
+    public void move_OutsideTransactionIsImmediate() {
+
+        StatusCounts counts = new StatusCounts("orderCounts");
+        counts.created(Status.IN_PROGRESS, 3);
+        counts.move(Status.IN_PROGRESS, Status.COMPLETED, 2);
+
+        Map<Status, Long> expected = new EnumMap<>(Status.class);
+        expected.put(Status.IN_PROGRESS, 1L);
+        expected.put(Status.COMPLETED, 2L);
+        expected.put(Status.CANCELLED, 0L);
+        assertEquals(expected, counts.snapshot());
+    }
+
+    @Test
+    public void reconcile_MoveAlreadyInTheCountIsNotCountedTwice() {
+
+        StatusCounts counts = new StatusCounts("orderCounts");
+        counts.created(Status.IN_PROGRESS, 10);
+
+        Map<Status, Long> actual = new EnumMap<>(Status.class);
+        actual.put(Status.IN_PROGRESS, 9L);
+        actual.put(Status.CANCELLED, 1L);
+        counts.reconcile(() -> {
+            // committed before the count query read the table
+            counts.move(Status.IN_PROGRESS, Status.CANCELLED, 1);
+            return actual;
+        });
+
+        assertEquals(9L, counts.snapshot().get(Status.IN_PROGRESS));
+        assertEquals(1L, counts.snapshot().get(Status.CANCELLED));
+        assertEquals(0L, counts.stats().get("drift"));
+        assertEquals(1L, counts.stats().get("reconciliations"));
+    }
+
+    @Test
+    public void reconcile_WaitsForACommittedMoveToBeApplied() throws Exception {
+
+        StatusCounts counts = new StatusCounts("orderCounts");
+        counts.created(Status.IN_PROGRESS, 10);
+
+        // A transaction that has committed its cancel but not yet applied it
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch applying = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> transaction = executor.submit(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                counts.move(Status.IN_PROGRESS, Status.CANCELLED, 1);
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+                committing.countDown();
+                applying.await(5, TimeUnit.SECONDS);
+                synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            return null;
+        });
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+
+        Map<Status, Long> actual = new EnumMap<>(Status.class);
+        actual.put(Status.IN_PROGRESS, 9L);
+        actual.put(Status.CANCELLED, 1L);
+        Future<?> reconcile = executor.submit(() -> counts.reconcile(() -> actual));
+        Thread.sleep(50);
+        assertFalse(reconcile.isDone());
+
+        applying.countDown();
+        transaction.get(5, TimeUnit.SECONDS);
+        reconcile.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertEquals(9L, counts.snapshot().get(Status.IN_PROGRESS));
+        assertEquals(1L, counts.snapshot().get(Status.CANCELLED));
+        assertEquals(0L, counts.stats().get("drift"));
+    }
+
+    @Test
+    public void reconcile_CorrectsDrift() {
+
+        StatusCounts counts = new StatusCounts("orderCounts");
+        counts.created(Status.IN_PROGRESS, 4);
+
+        counts.reconcile(() -> Collections.singletonMap(Status.COMPLETED, 2L));
+
+        assertEquals(0L, counts.snapshot().get(Status.IN_PROGRESS));
+        assertEquals(2L, counts.snapshot().get(Status.COMPLETED));
+        assertEquals(6L, counts.stats().get("drift"));
+    }
+    // }}
+}
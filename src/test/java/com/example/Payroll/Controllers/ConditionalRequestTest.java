@@ -0,0 +1,102 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Ropositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // {{ orders
+    @Test
+    public void order_ETagFollowsTransitions() throws Exception {
+
+        Long id = orderRepository.save(new Order("Palantir", Status.IN_PROGRESS)).getId();
+
+        this.mockMvc.perform(get("/orders/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        this.mockMvc.perform(get("/orders/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        this.mockMvc.perform(delete("/orders/" + id + "/cancel").header(HttpHeaders.IF_MATCH, "\"7\""))
+                .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(put("/orders/" + id + "/complete").header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        this.mockMvc.perform(get("/orders/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+    // }}
+
+    // {{ employees
+    @Test
+    public void employee_IfMatchGuardsReplace() throws Exception {
+
+        Long id = employeeRepository.save(new Employee("Samwise", "Gamgee", "gardener")).getId();
+        String body = "{\"firstName\":\"Samwise\",\"lastName\":\"Gamgee\",\"role\":\"mayor\"}";
+
+        this.mockMvc.perform(put("/employees/" + id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        this.mockMvc.perform(put("/employees/" + id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+
+        this.mockMvc.perform(get("/employees/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified());
+
+        this.mockMvc.perform(put("/employees/" + id).header(HttpHeaders.IF_MATCH, "W/\"1\", \"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        this.mockMvc.perform(put("/employees/" + id).header(HttpHeaders.IF_MATCH, "\"1\", \"2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+        this.mockMvc.perform(put("/employees/" + id)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+
+        this.mockMvc.perform(get("/employees/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+    // }}
+}
@@ -1,8 +1,14 @@
 package com.example.Payroll.Controllers;
 
+import com.example.Payroll.Configs.SmileConfig;
 import com.example.Payroll.Controllers.Exceptions.EmployeeNotFoundException;
 import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
+import com.example.Payroll.Models.MultiGetModel;
 import com.example.Payroll.Services.EmployeeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,25 +17,33 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EmployeeController.class)
@@ -60,13 +74,13 @@ public class EmployeeControllerTest {
 
         List<EntityModel<Employee>> employeeEntityList = employeeList.stream().map((employee) -> {
             return EntityModel.of(employee, //
-                    linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-                    linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                    linkTo(methodOn(EmployeeController.class).one(employee.getId(), null)).withSelfRel(),
+                    linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
         }).collect(Collectors.toList());
 
-        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of(employeeEntityList, linkTo(methodOn(EmployeeController.class).all()).withSelfRel());
+        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of(employeeEntityList, linkTo(methodOn(EmployeeController.class).all(null, null, null)).withSelfRel().expand());
 
-        Mockito.when(employeeService.getEmployees()).thenReturn(expected);
+        Mockito.when(employeeService.getEmployees(null, null, null)).thenReturn(expected);
 
         ResultActions response = this.mockMvc.perform(get("/employees"))
                 .andDo(print())
@@ -80,6 +94,134 @@ public class EmployeeControllerTest {
                 .andExpect(jsonPath("$._embedded.employeeList[0]._links.employees.href").value("/employees"));
 
     }
+
+    @Test
+    public void getAllEmployees_Cursor() throws Exception {
+
+        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of(new ArrayList<EntityModel<Employee>>(), //
+                linkTo(methodOn(EmployeeController.class).all(1L, null, 2)).withSelfRel().expand(),
+                linkTo(methodOn(EmployeeController.class).all(3L, null, 2)).withRel(IanaLinkRelations.NEXT).expand());
+
+        Mockito.when(employeeService.getEmployees(1L, null, 2)).thenReturn(expected);
+
+        ResultActions response = this.mockMvc.perform(get("/employees")
+                .param("after", "1")
+                .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href").value("/employees?after=1&size=2"))
+                .andExpect(jsonPath("$._links.next.href").value("/employees?after=3&size=2"));
+
+        Mockito.verify(employeeService, Mockito.times(1)).getEmployees(1L, null, 2);
+    }
+    // }}
+
+    // {{ get Employees by ids
+    @Test
+    public void getEmployeesByIds_Successful() throws Exception {
+
+        Employee frodo = new Employee("Frodo", "Baggins", "thief");
+        frodo.setId(2L);
+        Employee bilbo = new Employee("Bilbo", "Baggins", "burglar");
+        bilbo.setId(1L);
+
+        List<EntityModel<Employee>> found = new ArrayList<>();
+        found.add(EntityModel.of(frodo, linkTo(methodOn(EmployeeController.class).one(2L, null)).withSelfRel()));
+        found.add(EntityModel.of(bilbo, linkTo(methodOn(EmployeeController.class).one(1L, null)).withSelfRel()));
+        MultiGetModel<Employee> expected = new MultiGetModel<>(found, Arrays.asList(9L), //
+                Link.of("/employees?ids=2,9,1"));
+
+        Mockito.when(employeeService.getEmployees(Arrays.asList(2L, 9L, 1L))).thenReturn((ResponseEntity) ResponseEntity.ok(expected));
+
+        this.mockMvc.perform(get("/employees").param("ids", "2,9,1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.employeeList[0].id").value(2))
+                .andExpect(jsonPath("$._embedded.employeeList[1].id").value(1))
+                .andExpect(jsonPath("$.missing[0]").value(9))
+                .andExpect(jsonPath("$._links.self.href").value("/employees?ids=2,9,1"));
+
+        Mockito.verify(employeeService, Mockito.never()).getEmployees(any(), any(), any());
+    }
+
+    @Test
+    public void getEmployeesByIds_BadRequest() throws Exception {
+
+        this.mockMvc.perform(get("/employees").param("ids", "1,x"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+    // }}
+
+    // {{ search Employees
+    @Test
+    public void searchEmployees_Successful() throws Exception {
+
+        Employee frodo = new Employee("Frodo", "Baggins", "thief");
+        frodo.setId(2L);
+
+        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of( //
+                Arrays.asList(EntityModel.of(frodo, linkTo(methodOn(EmployeeController.class).one(2L, null)).withSelfRel())), //
+                linkTo(methodOn(EmployeeController.class).search(null, "Bag", "thief", null, null, 1)).withSelfRel().expand(),
+                linkTo(methodOn(EmployeeController.class).search(null, "Bag", "thief", 2L, null, 1)).withRel(IanaLinkRelations.NEXT).expand());
+
+        Mockito.when(employeeService.searchEmployees(null, "Bag", "thief", null, null, 1)).thenReturn(expected);
+
+        this.mockMvc.perform(get("/employees/search")
+                .param("lastName", "Bag")
+                .param("role", "thief")
+                .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.employeeList[0].id").value(2L))
+                .andExpect(jsonPath("$._links.self.href").value("/employees/search?lastName=Bag&role=thief&size=1"))
+                .andExpect(jsonPath("$._links.next.href").value("/employees/search?lastName=Bag&role=thief&after=2&size=1"));
+
+        Mockito.verify(employeeService, Mockito.never()).getEmployee(anyLong(), any());
+    }
+    // }}
+
+    // {{ suggest Employees
+    @Test
+    public void suggestEmployees_Successful() throws Exception {
+
+        CollectionModel<EntityModel<EmployeeName>> expected = CollectionModel.of( //
+                Arrays.asList(EntityModel.of(new EmployeeName(2L, "Frodo", "Baggins"), Link.of("/employees/2"))), //
+                Link.of("/employees/suggest?q=fro%20b&limit=10"));
+
+        Mockito.when(employeeService.suggestEmployees("fro b", null)).thenReturn(expected);
+
+        this.mockMvc.perform(get("/employees/suggest")
+                .param("q", "fro b"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.employeeNameList[0].id").value(2L))
+                .andExpect(jsonPath("$._embedded.employeeNameList[0].name").value("Frodo Baggins"))
+                .andExpect(jsonPath("$._embedded.employeeNameList[0]._links.self.href").value("/employees/2"))
+                .andExpect(jsonPath("$._links.self.href").value("/employees/suggest?q=fro%20b&limit=10"));
+    }
+    // }}
+
+    // {{ export Employees
+    @Test
+    public void exportEmployees_Successful() throws Exception {
+
+        Mockito.when(employeeService.exportEmployees(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = this.mockMvc.perform(get("/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
     // }}
 
     // {{ new Employee
@@ -91,14 +233,14 @@ public class EmployeeControllerTest {
         newEmployeeOptional.get().setId(employeeId);
 
         EntityModel<Employee> employeeEntityModel = EntityModel.of(newEmployeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
 
         ResponseEntity<EntityModel<Employee>> expected = ResponseEntity //
                 .created(employeeEntityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
                 .body(employeeEntityModel);
 
-        Mockito.when(employeeService.newEmployee(any(Employee.class))).thenReturn(expected);
+        Mockito.doReturn(expected).when(employeeService).newEmployee(any(Employee.class), isNull());
 
         ResultActions response = this.mockMvc.perform(post("/employees")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -126,6 +268,48 @@ public class EmployeeControllerTest {
     }
     // }}
 
+    // {{ new Employees batch
+    @Test
+    public void newEmployees_Successful() throws Exception {
+
+        Mockito.when(employeeService.newEmployees(any())).thenAnswer(invocation -> {
+            Iterator<Employee> employees = invocation.getArgument(0);
+            List<Long> ids = new ArrayList<>();
+            long id = 3L;
+            while (employees.hasNext()) {
+                employees.next();
+                ids.add(id++);
+            }
+            return ids;
+        });
+
+        ResultActions response = this.mockMvc.perform(post("/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{ \"firstName\":\"fakie\", \"lastName\":\"nanoi\", \"role\":\"noob\"}," +
+                        " { \"firstName\":\"Samwise\", \"lastName\":\"Gamgee\", \"role\":\"gardener\"}]"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0]").value(3L))
+                .andExpect(jsonPath("$[1]").value(4L));
+    }
+
+    @Test
+    public void newEmployees_BadRequest() throws Exception {
+
+        Mockito.when(employeeService.newEmployees(any())).thenAnswer(invocation -> {
+            Iterator<Employee> employees = invocation.getArgument(0);
+            employees.forEachRemaining(employee -> {});
+            return new ArrayList<Long>();
+        });
+
+        ResultActions response = this.mockMvc.perform(post("/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{ \"firstName\":\"fakie\", "))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+    // }}
+
     // {{ get Employee
     @Test
     public void getEmployee_Successful() throws Exception {
@@ -136,10 +320,10 @@ public class EmployeeControllerTest {
 
         // mock assembler toModel and expected
         EntityModel<Employee> expected = EntityModel.of(employeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
 
-        Mockito.when(employeeService.getEmployee(employeeId)).thenReturn(expected);
+        Mockito.when(employeeService.getEmployee(employeeId, null)).thenReturn(ResponseEntity.ok(expected));
 
         ResultActions response = this.mockMvc.perform(get("/employees/1")
                 .param("id", employeeId.toString()))
@@ -156,11 +340,32 @@ public class EmployeeControllerTest {
 
     }
 
+    @Test
+    public void getEmployee_PlainSmile_WithoutLinks() throws Exception {
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+        Mockito.when(employeeService.getEmployee(1L, null)).thenReturn(ResponseEntity.ok(EntityModel.of(employee, //
+                linkTo(methodOn(EmployeeController.class).one(1L, null)).withSelfRel())));
+
+        MvcResult result = this.mockMvc.perform(get("/employees/1").accept(SmileConfig.APPLICATION_PLAIN_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SmileConfig.APPLICATION_PLAIN_SMILE))
+                .andReturn();
+
+        JsonNode body = new ObjectMapper(new SmileFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(1L, body.get("id").asLong());
+        assertEquals("Bilbo Baggins", body.get("name").asText());
+        assertEquals("burglar", body.get("role").asText());
+        assertNull(body.get("links"));
+        assertNull(body.get("_links"));
+    }
+
     @Test
     public void getEmployee_Notfound() throws Exception {
 
         Long employeeId = 99L;
-        Mockito.when(employeeService.getEmployee(employeeId)).thenThrow(new EmployeeNotFoundException(employeeId));
+        Mockito.when(employeeService.getEmployee(employeeId, null)).thenThrow(new EmployeeNotFoundException(employeeId));
 
         ResultActions response = this.mockMvc.perform(get("/employees/99")
                 .param("id", employeeId.toString()))
@@ -188,15 +393,15 @@ public class EmployeeControllerTest {
         employeeOptional.get().setId(employeeId);
 
         EntityModel<Employee> entityModelEmployee = EntityModel.of(employeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
 
         // expected
         ResponseEntity<EntityModel<Employee>> expected = ResponseEntity //
                 .created(entityModelEmployee.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
                 .body(entityModelEmployee);
 
-        Mockito.when(employeeService.replaceEmployee(any(Employee.class), anyLong())).thenReturn(expected);
+        Mockito.when(employeeService.replaceEmployee(any(Employee.class), anyLong(), isNull())).thenReturn((ResponseEntity) expected);
 
         ResultActions response = this.mockMvc.perform(put("/employees/1")
                 .param("id", employeeId.toString())
@@ -1,17 +1,26 @@
 package com.example.Payroll.Controllers;
 
+import com.example.Payroll.Configs.SmileConfig;
 import com.example.Payroll.Controllers.Exceptions.OrderNotFoundException;
+import com.example.Payroll.Models.BulkTransition;
 import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.OrderStats;
 import com.example.Payroll.Models.Status;
+import com.example.Payroll.Models.TransitionResult;
 import com.example.Payroll.Services.OrderService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestTemplate;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
@@ -20,13 +29,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -40,6 +57,8 @@ public class OrderControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
     @MockBean
     private OrderService orderService;
 
@@ -51,10 +70,10 @@ public class OrderControllerTest {
         orderOptional.get().setId(orderId);
 
         EntityModel<Order> expected = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
-        Mockito.when(orderService.getOrder(orderId)).thenReturn(expected);
+        Mockito.when(orderService.getOrder(orderId, null)).thenReturn(ResponseEntity.ok(expected));
 
         ResultActions response = this.mockMvc.perform(get("/orders/1")
                 .param("id", orderId.toString()))
@@ -76,10 +95,10 @@ public class OrderControllerTest {
         orderOptional.get().setId(orderId);
 
         EntityModel<Order> expected = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
-        Mockito.when(orderService.getOrder(orderId)).thenReturn(expected);
+        Mockito.when(orderService.getOrder(orderId, null)).thenReturn(ResponseEntity.ok(expected));
 
         ResultActions response = this.mockMvc.perform(get("/orders/s"))
                 .andDo(print())
@@ -90,7 +109,7 @@ public class OrderControllerTest {
     public void getOrder_NotFound() throws Exception {
 
         Long orderId = 99L;
-        Mockito.when(orderService.getOrder(orderId)).thenThrow(new OrderNotFoundException(orderId));
+        Mockito.when(orderService.getOrder(orderId, null)).thenThrow(new OrderNotFoundException(orderId));
 
         ResultActions response = this.mockMvc.perform(get("/orders/99"))
                 .andDo(print())
@@ -117,21 +136,21 @@ public class OrderControllerTest {
 
         List<EntityModel<Order>> orderEntityList = orderList.stream().map((order) -> {
             EntityModel<Order> orderEntity = EntityModel.of(order,
-                    linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel(),
-                    linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                    linkTo(methodOn(OrderController.class).one(order.getId(), null)).withSelfRel(),
+                    linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
             if (order.getStatus() == Status.IN_PROGRESS) {
-                orderEntity.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-                orderEntity.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+                orderEntity.add(linkTo(methodOn(OrderController.class).cancel(order.getId(), null)).withRel("cancel"));
+                orderEntity.add(linkTo(methodOn(OrderController.class).complete(order.getId(), null)).withRel("complete"));
             }
 
             return orderEntity;
         }).collect(Collectors.toList());
 
         CollectionModel<EntityModel<Order>> expected = CollectionModel.of(orderEntityList, //
-                linkTo(methodOn(OrderController.class).all()).withSelfRel());
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withSelfRel().expand());
 
-        Mockito.when(orderService.getOrders()).thenReturn(expected);
+        Mockito.when(orderService.getOrders(null, null, null)).thenReturn(expected);
 
         ResultActions response = this.mockMvc.perform(get("/orders"))
                 .andDo(print())
@@ -146,6 +165,138 @@ public class OrderControllerTest {
     }
     // }}
 
+    // {{ Smile
+    @Test
+    public void getAllOrders_Smile_SameHalDocument() throws Exception {
+
+        Mockito.when(orderService.getOrders(null, null, null)).thenReturn(twoOrders());
+
+        MvcResult result = this.mockMvc.perform(get("/orders").accept(SmileConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SmileConfig.APPLICATION_SMILE))
+                .andReturn();
+
+        JsonNode orders = SMILE.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(2L, orders.at("/_embedded/orderList/1/id").asLong());
+        assertEquals("IN_PROGRESS", orders.at("/_embedded/orderList/1/status").asText());
+        assertEquals("/orders/2/cancel", orders.at("/_embedded/orderList/1/_links/cancel/href").asText());
+        assertEquals("/orders", orders.at("/_links/self/href").asText());
+    }
+
+    @Test
+    public void getAllOrders_PlainSmile_WithoutLinks() throws Exception {
+
+        Mockito.when(orderService.getOrders(null, null, null)).thenReturn(twoOrders());
+
+        MvcResult result = this.mockMvc.perform(get("/orders").accept(SmileConfig.APPLICATION_PLAIN_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SmileConfig.APPLICATION_PLAIN_SMILE))
+                .andReturn();
+
+        JsonNode orders = SMILE.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(2L, orders.at("/content/1/id").asLong());
+        assertEquals("iPhone", orders.at("/content/1/description").asText());
+        assertTrue(orders.at("/content/1/links").isMissingNode());
+        assertTrue(orders.at("/links").isMissingNode());
+    }
+
+    @Test
+    public void newOrder_SmileBody() throws Exception {
+
+        Order order = new Order("New Order", Status.IN_PROGRESS);
+        order.setId(4L);
+        EntityModel<Order> orderEntityModel = EntityModel.of(order,
+                linkTo(methodOn(OrderController.class).one(4L, null)).withSelfRel());
+        Mockito.doReturn(ResponseEntity.created(linkTo(methodOn(OrderController.class).one(4L, null)).toUri())
+                .body(orderEntityModel)).when(orderService).newOrder(any(Order.class), ArgumentMatchers.isNull());
+
+        this.mockMvc.perform(post("/orders")
+                        .contentType(SmileConfig.APPLICATION_SMILE)
+                        .content(SMILE.writeValueAsBytes(new Order("New Order", null))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaTypes.HAL_JSON))
+                .andExpect(jsonPath("$.description").value("New Order"));
+    }
+    // }}
+
+    // {{ get Orders by status
+    @Test
+    public void getOrdersByStatus_Successful() throws Exception {
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+
+        CollectionModel<EntityModel<Order>> expected = CollectionModel.of( //
+                Arrays.asList(EntityModel.of(order, linkTo(methodOn(OrderController.class).one(2L, null)).withSelfRel())), //
+                linkTo(methodOn(OrderController.class).byStatus(Status.IN_PROGRESS, null, null, 1)).withSelfRel().expand(),
+                linkTo(methodOn(OrderController.class).byStatus(Status.IN_PROGRESS, 2L, null, 1)).withRel("next").expand());
+
+        Mockito.when(orderService.getOrders(Status.IN_PROGRESS, null, null, 1)).thenReturn(expected);
+
+        this.mockMvc.perform(get("/orders").param("status", "IN_PROGRESS").param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.orderList[0].id").value(2L))
+                .andExpect(jsonPath("$._links.self.href").value("/orders?status=IN_PROGRESS&size=1"))
+                .andExpect(jsonPath("$._links.next.href").value("/orders?status=IN_PROGRESS&after=2&size=1"));
+    }
+
+    @Test
+    public void getOrdersByStatus_UnknownStatus() throws Exception {
+
+        this.mockMvc.perform(get("/orders").param("status", "SHIPPED"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(orderService);
+    }
+
+    @Test
+    public void getOrderStats_Successful() throws Exception {
+
+        Map<Status, Long> counts = new EnumMap<>(Status.class);
+        counts.put(Status.IN_PROGRESS, 3L);
+        counts.put(Status.COMPLETED, 5L);
+        counts.put(Status.CANCELLED, 1L);
+        OrderStats stats = new OrderStats(counts, null);
+        stats.add(Link.of("/orders/stats"));
+        stats.add(Link.of("/orders?status=IN_PROGRESS", "in_progress"));
+
+        Mockito.when(orderService.getOrderStats()).thenReturn(stats);
+
+        this.mockMvc.perform(get("/orders/stats"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.counts.IN_PROGRESS").value(3L))
+                .andExpect(jsonPath("$.total").value(9L))
+                .andExpect(jsonPath("$._links.in_progress.href").value("/orders?status=IN_PROGRESS"));
+
+        Mockito.verify(orderService, Mockito.never()).getOrder(any(), any());
+    }
+    // }}
+
+    // {{ export Orders
+    @Test
+    public void exportOrders_Successful() throws Exception {
+
+        Mockito.when(orderService.exportOrders(any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"status\":\"COMPLETED\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MvcResult result = this.mockMvc.perform(get("/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"status\":\"COMPLETED\"}\n"));
+    }
+    // }}
+
     // {{ new Order
     @Test
     public void newOrder_Successful() throws Exception {
@@ -155,20 +306,21 @@ public class OrderControllerTest {
         newOrderOptional.get().setId(orderId);
 
         EntityModel<Order> orderEntityModel = EntityModel.of(newOrderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId)).withRel("cancel"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId)).withRel("complete"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId, null)).withRel("cancel"));
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId, null)).withRel("complete"));
 
         // expected
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity //
-                .created(linkTo(methodOn(OrderController.class).one(orderId)).toUri()) //
+                .created(linkTo(methodOn(OrderController.class).one(orderId, null)).toUri()) //
                 .body(orderEntityModel);
 
-        Mockito.when(orderService.newOrder(any(Order.class))).thenReturn(expected);
+        Mockito.doReturn(expected).when(orderService).newOrder(any(Order.class), ArgumentMatchers.eq("key-1"));
 
         ResultActions response = this.mockMvc.perform(post("/orders")
                 .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", "key-1")
                 .content("{ \"description\":\"New Order\", \"status\":\"IN_PROGRESS\"}"))
                 .andDo(print())
                 .andExpect(status().isCreated())
@@ -201,12 +353,12 @@ public class OrderControllerTest {
         orderOptional.get().setId(orderId);
         orderOptional.get().setStatus(Status.CANCELLED);
         EntityModel<Order> orderModel = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity.ok(orderModel);
 
-        Mockito.when(orderService.cancelOrder(orderId)).thenReturn((ResponseEntity) expected);
+        Mockito.when(orderService.cancelOrder(orderId, null)).thenReturn((ResponseEntity) expected);
 
         ResultActions response = this.mockMvc.perform(delete("/orders/3/cancel")
                 .param("id", orderId.toString()))
@@ -233,7 +385,7 @@ public class OrderControllerTest {
                         .withTitle("Method not allowed") //
                         .withDetail("You can't cancel an order that is in the " + orderOptional.get().getStatus() + " status"));
 
-        Mockito.when(orderService.cancelOrder(orderId)).thenReturn((ResponseEntity) expected);
+        Mockito.when(orderService.cancelOrder(orderId, null)).thenReturn((ResponseEntity) expected);
 
         ResultActions response = this.mockMvc.perform(delete("/orders/1/cancel")
                 .param("id", orderId.toString()))
@@ -257,12 +409,12 @@ public class OrderControllerTest {
         orderOptional.get().setId(orderId);
         orderOptional.get().setStatus(Status.COMPLETED);
         EntityModel<Order> orderModel = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity.ok(orderModel);
 
-        Mockito.when(orderService.completeOrder(orderId)).thenReturn((ResponseEntity)expected);
+        Mockito.when(orderService.completeOrder(orderId, null)).thenReturn((ResponseEntity)expected);
 
         ResultActions response = this.mockMvc.perform(put("/orders/3/complete")
                 .param("id", orderId.toString()))
@@ -289,7 +441,7 @@ public class OrderControllerTest {
                         .withTitle("Method not allowed") //
                         .withDetail("You can't complete an order that is in the " + orderOptional.get().getStatus() + " status"));
 
-        Mockito.when(orderService.completeOrder(orderId)).thenReturn((ResponseEntity) expected);
+        Mockito.when(orderService.completeOrder(orderId, null)).thenReturn((ResponseEntity) expected);
 
         ResultActions response = this.mockMvc.perform(put("/orders/1/complete")
                 .param("id", orderId.toString()))
@@ -305,4 +457,49 @@ public class OrderControllerTest {
     }
     // }}
 
+
+    // {{ bulk transitions
+    @Test
+    public void completeOrders_Successful() throws Exception {
+
+        List<TransitionResult> expected = Arrays.asList( //
+                TransitionResult.transitioned(2L, Status.COMPLETED), //
+                TransitionResult.notFound(99L));
+
+        Mockito.when(orderService.completeOrders(any(BulkTransition.class))).thenReturn((ResponseEntity) ResponseEntity.ok(expected));
+
+        ResultActions response = this.mockMvc.perform(post("/orders/complete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{ \"ids\": [2, 99] }"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2L))
+                .andExpect(jsonPath("$[0].outcome").value("TRANSITIONED"))
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[1].id").value(99L))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    public void cancelOrders_BadRequest() throws Exception {
+
+        ResultActions response = this.mockMvc.perform(post("/orders/cancel"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+    // }}
+
+    private static CollectionModel<EntityModel<Order>> twoOrders() {
+
+        Order macBook = new Order("MacBook Pro", Status.COMPLETED);
+        macBook.setId(1L);
+        Order iPhone = new Order("iPhone", Status.IN_PROGRESS);
+        iPhone.setId(2L);
+
+        return CollectionModel.of(Arrays.asList( //
+                EntityModel.of(macBook, linkTo(methodOn(OrderController.class).one(1L, null)).withSelfRel()), //
+                EntityModel.of(iPhone, linkTo(methodOn(OrderController.class).one(2L, null)).withSelfRel(), //
+                        linkTo(methodOn(OrderController.class).cancel(2L, null)).withRel("cancel"))), //
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withSelfRel().expand());
+    }
 }
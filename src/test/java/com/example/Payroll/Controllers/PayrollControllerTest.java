@@ -0,0 +1,88 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Controllers.Exceptions.PayrollRunNotFoundException;
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Models.PayrollRunProgress;
+import com.example.Payroll.Services.PayrollService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.mediatype.problem.Problem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PayrollController.class)
+public class PayrollControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PayrollService payrollService;
+
+    // {{ payroll runs
+    @Test
+    public void startRun_Accepted() throws Exception {
+
+        PayrollRun run = new PayrollRun(1L, 3L);
+        run.setId(7L);
+        PayrollRunProgress model = new PayrollRunProgress(run, Collections.singletonList(new PayrollCheckpoint(7L, 0, 1L, 3L)), Instant.now());
+        model.add(Link.of("/payroll/runs/7"), Link.of("/payroll/runs/7/pause", "pause"));
+
+        Mockito.when(payrollService.startRun()).thenAnswer(invocation -> //
+                ResponseEntity.accepted().location(URI.create("/payroll/runs/7")).body(model));
+
+        this.mockMvc.perform(post("/payroll/runs"))
+                .andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/payroll/runs/7"))
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.progress").value(0.0))
+                .andExpect(jsonPath("$.checkpoints[0].lastId").value(0L))
+                .andExpect(jsonPath("$._links.pause.href").value("/payroll/runs/7/pause"));
+    }
+
+    @Test
+    public void pauseRun_Not_Allowed() throws Exception {
+
+        Mockito.when(payrollService.pauseRun(7L)).thenAnswer(invocation -> ResponseEntity //
+                .status(HttpStatus.METHOD_NOT_ALLOWED) //
+                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE) //
+                .body(Problem.create() //
+                        .withTitle("Method not allowed") //
+                        .withDetail("You can't pause a payroll run that is in the COMPLETED status")));
+
+        this.mockMvc.perform(post("/payroll/runs/7/pause"))
+                .andDo(print())
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(jsonPath("$.detail").value("You can't pause a payroll run that is in the COMPLETED status"));
+    }
+
+    @Test
+    public void getRun_NotFound() throws Exception {
+
+        Mockito.when(payrollService.getRun(8L)).thenThrow(new PayrollRunNotFoundException(8L));
+
+        this.mockMvc.perform(get("/payroll/runs/8"))
+                .andDo(print())
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Could not find payroll run 8"));
+    }
+    // }}
+}
@@ -0,0 +1,104 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class ServiceMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // {{ outcomes
+    @Test
+    public void serviceCalls_TimedByOutcome() throws Exception {
+
+        Long id = orderRepository.save(new Order("Lembas", Status.COMPLETED)).getId();
+        long ok = count("getOrder", "ok");
+        long notFound = count("getOrder", "not_found");
+        long wrongState = count("cancelOrder", "wrong_state");
+
+        this.mockMvc.perform(get("/orders/" + id)).andExpect(status().isOk());
+        this.mockMvc.perform(get("/orders/" + (id + 1_000))).andExpect(status().isNotFound());
+        this.mockMvc.perform(delete("/orders/" + id + "/cancel")).andExpect(status().isMethodNotAllowed());
+
+        assertEquals(ok + 1, count("getOrder", "ok"));
+        assertEquals(notFound + 1, count("getOrder", "not_found"));
+        assertEquals(wrongState + 1, count("cancelOrder", "wrong_state"));
+    }
+
+    @Test
+    public void collectionResults_RecordSize() throws Exception {
+
+        this.mockMvc.perform(get("/employees?ids=1,2,999999")).andExpect(status().isOk());
+
+        assertTrue(registry.get("payroll.service.size").tag("operation", "getEmployees").summary().count() > 0);
+    }
+
+    @Test
+    public void scheduledPolls_NotTimedAsServiceCalls() throws Exception {
+
+        Counter relayed = registry.get("payroll.outbox.relayed").counter();
+        double before = relayed.count();
+
+        this.mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON).content("{\"description\":\"Rope\"}"))
+                .andExpect(status().isCreated());
+        for (int attempt = 0; attempt < 100 && relayed.count() == before; attempt++) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(relayed.count() > before);
+        assertNull(registry.find("payroll.service").tag("operation", "relayOrderEvents").timer());
+        assertNull(registry.find("payroll.service").tag("operation", "heartbeatOrderEvents").timer());
+    }
+    // }}
+
+    // {{ prometheus
+    @Test
+    public void prometheusEndpoint_ExposesHistograms() throws Exception {
+
+        this.mockMvc.perform(get("/employees/1")).andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("payroll_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("operation=\"getEmployee\",outcome=\"ok\"")))
+                .andExpect(content().string(containsString("quantile=\"0.99\"")));
+    }
+    // }}
+
+    private long count(String operation, String outcome) {
+
+        Timer timer = registry.find("payroll.service").tag("operation", operation).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Components.SqlStatistics;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers on the statements a request ran, read from the SqlStatistics the filter leaves on the request.
+ */
+final class SqlBudget {
+
+    private SqlBudget() {}
+
+    static ResultMatcher atMost(int statements) {
+
+        return result -> {
+            SqlStatistics statistics = (SqlStatistics) result.getRequest().getAttribute(SqlStatistics.ATTRIBUTE);
+            assertNotNull(statistics, "no SqlStatistics on the request; is payroll.sql-stats.enabled off?");
+            assertTrue(statistics.getStatements() <= statements, () -> //
+                    result.getRequest().getMethod() + " " + result.getRequest().getRequestURI() + " ran "
+                            + statistics.getStatements() + " statements, budget is " + statements);
+        };
+    }
+
+    static ResultMatcher atLeast(int statements) {
+
+        return result -> {
+            SqlStatistics statistics = (SqlStatistics) result.getRequest().getAttribute(SqlStatistics.ATTRIBUTE);
+            assertNotNull(statistics, "no SqlStatistics on the request; is payroll.sql-stats.enabled off?");
+            assertTrue(statistics.getStatements() >= statements, () -> //
+                    result.getRequest().getMethod() + " " + result.getRequest().getRequestURI() + " ran "
+                            + statistics.getStatements() + " statements, expected at least " + statements);
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.Payroll.Controllers;
+
+import com.example.Payroll.Components.SqlStatisticsFilter;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Ropositories.OrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "payroll.sql-stats.headers=true")
+@AutoConfigureMockMvc
+public class SqlBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // {{ employees
+    @Test
+    public void employeeEndpoints_StayWithinBudget() throws Exception {
+
+        Long id = employeeRepository.save(new Employee("Peregrin", "Took", "guard")).getId();
+        String body = "{\"firstName\":\"Peregrin\",\"lastName\":\"Took\",\"role\":\"knight\"}";
+
+        this.mockMvc.perform(get("/employees")).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        this.mockMvc.perform(get("/employees/" + id)).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        this.mockMvc.perform(get("/employees?ids=1,2," + id)).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        // the replace and the read of its new version, which one If-Match version makes unnecessary
+        this.mockMvc.perform(put("/employees/" + id).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()).andExpect(SqlBudget.atMost(2));
+        this.mockMvc.perform(put("/employees/" + id).header(HttpHeaders.IF_MATCH, "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()).andExpect(SqlBudget.atMost(1));
+        this.mockMvc.perform(post("/employees").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated()).andExpect(SqlBudget.atMost(2));
+        this.mockMvc.perform(delete("/employees/" + id)).andExpect(status().isNoContent()).andExpect(SqlBudget.atMost(2));
+    }
+    // }}
+
+    // {{ orders
+    @Test
+    public void orderEndpoints_StayWithinBudget() throws Exception {
+
+        Long id = orderRepository.save(new Order("Elven rope", Status.IN_PROGRESS)).getId();
+
+        this.mockMvc.perform(get("/orders")).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        this.mockMvc.perform(get("/orders/" + id)).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        this.mockMvc.perform(get("/orders?ids=1,2," + id)).andExpect(status().isOk()).andExpect(SqlBudget.atMost(1));
+        // the transition, its outbox row and the re-read
+        this.mockMvc.perform(put("/orders/" + id + "/complete")).andExpect(status().isOk()).andExpect(SqlBudget.atMost(3));
+        this.mockMvc.perform(delete("/orders/" + id + "/cancel")).andExpect(status().isMethodNotAllowed()).andExpect(SqlBudget.atMost(2));
+        this.mockMvc.perform(post("/orders/cancel").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[1,2," + id + "]}"))
+                .andExpect(status().isOk()).andExpect(SqlBudget.atMost(3));
+    }
+    // }}
+
+    // {{ exports
+    @Test
+    public void export_CountedOnceTheStreamCompletes() throws Exception {
+
+        orderRepository.save(new Order("Lembas", Status.IN_PROGRESS));
+        double before = exportStatements();
+
+        MvcResult result = this.mockMvc.perform(get("/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(SqlBudget.atLeast(1))
+                .andExpect(SqlBudget.atMost(1));
+
+        assertEquals(1, exportStatements() - before);
+    }
+    // }}
+
+    // {{ headers
+    @Test
+    public void debugHeaders_ReportStatements() throws Exception {
+
+        this.mockMvc.perform(get("/orders?ids=1,2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().exists(SqlStatisticsFilter.ROWS_HEADER))
+                .andExpect(header().exists(SqlStatisticsFilter.TIME_HEADER));
+    }
+    // }}
+
+    private double exportStatements() {
+
+        DistributionSummary summary = registry.find("payroll.sql.statements").tag("uri", "/orders/export").summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class EmployeeSearchTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    // Every test gets a family name of its own, so rows left by other tests never match
+    private String family;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    public void setUp() {
+
+        family = "Sackville" + System.nanoTime();
+        ids = employeeRepository.saveAll(Arrays.asList( //
+                new Employee("Otho", family + "-Baggins", "relative"), //
+                new Employee("Lobelia", family + "-Baggins", "relative"), //
+                new Employee("Lotho", family + "-Baggins", "chief"), //
+                new Employee("Fatty", family + "%", "relative"))).stream() //
+                .map(Employee::getId) //
+                .collect(Collectors.toList());
+    }
+
+    // {{ filters
+    @Test
+    public void search_CombinesPrefixesAndRole() {
+
+        // name searches come back in name order
+        assertEquals(Arrays.asList(ids.get(3), ids.get(1), ids.get(2), ids.get(0)),
+                idsOf(employeeService.searchEmployees(null, family, null, null, null, 10)));
+        assertEquals(Arrays.asList(ids.get(1), ids.get(0)),
+                idsOf(employeeService.searchEmployees(null, family + "-", "relative", null, null, 10)));
+        assertEquals(Arrays.asList(ids.get(1), ids.get(2)),
+                idsOf(employeeService.searchEmployees("Lo", family, " ", null, null, 10)));
+    }
+
+    @Test
+    public void search_TreatsWildcardsLiterally() {
+
+        assertEquals(Arrays.asList(ids.get(3)), idsOf(employeeService.searchEmployees(null, family + "%", null, null, null, 10)));
+        assertTrue(idsOf(employeeService.searchEmployees(null, family + "_", null, null, null, 10)).isEmpty());
+    }
+
+    @Test
+    public void search_ByRoleKeepsIdOrder() {
+
+        List<Long> relatives = idsOf(employeeService.searchEmployees(null, null, "relative", ids.get(0) - 1, null, 10));
+        assertEquals(Arrays.asList(ids.get(0), ids.get(1), ids.get(3)), relatives);
+    }
+    // }}
+
+    // {{ paging
+    @Test
+    public void search_PagesByCursorInNameOrder() {
+
+        CollectionModel<EntityModel<Employee>> first = employeeService.searchEmployees(null, family + "-", null, null, null, 2);
+        assertEquals(Arrays.asList(ids.get(1), ids.get(2)), idsOf(first));
+        assertTrue(first.getLink(IanaLinkRelations.NEXT).isPresent());
+
+        CollectionModel<EntityModel<Employee>> second = employeeService.searchEmployees(null, family + "-", null, ids.get(2), null, 2);
+        assertEquals(Arrays.asList(ids.get(0)), idsOf(second));
+        assertFalse(second.getLink(IanaLinkRelations.NEXT).isPresent());
+
+        CollectionModel<EntityModel<Employee>> back = employeeService.searchEmployees(null, family + "-", null, null, ids.get(0), 2);
+        assertEquals(Arrays.asList(ids.get(1), ids.get(2)), idsOf(back));
+    }
+
+    @Test
+    public void search_DeletedCursorEndsTheListing() {
+
+        employeeRepository.deleteById(ids.get(1));
+
+        assertTrue(idsOf(employeeService.searchEmployees(null, family, null, ids.get(1), null, 10)).isEmpty());
+    }
+    // }}
+
+    private static List<Long> idsOf(CollectionModel<EntityModel<Employee>> model) {
+        return model.getContent().stream().map(entity -> entity.getContent().getId()).collect(Collectors.toList());
+    }
+}
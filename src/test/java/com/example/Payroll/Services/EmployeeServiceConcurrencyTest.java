@@ -0,0 +1,127 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.ETags;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class EmployeeServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int WRITES_PER_THREAD = 50;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    // {{ unconditional replace
+    @Test
+    public void concurrentReplace_EveryWriteLands() throws Exception {
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(employeeRepository.save(new Employee("Hobbit", "" + i, "none")).getId());
+        }
+        long before = employeeRepository.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                writers.add(executor.submit(awaiting(start, () -> {
+                    int created = 0;
+                    for (int n = 0; n < WRITES_PER_THREAD; n++) {
+                        Long id = ids.get(n % ids.size());
+                        Employee employee = new Employee("Writer", "" + thread, "write-" + n);
+                        if (employeeService.replaceEmployee(employee, id, null).getStatusCode() == HttpStatus.CREATED) {
+                            created++;
+                        }
+                    }
+                    return created;
+                })));
+            }
+            start.countDown();
+
+            for (Future<Integer> writer : writers) {
+                assertEquals(WRITES_PER_THREAD, writer.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // no write created a duplicate, and each one bumped the version exactly once
+        assertEquals(before, employeeRepository.count());
+        for (int i = 0; i < ids.size(); i++) {
+            long writes = THREADS * ((WRITES_PER_THREAD - i + ids.size() - 1) / ids.size());
+            Employee employee = employeeRepository.findById(ids.get(i)).get();
+            assertEquals(writes, employee.getVersion());
+            assertEquals("Writer", employee.getFirstName());
+            assertTrue(employee.getRole().startsWith("write-"));
+        }
+    }
+    // }}
+
+    // {{ conditional replace
+    @Test
+    public void concurrentIfMatchReplace_OneWinnerPerVersion() throws Exception {
+
+        Long id = employeeRepository.save(new Employee("Frodo", "Baggins", "ring-bearer")).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (long version = 0; version < 20; version++) {
+                String ifMatch = ETags.of(version);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<HttpStatus>> writers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    Employee employee = new Employee("Frodo", "Baggins", "round-" + version + "-" + t);
+                    writers.add(executor.submit(awaiting(start, () -> //
+                            employeeService.replaceEmployee(employee, id, ifMatch).getStatusCode())));
+                }
+                start.countDown();
+
+                int created = 0;
+                int failed = 0;
+                for (Future<HttpStatus> writer : writers) {
+                    HttpStatus status = writer.get();
+                    created += status == HttpStatus.CREATED ? 1 : 0;
+                    failed += status == HttpStatus.PRECONDITION_FAILED ? 1 : 0;
+                }
+
+                assertEquals(1, created);
+                assertEquals(THREADS - 1, failed);
+                assertEquals(version + 1, employeeRepository.findById(id).get().getVersion());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    // }}
+
+    private static <T> Callable<T> awaiting(CountDownLatch start, Callable<T> call) {
+        return () -> {
+            start.await();
+            return call.call();
+        };
+    }
+}
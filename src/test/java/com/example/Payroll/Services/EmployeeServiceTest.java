@@ -2,24 +2,41 @@ package com.example.Payroll.Services;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.Payroll.Components.BatchInserter;
 import com.example.Payroll.Components.EmployeeModelAssembler;
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Components.NdjsonExporter;
+import com.example.Payroll.Components.SingleFlight;
 import com.example.Payroll.Controllers.EmployeeController;
 import com.example.Payroll.Controllers.Exceptions.EmployeeNotFoundException;
 import com.example.Payroll.Models.Employee;
 import com.example.Payroll.Models.Order;
 import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -40,6 +57,28 @@ public class EmployeeServiceTest {
     @Mock
     private EmployeeModelAssembler assembler;
 
+    @Mock
+    private NdjsonExporter exporter;
+
+    @Mock
+    private BatchInserter batchInserter;
+
+    @Spy
+    private EntityCache<Employee> employeeCache = EntityCache.disabled("employees");
+
+    @Spy
+    private IdFilter<Employee> employeeIds = IdFilter.disabled("employeeIds");
+
+    @Spy
+    private SingleFlight<Long, Optional<Employee>> employeeLoads = new SingleFlight<>("employeeLoads");
+
+    @Spy
+    private NameIndex employeeNames = NameIndex.disabled("employeeNames");
+
+    @Spy
+    private IdempotencyKeys<Employee> employeeKeys = IdempotencyKeys.inMemory("employees", new ObjectMapper(),
+            Employee.class, 100, Duration.ofMinutes(1));
+
     @BeforeEach
     public void init() {
         MockitoAnnotations.initMocks(this);
@@ -58,29 +97,76 @@ public class EmployeeServiceTest {
         Optional<Employee> employeeOptionalTwo = java.util.Optional.of(new Employee("Frodo", "Baggins", "thief"));
         employeeOptionalTwo.get().setId(employeeIdTwo);
 
-        // give for mock employeeRepository.fineAll()
+        // give for mock employeeRepository.findByIdGreaterThanOrderByIdAsc()
         List<Employee> employeeList = new ArrayList<Employee>();
         employeeList.add(employeeOptionalOne.get());
         employeeList.add(employeeOptionalTwo.get());
+        Mockito.when(employeeRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenReturn(employeeList);
 
         List<EntityModel<Employee>> employeeEntityList = employeeList.stream().map((employee) -> {
             return EntityModel.of(employee, //
-                    linkTo(methodOn(EmployeeController.class).one(employee.getId())).withSelfRel(),
-                    linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                    linkTo(methodOn(EmployeeController.class).one(employee.getId(), null)).withSelfRel(),
+                    linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
         }).collect(Collectors.toList());
 
-        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of(employeeEntityList, linkTo(methodOn(EmployeeController.class).all()).withSelfRel());
+        CollectionModel<EntityModel<Employee>> expected = CollectionModel.of(employeeEntityList, linkTo(methodOn(EmployeeController.class).all(null, null, null)).withSelfRel().expand());
 
-        // mock assembler.toModel(anyList())
-        Mockito.when(assembler.toModel(anyList())).thenReturn(expected);
+        // mock assembler.toModel(any(KeysetPage.class))
+        Mockito.when(assembler.toModel(any(KeysetPage.class))).thenReturn(expected);
 
-        CollectionModel<EntityModel<Employee>> response = employeeService.getEmployees();
+        CollectionModel<EntityModel<Employee>> response = employeeService.getEmployees(null, null, null);
         assertEquals(expected, response);
 
-        Mockito.verify(employeeRepository, Mockito.times(1)).findAll();
-        Mockito.verify(assembler, Mockito.times(1)).toModel(anyList());
+        Mockito.verify(employeeRepository, Mockito.times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, KeysetPage.DEFAULT_SIZE + 1)));
+        Mockito.verify(employeeRepository, Mockito.never()).findAll();
+        Mockito.verify(assembler, Mockito.times(1)).toModel(any(KeysetPage.class));
 
     }
+
+    @Test
+    public void getEmployees_AfterCursor_HasNextPage() {
+
+        // give one more row than the requested size
+        List<Employee> employeeList = new ArrayList<Employee>();
+        for (long id = 11L; id <= 13L; id++) {
+            Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+            employee.setId(id);
+            employeeList.add(employee);
+        }
+        Mockito.when(employeeRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenReturn(employeeList);
+
+        employeeService.getEmployees(10L, null, 2);
+
+        ArgumentCaptor<KeysetPage<Employee>> page = ArgumentCaptor.forClass(KeysetPage.class);
+        Mockito.verify(assembler, Mockito.times(1)).toModel(page.capture());
+        Mockito.verify(employeeRepository, Mockito.times(1)).findByIdGreaterThanOrderByIdAsc(eq(10L), eq(PageRequest.of(0, 3)));
+
+        assertEquals(2, page.getValue().getContent().size());
+        assertEquals(12L, page.getValue().getNext());
+        assertEquals(11L, page.getValue().getPrevious());
+    }
+
+    @Test
+    public void getEmployees_BeforeCursor_FirstPage() {
+
+        // rows come back newest first and must be handed out in id order
+        List<Employee> employeeList = new ArrayList<Employee>();
+        for (long id = 2L; id >= 1L; id--) {
+            Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+            employee.setId(id);
+            employeeList.add(employee);
+        }
+        Mockito.when(employeeRepository.findByIdLessThanOrderByIdDesc(anyLong(), any(Pageable.class))).thenReturn(employeeList);
+
+        employeeService.getEmployees(null, 3L, 2);
+
+        ArgumentCaptor<KeysetPage<Employee>> page = ArgumentCaptor.forClass(KeysetPage.class);
+        Mockito.verify(assembler, Mockito.times(1)).toModel(page.capture());
+
+        assertEquals(1L, page.getValue().getContent().get(0).getId());
+        assertEquals(2L, page.getValue().getNext());
+        assertNull(page.getValue().getPrevious());
+    }
     // }}
 
 
@@ -96,8 +182,8 @@ public class EmployeeServiceTest {
 
         // mock assembler toModel
         EntityModel<Employee> employeeEntityModel = EntityModel.of(newEmployeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
 
         Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(employeeEntityModel);
 
@@ -114,6 +200,51 @@ public class EmployeeServiceTest {
         Mockito.verify(assembler, Mockito.times(1)).toModel(any(Employee.class));
     }
 
+    @Test
+    public void newEmployee_IdempotencyKeyReplaysWithoutRepository() {
+
+        Employee saved = new Employee("fakie", "nanoi", "noob");
+        saved.setId(3L);
+        Mockito.when(employeeRepository.save(any(Employee.class))).thenReturn(saved);
+        Mockito.when(assembler.toModel(any(Employee.class))).thenAnswer(invocation -> EntityModel.of(saved,
+                linkTo(methodOn(EmployeeController.class).one(3L, null)).withSelfRel()));
+
+        ResponseEntity<?> first = employeeService.newEmployee(new Employee("fakie", "nanoi", "noob"), "key-1");
+        ResponseEntity<?> retry = employeeService.newEmployee(new Employee("fakie", "nanoi", "noob"), "key-1");
+        ResponseEntity<?> reused = employeeService.newEmployee(new Employee("fakie", "nanoi", "thief"), "key-1");
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(first.getHeaders().getLocation(), retry.getHeaders().getLocation());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        Mockito.verify(employeeRepository, Mockito.times(1)).save(any(Employee.class));
+    }
+
+    // }}
+
+    // {{ new Employees batch
+    @Test
+    public void newEmployees_IdsComeFromSequence() {
+
+        Employee employee = new Employee("fakie", "nanoi", "noob");
+        employee.setId(99L);
+
+        Mockito.when(batchInserter.persistAll(any(), any())).thenAnswer(invocation -> {
+            Iterator<Employee> employees = invocation.getArgument(0);
+            List<Long> ids = new ArrayList<>();
+            employees.forEachRemaining(e -> {
+                assertNull(e.getId());
+                ids.add(1L);
+            });
+            return ids;
+        });
+
+        List<Long> ids = employeeService.newEmployees(Arrays.asList(employee).iterator());
+        assertEquals(Arrays.asList(1L), ids);
+
+        Mockito.verify(batchInserter, Mockito.times(1)).persistAll(any(), any());
+        Mockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
+    }
     // }}
 
     // {{ get Employee
@@ -126,12 +257,12 @@ public class EmployeeServiceTest {
 
         // mock assembler toModel and expected
         EntityModel<Employee> expected = EntityModel.of(employeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
         Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(expected);
 
         // return response entity
-        EntityModel<Employee> employeeEntityModel = employeeService.getEmployee(employeeId);
+        EntityModel<Employee> employeeEntityModel = employeeService.getEmployee(employeeId, null).getBody();
         assertEquals(expected, employeeEntityModel);
 
         Mockito.verify(employeeRepository, Mockito.times(1)).findById(anyLong());
@@ -143,11 +274,54 @@ public class EmployeeServiceTest {
 
         Long employeeId = 99L;
         Mockito.when(employeeRepository.findById(employeeId)).thenThrow(new EmployeeNotFoundException(employeeId));
-        assertThrows(EmployeeNotFoundException.class, () -> employeeService.getEmployee(employeeId));
+        assertThrows(EmployeeNotFoundException.class, () -> employeeService.getEmployee(employeeId, null));
 
         Mockito.verify(employeeRepository, Mockito.times(1)).findById(anyLong());
 
     }
+
+    @Test void getEmployee_CachedAfterFirstLoad() {
+
+        EmployeeService cachedService = new EmployeeService(employeeRepository, assembler, exporter, batchInserter,
+                EntityCache.of("employees", 10, Duration.ofMinutes(1)), employeeIds, employeeLoads, employeeNames, employeeKeys);
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+        Mockito.when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        Mockito.when(employeeRepository.findById(99L)).thenReturn(Optional.empty());
+
+        cachedService.getEmployee(1L, null);
+        cachedService.getEmployee(1L, null);
+        assertThrows(EmployeeNotFoundException.class, () -> cachedService.getEmployee(99L, null));
+        assertThrows(EmployeeNotFoundException.class, () -> cachedService.getEmployee(99L, null));
+
+        // misses are not cached, hits are
+        Mockito.verify(employeeRepository, Mockito.times(1)).findById(1L);
+        Mockito.verify(employeeRepository, Mockito.times(2)).findById(99L);
+        Mockito.verify(assembler, Mockito.times(2)).toModel(employee);
+    }
+
+    @Test void getEmployee_InvalidatedByReplaceAndDelete() {
+
+        EmployeeService cachedService = new EmployeeService(employeeRepository, assembler, exporter, batchInserter,
+                EntityCache.of("employees", 10, Duration.ofMinutes(1)), employeeIds, employeeLoads, employeeNames, employeeKeys);
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+        Mockito.when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        Mockito.when(employeeRepository.replace(1L, "Bilbo", "Baggins", "ring-bearer")).thenReturn(1);
+        Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(EntityModel.of(employee, //
+                linkTo(methodOn(EmployeeController.class).one(1L, null)).withSelfRel()));
+
+        cachedService.getEmployee(1L, null);
+        cachedService.replaceEmployee(new Employee("Bilbo", "Baggins", "ring-bearer"), 1L, null);
+        cachedService.getEmployee(1L, null);
+        cachedService.deleteEmployee(1L);
+        cachedService.getEmployee(1L, null);
+
+        // initial load, reload after replace, reload after delete
+        Mockito.verify(employeeRepository, Mockito.times(3)).findById(1L);
+    }
     // }}
 
     // {{ replace Employee
@@ -161,8 +335,8 @@ public class EmployeeServiceTest {
 
         // mock assembler toModel and expected
         EntityModel<Employee> entityModelEmployee = EntityModel.of(employeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
         Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(entityModelEmployee);
 
         // expected
@@ -171,7 +345,7 @@ public class EmployeeServiceTest {
                 .body(entityModelEmployee);
 
         // return response
-        ResponseEntity<?> employeeResponse = employeeService.replaceEmployee(employeeOptional.get(), 3L);
+        ResponseEntity<?> employeeResponse = employeeService.replaceEmployee(employeeOptional.get(), 3L, null);
         assertEquals(expected, employeeResponse);
 
         Mockito.verify(employeeRepository, Mockito.times(1)).save(any(Employee.class));
@@ -184,28 +358,29 @@ public class EmployeeServiceTest {
         Long employeeId = 1L;
         Optional<Employee> employeeOptional = java.util.Optional.of(new Employee("New", "Employee", "Em"));
         employeeOptional.get().setId(employeeId);
-        // Find Employee Successful
-        Mockito.when(employeeRepository.findById(anyLong())).thenReturn(employeeOptional);
-        Mockito.when(employeeRepository.save(any(Employee.class))).thenReturn(employeeOptional.get());
+        // Update Successful
+        Mockito.when(employeeRepository.replace(eq(employeeId), any(), any(), any())).thenReturn(1);
+        Mockito.when(employeeRepository.findVersionById(employeeId)).thenReturn(3L);
 
 
         // mock assembler toModel and expected
         EntityModel<Employee> entityModelEmployee = EntityModel.of(employeeOptional.get(), //
-                linkTo(methodOn(EmployeeController.class).one(employeeId)).withSelfRel(),
-                linkTo(methodOn(EmployeeController.class).all()).withRel("employees"));
+                linkTo(methodOn(EmployeeController.class).one(employeeId, null)).withSelfRel(),
+                linkTo(methodOn(EmployeeController.class).all(null, null, null)).withRel("employees").expand());
         Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(entityModelEmployee);
 //
         // expected
         ResponseEntity<EntityModel<Employee>> expected = ResponseEntity //
                 .created(entityModelEmployee.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
+                .eTag("\"3\"") //
                 .body(entityModelEmployee);
 //
         // return response
-        ResponseEntity<?> employeeResponse = employeeService.replaceEmployee(employeeOptional.get(), employeeId);
+        ResponseEntity<?> employeeResponse = employeeService.replaceEmployee(employeeOptional.get(), employeeId, null);
         assertEquals(expected, employeeResponse);
 
-        Mockito.verify(employeeRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(employeeRepository, Mockito.times(1)).save(any(Employee.class));
+        Mockito.verify(employeeRepository, Mockito.never()).findById(anyLong());
+        Mockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
         Mockito.verify(assembler, Mockito.times(1)).toModel(any(Employee.class));
 
     }
@@ -226,7 +401,7 @@ public class EmployeeServiceTest {
         ResponseEntity<?> responseEntity = employeeService.deleteEmployee(employeeId);
 
         assertEquals(expected, responseEntity);
-        assertThrows(EmployeeNotFoundException.class, () -> employeeService.getEmployee(employeeId));
+        assertThrows(EmployeeNotFoundException.class, () -> employeeService.getEmployee(employeeId, null));
 
         Mockito.verify(employeeRepository, Mockito.times(1)).deleteById(anyLong());
 
@@ -234,4 +409,89 @@ public class EmployeeServiceTest {
     }
     // }}
 
+    // {{ conditional requests
+
+    @Test void getEmployee_IfNoneMatch_NotModified() {
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+        employee.setVersion(2L);
+        Mockito.when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+
+        ResponseEntity<EntityModel<Employee>> response = employeeService.getEmployee(1L, "\"2\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+        Mockito.verify(assembler, Mockito.never()).toModel(any(Employee.class));
+    }
+
+    @Test void getEmployee_IfNoneMatchOther_Ok() {
+
+        Employee employee = new Employee("Bilbo", "Baggins", "burglar");
+        employee.setId(1L);
+        employee.setVersion(2L);
+        Mockito.when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+
+        ResponseEntity<EntityModel<Employee>> response = employeeService.getEmployee(1L, "\"1\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+        Mockito.verify(assembler, Mockito.times(1)).toModel(employee);
+    }
+
+    @Test void replaceEmployee_IfMatchStale_PreconditionFailed() {
+
+        Mockito.when(employeeRepository.replace(eq(1L), any(), any(), any(), eq(Arrays.asList(1L)))).thenReturn(0);
+
+        ResponseEntity<?> response = employeeService.replaceEmployee(new Employee("Bilbo", "Baggins", "ring-bearer"), 1L, "\"1\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
+    }
+
+    @Test void replaceEmployee_IfMatchSingleVersion_NextVersionWithoutReadBack() {
+
+        Mockito.when(employeeRepository.replace(eq(1L), any(), any(), any(), eq(Arrays.asList(1L)))).thenReturn(1);
+        Mockito.when(assembler.toModel(any(Employee.class))).thenAnswer(invocation -> EntityModel.of(
+                invocation.getArgument(0), linkTo(methodOn(EmployeeController.class).one(1L, null)).withSelfRel()));
+
+        ResponseEntity<?> response = employeeService.replaceEmployee(new Employee("Bilbo", "Baggins", "ring-bearer"), 1L, "\"1\"");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("\"2\"", response.getHeaders().getETag());
+        Mockito.verify(employeeRepository, Mockito.never()).findVersionById(anyLong());
+    }
+
+    @Test void replaceEmployee_IfMatchMissingEmployee_PreconditionFailed() {
+
+        ResponseEntity<?> response = employeeService.replaceEmployee(new Employee("Sam", "Gamgee", "gardener"), 7L, "*");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verify(employeeRepository, Mockito.times(1)).replace(7L, "Sam", "Gamgee", "gardener");
+        Mockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
+    }
+
+    @Test void replaceEmployee_IfMatchWeakOrForeignTag_PreconditionFailed() {
+
+        ResponseEntity<?> response = employeeService.replaceEmployee(new Employee("Bilbo", "Baggins", "ring-bearer"), 1L, "W/\"2\", \"abc\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verifyNoInteractions(employeeRepository);
+    }
+
+    @Test void replaceEmployee_IfMatchCurrent_SingleUpdate() {
+
+        Mockito.when(employeeRepository.replace(1L, "Bilbo", "Baggins", "ring-bearer", Arrays.asList(2L, 3L))).thenReturn(1);
+        Mockito.when(assembler.toModel(any(Employee.class))).thenReturn(EntityModel.of(new Employee(), //
+                linkTo(methodOn(EmployeeController.class).one(1L, null)).withSelfRel()));
+
+        ResponseEntity<?> response = employeeService.replaceEmployee(new Employee("Bilbo", "Baggins", "ring-bearer"), 1L, "\"2\", \"3\"");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        Mockito.verify(employeeRepository, Mockito.never()).findById(anyLong());
+        Mockito.verify(employeeRepository, Mockito.never()).save(any(Employee.class));
+    }
+
+    // }}
+
 }
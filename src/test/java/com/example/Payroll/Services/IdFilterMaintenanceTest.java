@@ -0,0 +1,73 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Controllers.Exceptions.EmployeeNotFoundException;
+import com.example.Payroll.Controllers.Exceptions.OrderNotFoundException;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Ropositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class IdFilterMaintenanceTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private IdFilter<Employee> employeeIds;
+
+    @Autowired
+    private IdFilter<Order> orderIds;
+
+    // {{ employees
+    @Test
+    public void employeeIds_FollowRepositoryWrites() {
+
+        assertTrue(employeeIds.isReady());
+
+        Long id = employeeRepository.save(new Employee("Meriadoc", "Brandybuck", "esquire")).getId();
+        assertTrue(employeeIds.mightContain(id));
+        assertEquals(id, employeeService.getEmployee(id, null).getBody().getContent().getId());
+
+        employeeService.deleteEmployee(id);
+        assertFalse(employeeIds.mightContain(id));
+
+        EmployeeNotFoundException e = assertThrows(EmployeeNotFoundException.class, () -> employeeService.getEmployee(id, null));
+        assertEquals(0, e.getStackTrace().length);
+    }
+    // }}
+
+    // {{ orders
+    @Test
+    public void orderIds_RejectUnknownIds() {
+
+        Long id = orderRepository.save(new Order("Mithril coat", Status.IN_PROGRESS)).getId();
+        assertTrue(orderIds.mightContain(id));
+        assertFalse(orderIds.mightContain(id + 1_000));
+
+        OrderNotFoundException e = assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(id + 1_000, null));
+        assertNull(e.getCause());
+        assertEquals(0, e.getStackTrace().length);
+    }
+    // }}
+}
@@ -0,0 +1,179 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotency-Key on POST, with the keys kept in the database next to what they created.
+ */
+@SpringBootTest(properties = "payroll.idempotency.store=jdbc")
+@AutoConfigureMockMvc
+public class IdempotentCreateTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IdempotencyKeys<Order> orderKeys;
+
+    // {{ POST /orders
+    @Test
+    public void newOrder_RetryReplaysTheFirstResponse() throws Exception {
+
+        long orders = orderRepository.count();
+
+        MockHttpServletResponse first = newOrder("order-1", "Mithril shirt");
+        MockHttpServletResponse retry = newOrder("order-1", "Mithril shirt");
+
+        assertNull(first.getHeader(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(first.getHeader("Location"), retry.getHeader("Location"));
+        assertEquals(idOf(first), idOf(retry));
+        assertEquals(orders + 1, orderRepository.count());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from idempotency_key where id = 'orders:order-1' and result is not null", Integer.class));
+    }
+
+    @Test
+    public void newOrder_KeyReusedForAnotherOrder() throws Exception {
+
+        newOrder("order-2", "Elven cloak");
+
+        this.mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyKeys.KEY_HEADER, "order-2")
+                        .content("{\"description\":\"Lembas\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+    // }}
+
+    // {{ concurrent claims
+    @Test
+    public void claim_LosingInsertReplaysTheCommittedOrder() throws Exception {
+
+        Order created = claimWhileAnotherCommits("order-3", new Order("Phial", Status.IN_PROGRESS),
+                new Order("Phial", Status.IN_PROGRESS), IdempotencyKeys.Outcome.REPLAYED);
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from idempotency_key where id = 'orders:order-3' and result is not null", Integer.class));
+        assertNotNull(created.getId());
+    }
+
+    @Test
+    public void claim_LosingInsertStillChecksTheBody() throws Exception {
+
+        claimWhileAnotherCommits("order-4", new Order("Sting", Status.IN_PROGRESS),
+                new Order("Glamdring", Status.IN_PROGRESS), IdempotencyKeys.Outcome.MISMATCH);
+    }
+    // }}
+
+    // {{ POST /employees
+    @Test
+    public void newEmployee_RetryReplaysTheFirstResponse() throws Exception {
+
+        String body = "{\"firstName\":\"Samwise\",\"lastName\":\"Gamgee\",\"role\":\"gardener\"}";
+
+        String first = this.mockMvc.perform(post("/employees").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyKeys.KEY_HEADER, "employee-1").content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        this.mockMvc.perform(post("/employees").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyKeys.KEY_HEADER, "employee-1").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyKeys.REPLAYED_HEADER, "true"))
+                .andExpect(header().string("Location", first));
+    }
+    // }}
+
+    // The second claim runs while the first request holds its uncommitted key row, so its insert collides
+    private Order claimWhileAnotherCommits(String key, Order first, Order second, IdempotencyKeys.Outcome expected)
+            throws Exception {
+
+        CountDownLatch claimed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Order> firstRequest = executor.submit(() -> transactionTemplate.execute(status ->
+                orderKeys.execute(key, first, () -> {
+                    Order saved = orderRepository.save(first);
+                    claimed.countDown();
+                    sleep(300);
+                    return saved;
+                }).getValue()));
+        executor.shutdown();
+        claimed.await(10, TimeUnit.SECONDS);
+
+        IdempotencyKeys.Result<Order> result = transactionTemplate.execute(status -> {
+            IdempotencyKeys.Result<Order> claim = orderKeys.execute(key, second, () -> {
+                throw new AssertionError("the key was already claimed");
+            });
+            // and the transaction is still usable
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from idempotency_key where id = ?",
+                    Integer.class, "orders:" + key));
+            return claim;
+        });
+
+        Order created = firstRequest.get(10, TimeUnit.SECONDS);
+        assertEquals(expected, result.getOutcome());
+        if (expected == IdempotencyKeys.Outcome.REPLAYED) {
+            assertEquals(created.getId(), result.getValue().getId());
+        }
+        return created;
+    }
+
+    private static void sleep(long millis) {
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private MockHttpServletResponse newOrder(String key, String description) throws Exception {
+
+        return this.mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .header(IdempotencyKeys.KEY_HEADER, key)
+                        .content("{\"description\":\"" + description + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+    }
+
+    private long idOf(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readTree(response.getContentAsString()).get("id").asLong();
+    }
+}
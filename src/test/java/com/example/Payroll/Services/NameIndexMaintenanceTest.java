@@ -0,0 +1,42 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.NameIndex;
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.EmployeeName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class NameIndexMaintenanceTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private NameIndex employeeNames;
+
+    // {{ employees
+    @Test
+    public void employeeNames_FollowServiceWrites() {
+
+        assertTrue(employeeNames.isReady());
+        String family = "Proudfoot" + System.nanoTime();
+
+        Long id = employeeService.newEmployee(new Employee("Odo", family, "guest")).getBody().getContent().getId();
+        assertEquals(Collections.singletonList(new EmployeeName(id, "Odo", family)), employeeNames.suggest(family, 10));
+
+        employeeService.replaceEmployee(new Employee("Olo", family, "guest"), id, null);
+        assertEquals(Collections.singletonList(new EmployeeName(id, "Olo", family)), employeeNames.suggest("olo " + family, 10));
+        assertTrue(employeeNames.suggest("odo " + family, 10).isEmpty());
+
+        employeeService.deleteEmployee(id);
+        assertTrue(employeeNames.suggest(family, 10).isEmpty());
+    }
+    // }}
+}
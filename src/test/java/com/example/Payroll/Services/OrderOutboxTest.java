@@ -0,0 +1,174 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Components.InProcessOutboxSink;
+import com.example.Payroll.Components.OutboxSink;
+import com.example.Payroll.Models.OutboxEvent;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order changes through the API end up in the in-process sink, in batches of two, polled every 50ms.
+ */
+@SpringBootTest(properties = {
+        "payroll.outbox.batch-size=2",
+        "payroll.outbox.poll-interval=PT0.05S"})
+@AutoConfigureMockMvc
+public class OrderOutboxTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private InProcessOutboxSink inProcessSink;
+
+    @Autowired
+    private FlakySink flakySink;
+
+    // {{ relay
+    @Test
+    public void orderChanges_RelayedInOrder() throws Exception {
+
+        Long first = newOrder("Mithril shirt");
+        Long second = newOrder("Elven cloak");
+        Long third = newOrder("Lembas");
+
+        this.mockMvc.perform(put("/orders/" + first + "/complete"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(post("/orders/cancel").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + second + "," + third + "," + first + "]}"))
+                .andExpect(status().isOk());
+
+        List<OutboxEvent> events = receive(6);
+
+        List<String> changes = events.stream() //
+                .map(event -> event.getOrderId() + ":" + event.getStatus()) //
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList( //
+                first + ":" + Status.IN_PROGRESS, //
+                second + ":" + Status.IN_PROGRESS, //
+                third + ":" + Status.IN_PROGRESS, //
+                first + ":" + Status.COMPLETED, //
+                second + ":" + Status.CANCELLED, //
+                third + ":" + Status.CANCELLED), changes);
+        awaitEmptyOutbox();
+    }
+
+    @Test
+    public void sinkFailure_BatchRetriedUntilDelivered() throws Exception {
+
+        flakySink.failNext(2);
+
+        Long id = newOrder("Phial of Galadriel");
+
+        List<OutboxEvent> events = receive(1);
+        assertEquals(id, events.get(0).getOrderId());
+        awaitEmptyOutbox();
+        assertEquals(0, flakySink.getFailuresLeft());
+    }
+    // }}
+
+    private Long newOrder(String description) throws Exception {
+
+        String body = this.mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"" + description + "\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    // The in-process sink may see a batch twice when the flaky one refuses it; duplicates are dropped here
+    private List<OutboxEvent> receive(int count) throws InterruptedException {
+
+        List<OutboxEvent> events = new ArrayList<>();
+        while (events.size() < count) {
+            OutboxEvent event = inProcessSink.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "timed out");
+            if (events.stream().noneMatch(seen -> seen.getId().equals(event.getId()))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private void awaitEmptyOutbox() throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (outboxRepository.count() > 0) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+        inProcessSink.drain();
+    }
+
+    /**
+     * Refuses the next {@code failures} batches.
+     */
+    static class FlakySink implements OutboxSink {
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        public void failNext(int batches) {
+            failures.set(batches);
+        }
+
+        public int getFailuresLeft() {
+            return failures.get();
+        }
+
+        @Override
+        public String getName() {
+            return "flaky";
+        }
+
+        @Override
+        public void publish(List<OutboxEvent> events) {
+
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("flaky");
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class Sinks {
+
+        @Bean
+        InProcessOutboxSink inProcessSink() {
+            return new InProcessOutboxSink("inProcess", 1000);
+        }
+
+        @Bean
+        FlakySink flakySink() {
+            return new FlakySink();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Models.Order;
+import com.example.Payroll.Models.Status;
+import com.example.Payroll.Ropositories.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest
+public class OrderServiceConcurrencyTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    // {{ cancel vs complete
+    @Test
+    public void concurrentCancelAndComplete_ExactlyOneWins() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 50; round++) {
+                Long orderId = orderRepository.save(new Order("Race " + round, Status.IN_PROGRESS)).getId();
+                CountDownLatch start = new CountDownLatch(1);
+
+                Future<ResponseEntity<?>> cancel = executor.submit(awaiting(start, () -> orderService.cancelOrder(orderId, null)));
+                Future<ResponseEntity<?>> complete = executor.submit(awaiting(start, () -> orderService.completeOrder(orderId, null)));
+                start.countDown();
+
+                HttpStatus cancelStatus = cancel.get().getStatusCode();
+                HttpStatus completeStatus = complete.get().getStatusCode();
+
+                assertNotEquals(cancelStatus, completeStatus);
+                Status expected = cancelStatus == HttpStatus.OK ? Status.CANCELLED : Status.COMPLETED;
+                assertEquals(expected, orderRepository.findById(orderId).get().getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    // }}
+
+    private static <T> Callable<T> awaiting(CountDownLatch start, Callable<T> call) {
+        return () -> {
+            start.await();
+            return call.call();
+        };
+    }
+}
@@ -1,26 +1,43 @@
 package com.example.Payroll.Services;
 
-import static com.sun.javaws.JnlpxArgs.verify;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+import com.example.Payroll.Components.EntityCache;
+import com.example.Payroll.Components.IdFilter;
+import com.example.Payroll.Components.IdempotencyKeys;
+import com.example.Payroll.Components.KeysetPage;
+import com.example.Payroll.Components.NdjsonExporter;
+import com.example.Payroll.Components.OrderEvents;
+import com.example.Payroll.Components.OrderOutbox;
+import com.example.Payroll.Components.SingleFlight;
 import com.example.Payroll.Components.OrderModelAssembler;
+import com.example.Payroll.Components.StatusCounts;
 import com.example.Payroll.Controllers.Exceptions.OrderNotFoundException;
 import com.example.Payroll.Controllers.OrderController;
+import com.example.Payroll.Models.BulkTransition;
+import com.example.Payroll.Models.MultiGetModel;
 import com.example.Payroll.Models.Order;
 import com.example.Payroll.Models.Status;
+import com.example.Payroll.Models.TransitionResult;
 import com.example.Payroll.Ropositories.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.aspectj.weaver.ast.Or;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.MediaTypes;
@@ -31,9 +48,19 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ui.ModelExtensionsKt;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class OrderServiceTest {
@@ -49,6 +76,31 @@ public class OrderServiceTest {
     @Mock
     private OrderModelAssembler assembler;
 
+    @Mock
+    private NdjsonExporter exporter;
+
+    @Spy
+    private EntityCache<Order> orderCache = EntityCache.disabled("orders");
+
+    @Spy
+    private IdFilter<Order> orderIds = IdFilter.disabled("orderIds");
+
+    @Spy
+    private SingleFlight<Long, Optional<Order>> orderLoads = new SingleFlight<>("orderLoads");
+
+    @Spy
+    private StatusCounts orderCounts = new StatusCounts("orderCounts");
+
+    @Mock
+    private OrderEvents orderEvents;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @Spy
+    private IdempotencyKeys<Order> orderKeys = IdempotencyKeys.inMemory("orders", new ObjectMapper(), Order.class, 100,
+            Duration.ofMinutes(1));
+
 
     @BeforeEach
     public void init() {
@@ -68,21 +120,21 @@ public class OrderServiceTest {
         Optional<Order> orderOptionalTwo = java.util.Optional.of(new Order("iPhone", Status.IN_PROGRESS));
         orderOptionalTwo.get().setId(orderIdTwo);
 
-        // give for mock orderRepository.fineAll()
+        // give for mock orderRepository.findByIdGreaterThanOrderByIdAsc()
         List<Order> orderList = new ArrayList<>();
         orderList.add(orderOptionalOne.get());
         orderList.add(orderOptionalTwo.get());
 
-        // give for mock assembler.toModel(any(Order.class))
+        // give for mock assembler.toModel(any(KeysetPage.class))
         EntityModel<Order> orderEntityOne = EntityModel.of(orderOptionalOne.get(),
-                    WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderIdOne)).withSelfRel(),
-                    linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                    WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderIdOne, null)).withSelfRel(),
+                    linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
 
         EntityModel<Order> orderEntityTwo = EntityModel.of(orderOptionalTwo.get(), //
-                    WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderIdTwo)).withSelfRel(),
-                    linkTo(methodOn(OrderController.class).all()).withRel("orders"));
-        orderEntityTwo.add(linkTo(methodOn(OrderController.class).cancel(orderIdTwo)).withRel("cancel"));
-        orderEntityTwo.add(linkTo(methodOn(OrderController.class).complete(orderIdTwo)).withRel("complete"));
+                    WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderIdTwo, null)).withSelfRel(),
+                    linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        orderEntityTwo.add(linkTo(methodOn(OrderController.class).cancel(orderIdTwo, null)).withRel("cancel"));
+        orderEntityTwo.add(linkTo(methodOn(OrderController.class).complete(orderIdTwo, null)).withRel("complete"));
 
         // give for expected
         List<EntityModel<Order>> orderEntityList = new ArrayList<>();
@@ -90,21 +142,159 @@ public class OrderServiceTest {
         orderEntityList.add(orderEntityTwo);
 
         CollectionModel<EntityModel<Order>> expected = CollectionModel.of(orderEntityList, //
-                linkTo(methodOn(OrderController.class).all()).withSelfRel());;
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withSelfRel().expand());;
 
 
         // mock
-        Mockito.when(orderRepository.findAll()).thenReturn(orderList);
-        Mockito.when(assembler.toModel(any(Order.class)))
-                .thenReturn(orderEntityOne)
-                .thenReturn(orderEntityTwo);
+        Mockito.when(orderRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class))).thenReturn(orderList);
+        Mockito.when(assembler.toModel(any(KeysetPage.class))).thenReturn(expected);
 
         // response
-        CollectionModel<EntityModel<Order>> response = orderService.getOrders();
+        CollectionModel<EntityModel<Order>> response = orderService.getOrders(null, null, null);
         assertEquals(expected, response);
 
-        Mockito.verify(orderRepository, Mockito.times(1)).findAll();
-        Mockito.verify(assembler, Mockito.times(2)).toModel(any(Order.class));
+        ArgumentCaptor<KeysetPage<Order>> page = ArgumentCaptor.forClass(KeysetPage.class);
+        Mockito.verify(orderRepository, Mockito.times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, KeysetPage.DEFAULT_SIZE + 1)));
+        Mockito.verify(orderRepository, Mockito.never()).findAll();
+        Mockito.verify(assembler, Mockito.times(1)).toModel(page.capture());
+        assertEquals(orderList, page.getValue().getContent());
+        assertNull(page.getValue().getNext());
+        assertNull(page.getValue().getPrevious());
+    }
+
+    @Test
+    public void getOrders_PageSizeIsBounded() {
+
+        orderService.getOrders(null, null, 1_000_000);
+
+        Mockito.verify(orderRepository, Mockito.times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, KeysetPage.MAX_SIZE + 1)));
+    }
+
+    @Test
+    public void getOrdersByStatus_PagesThroughThatStatus() {
+
+        Order inProgress = new Order("iPhone", Status.IN_PROGRESS);
+        inProgress.setId(2L);
+        Mockito.when(orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(eq(Status.IN_PROGRESS), eq(1L), any(Pageable.class))) //
+                .thenReturn(Collections.singletonList(inProgress));
+
+        orderService.getOrders(Status.IN_PROGRESS, 1L, null, 5);
+
+        ArgumentCaptor<KeysetPage<Order>> page = ArgumentCaptor.forClass(KeysetPage.class);
+        Mockito.verify(orderRepository, Mockito.times(1)).findByStatusAndIdGreaterThanOrderByIdAsc(Status.IN_PROGRESS, 1L, PageRequest.of(0, 6));
+        Mockito.verify(orderRepository, Mockito.never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+        Mockito.verify(assembler, Mockito.times(1)).toModel(page.capture(), eq(Status.IN_PROGRESS));
+        assertEquals(Collections.singletonList(inProgress), page.getValue().getContent());
+    }
+    // }}
+
+    // {{ order stats
+    @Test
+    public void orderCounts_FollowNewOrderAndTransitions() {
+
+        Mockito.when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+        Mockito.when(orderRepository.compareAndSetStatus(anyLong(), eq(Status.IN_PROGRESS), any(Status.class))).thenReturn(1);
+        Mockito.when(orderRepository.findById(anyLong())).thenReturn(Optional.of(new Order("iPhone", Status.COMPLETED)));
+        Mockito.when(assembler.toModel(any(Order.class))).thenReturn(EntityModel.of(new Order(), //
+                linkTo(methodOn(OrderController.class).one(1L, null)).withSelfRel()));
+        Order inProgress = new Order("iPad", Status.IN_PROGRESS);
+        inProgress.setId(3L);
+        Mockito.when(orderRepository.findByIdBetweenAndStatusOrderByIdAsc(1L, 3L, Status.IN_PROGRESS)).thenReturn(Collections.singletonList(inProgress));
+        Mockito.when(orderRepository.updateStatus(Collections.singletonList(3L), Status.IN_PROGRESS, Status.CANCELLED)).thenReturn(1);
+
+        for (int i = 0; i < 4; i++) {
+            orderService.newOrder(new Order("iPhone", null));
+        }
+        orderService.completeOrder(1L, null);
+        orderService.cancelOrder(2L, null);
+        orderService.cancelOrders(new BulkTransition(1L, 3L));
+
+        Map<Status, Long> expected = new HashMap<>();
+        expected.put(Status.IN_PROGRESS, 1L);
+        expected.put(Status.COMPLETED, 1L);
+        expected.put(Status.CANCELLED, 2L);
+        assertEquals(expected, orderCounts.snapshot());
+    }
+
+    @Test
+    public void orderEvents_PublishAndRecordNewOrderAndTransitions() {
+
+        Mockito.when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+        Mockito.when(orderRepository.compareAndSetStatus(1L, Status.IN_PROGRESS, Status.COMPLETED)).thenReturn(1);
+        Mockito.when(orderRepository.findById(1L)).thenReturn(Optional.of(new Order("iPhone", Status.COMPLETED)));
+        Mockito.when(assembler.toModel(any(Order.class))).thenReturn(EntityModel.of(new Order(), //
+                linkTo(methodOn(OrderController.class).one(1L, null)).withSelfRel()));
+        Order inProgress = new Order("iPad", Status.IN_PROGRESS);
+        inProgress.setId(3L);
+        Mockito.when(orderRepository.findByIdBetweenAndStatusOrderByIdAsc(1L, 3L, Status.IN_PROGRESS)).thenReturn(Collections.singletonList(inProgress));
+        Mockito.when(orderRepository.updateStatus(Collections.singletonList(3L), Status.IN_PROGRESS, Status.CANCELLED)).thenReturn(1);
+
+        orderService.newOrder(new Order("iPhone", null));
+        orderService.completeOrder(1L, null);
+        orderService.cancelOrders(new BulkTransition(1L, 3L));
+
+        Mockito.verify(orderEvents).publish(1L, Status.IN_PROGRESS);
+        Mockito.verify(orderEvents).publish(1L, Status.COMPLETED);
+        Mockito.verify(orderEvents).publish(Collections.singletonList(3L), Status.CANCELLED);
+        Mockito.verifyNoMoreInteractions(orderEvents);
+
+        Mockito.verify(orderOutbox).record(1L, Status.IN_PROGRESS);
+        Mockito.verify(orderOutbox).record(1L, Status.COMPLETED);
+        Mockito.verify(orderOutbox).record(Collections.singletonList(3L), Status.CANCELLED);
+        Mockito.verifyNoMoreInteractions(orderOutbox);
+    }
+
+    @Test
+    public void subscribeToOrders_TooManySubscribers() {
+
+        Mockito.when(orderEvents.subscribe(null)).thenReturn(null);
+
+        ResponseEntity<?> response = orderService.subscribeToOrders(null);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void reconcileOrderCounts_ReplacesCountsWithTableCounts() {
+
+        orderCounts.created(Status.IN_PROGRESS, 5);
+        OrderRepository.StatusCount completed = Mockito.mock(OrderRepository.StatusCount.class);
+        Mockito.when(completed.getStatus()).thenReturn(Status.COMPLETED);
+        Mockito.when(completed.getCount()).thenReturn(7L);
+        Mockito.when(orderRepository.countByStatus()).thenReturn(Collections.singletonList(completed));
+
+        orderService.reconcileOrderCounts();
+
+        assertEquals(0L, orderCounts.snapshot().get(Status.IN_PROGRESS));
+        assertEquals(7L, orderCounts.snapshot().get(Status.COMPLETED));
+        assertEquals(12L, orderCounts.stats().get("drift"));
+    }
+    // }}
+
+    // {{ exportOrders
+    @Test
+    public void exportOrders_WritesCursorAndClosesIt() throws IOException {
+
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Order> orders = Stream.of(new Order("MacBook Pro", Status.COMPLETED)).onClose(() -> closed.set(true));
+        Mockito.when(orderRepository.streamAllByOrderByIdAsc()).thenReturn(orders);
+        Mockito.when(exporter.write(any(), any())).thenReturn(1L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1L, orderService.exportOrders(out));
+        assertTrue(closed.get());
+
+        Mockito.verify(exporter, Mockito.times(1)).write(orders, out);
+        Mockito.verify(orderRepository, Mockito.never()).findAll();
     }
     // }}
 
@@ -120,15 +310,15 @@ public class OrderServiceTest {
 
         // mock assembler toModel
         EntityModel<Order> orderEntityModel = EntityModel.of(newOrderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId)).withRel("cancel"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId)).withRel("complete"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId, null)).withRel("cancel"));
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId, null)).withRel("complete"));
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(orderEntityModel);
 
         // expected
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity //
-                .created(linkTo(methodOn(OrderController.class).one(orderId)).toUri()) //
+                .created(linkTo(methodOn(OrderController.class).one(orderId, null)).toUri()) //
                 .body(orderEntityModel);
 
         // return response entity
@@ -150,15 +340,15 @@ public class OrderServiceTest {
 
         // mock assembler toModel
         EntityModel<Order> orderEntityModel = EntityModel.of(newOrderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId)).withRel("cancel"));
-        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId)).withRel("complete"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).cancel(orderId, null)).withRel("cancel"));
+        orderEntityModel.add(linkTo(methodOn(OrderController.class).complete(orderId, null)).withRel("complete"));
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(orderEntityModel);
 
         // expected
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity //
-                .created(linkTo(methodOn(OrderController.class).one(orderId)).toUri()) //
+                .created(linkTo(methodOn(OrderController.class).one(orderId, null)).toUri()) //
                 .body(orderEntityModel);
 
         // return response entity
@@ -170,6 +360,62 @@ public class OrderServiceTest {
     }
     // }}
 
+    // {{ Idempotency-Key
+    @Test
+    public void newOrder_IdempotencyKeyReplaysWithoutRepository() {
+
+        Order saved = new Order("MacBook Pro", Status.IN_PROGRESS);
+        saved.setId(4L);
+        Mockito.when(orderRepository.save(any(Order.class))).thenReturn(saved);
+        Mockito.when(assembler.toModel(any(Order.class))).thenAnswer(invocation -> EntityModel.of(saved,
+                linkTo(methodOn(OrderController.class).one(4L, null)).withSelfRel()));
+
+        ResponseEntity<?> first = orderService.newOrder(new Order("MacBook Pro", null), "key-1");
+        ResponseEntity<?> retry = orderService.newOrder(new Order("MacBook Pro", null), "key-1");
+
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+        assertNull(first.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyKeys.REPLAYED_HEADER));
+        assertEquals(first.getHeaders().getLocation(), retry.getHeaders().getLocation());
+        assertEquals(first.getBody(), retry.getBody());
+        Mockito.verify(orderRepository, Mockito.times(1)).save(any(Order.class));
+        Mockito.verify(orderOutbox, Mockito.times(1)).record(4L, Status.IN_PROGRESS);
+        assertEquals(1L, orderKeys.stats().get("replayed"));
+    }
+
+    @Test
+    public void newOrder_IdempotencyKeyReusedForAnotherOrder() {
+
+        Order saved = new Order("MacBook Pro", Status.IN_PROGRESS);
+        saved.setId(4L);
+        Mockito.when(orderRepository.save(any(Order.class))).thenReturn(saved);
+        Mockito.when(assembler.toModel(any(Order.class))).thenAnswer(invocation -> EntityModel.of(saved,
+                linkTo(methodOn(OrderController.class).one(4L, null)).withSelfRel()));
+
+        orderService.newOrder(new Order("MacBook Pro", null), "key-1");
+        ResponseEntity<?> reused = orderService.newOrder(new Order("iPhone", null), "key-1");
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(MediaTypes.HTTP_PROBLEM_DETAILS_JSON, reused.getHeaders().getContentType());
+        Mockito.verify(orderRepository, Mockito.times(1)).save(any(Order.class));
+    }
+
+    @Test
+    public void newOrder_IdempotencyKeyTooLong() {
+
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i <= IdempotencyKeys.MAX_KEY_LENGTH; i++) {
+            key.append('k');
+        }
+
+        ResponseEntity<?> response = orderService.newOrder(new Order("MacBook Pro", null), key.toString());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verify(orderRepository, Mockito.never()).save(any(Order.class));
+    }
+    // }}
+
 
     // {{ get Order
     @Test
@@ -183,13 +429,13 @@ public class OrderServiceTest {
 
         // mock assembler toModel and expected
         EntityModel<Order> expected = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(expected);
 
 
         // return response entity
-        EntityModel<Order> orderEntityModel = orderService.getOrder(orderId);
+        EntityModel<Order> orderEntityModel = orderService.getOrder(orderId, null).getBody();
         assertEquals(expected, orderEntityModel);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -208,16 +454,16 @@ public class OrderServiceTest {
 
         // mock assembler toModel and expected
         EntityModel<Order> expected = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
-        expected.add(linkTo(methodOn(OrderController.class).cancel(orderId)).withRel("cancel"));
-        expected.add(linkTo(methodOn(OrderController.class).complete(orderId)).withRel("complete"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
+        expected.add(linkTo(methodOn(OrderController.class).cancel(orderId, null)).withRel("cancel"));
+        expected.add(linkTo(methodOn(OrderController.class).complete(orderId, null)).withRel("complete"));
 
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(expected);
 
 
         // return response entity
-        EntityModel<Order> orderEntityModel = orderService.getOrder(orderId);
+        EntityModel<Order> orderEntityModel = orderService.getOrder(orderId, null).getBody();
         assertEquals(expected, orderEntityModel);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -231,10 +477,102 @@ public class OrderServiceTest {
 
         Long orderId = 99L;
         Mockito.when(orderRepository.findById(orderId)).thenThrow(new OrderNotFoundException(orderId));
-        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(orderId));
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(orderId, null));
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
     }
+
+    @Test
+    public void getOrder_UnknownIdSkipsRepository() {
+
+        IdFilter<Order> loadedIds = IdFilter.of("orderIds");
+        loadedIds.load(Stream.of(1L, 2L));
+        OrderService filteredService = new OrderService(orderRepository, assembler, exporter, orderCache, loadedIds, orderLoads, orderCounts, orderEvents, orderOutbox, orderKeys);
+
+        assertThrows(OrderNotFoundException.class, () -> filteredService.getOrder(99L, null));
+
+        Mockito.verify(orderRepository, Mockito.never()).findById(anyLong());
+    }
+
+    @Test
+    public void getOrder_CacheInvalidatedByTransition() {
+
+        OrderService cachedService = new OrderService(orderRepository, assembler, exporter,
+                EntityCache.of("orders", 10, Duration.ofMinutes(1)), orderIds, orderLoads, orderCounts, orderEvents, orderOutbox, orderKeys);
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+        Mockito.when(orderRepository.compareAndSetStatus(2L, Status.IN_PROGRESS, Status.COMPLETED)).thenReturn(1);
+
+        cachedService.getOrder(2L, null);
+        cachedService.getOrder(2L, null);
+        Mockito.verify(orderRepository, Mockito.times(1)).findById(2L);
+
+        cachedService.completeOrder(2L, null);
+        cachedService.getOrder(2L, null);
+
+        // the transition reads the order for its response and the next get has to reload it
+        Mockito.verify(orderRepository, Mockito.times(3)).findById(2L);
+    }
+    // }}
+
+
+    // {{ get Orders by ids
+    @Test
+    public void getOrdersByIds_RequestOrderAndMissing() {
+
+        Order iPhone = new Order("iPhone", Status.IN_PROGRESS);
+        iPhone.setId(2L);
+        Order macBook = new Order("MacBook Pro", Status.COMPLETED);
+        macBook.setId(1L);
+        Mockito.when(orderRepository.findAllById(Arrays.asList(2L, 9L, 1L))).thenReturn(Arrays.asList(macBook, iPhone));
+
+        Map<Long, Order> found = new HashMap<>();
+        found.put(1L, macBook);
+        found.put(2L, iPhone);
+        MultiGetModel<Order> model = new MultiGetModel<>(Collections.emptyList(), Arrays.asList(9L));
+        Mockito.when(assembler.toModel(Arrays.asList(2L, 9L, 1L), found)).thenReturn(model);
+
+        ResponseEntity<?> response = orderService.getOrders(Arrays.asList(2L, 9L, 2L, 1L));
+
+        assertEquals(ResponseEntity.ok(model), response);
+        Mockito.verify(orderRepository, Mockito.times(1)).findAllById(any());
+    }
+
+    @Test
+    public void getOrdersByIds_ChunkedAndFiltered() {
+
+        IdFilter<Order> loadedIds = IdFilter.of("orderIds");
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2_500; id++) {
+            ids.add(id);
+        }
+        loadedIds.load(ids.stream().filter(id -> id <= 2_100));
+        OrderService filteredService = new OrderService(orderRepository, assembler, exporter, orderCache, loadedIds, orderLoads, orderCounts, orderEvents, orderOutbox, orderKeys);
+
+        filteredService.getOrders(ids);
+
+        ArgumentCaptor<List<Long>> chunks = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(orderRepository, Mockito.times(3)).findAllById(chunks.capture());
+        assertEquals(Arrays.asList(1_000, 1_000, 100), chunks.getAllValues().stream() //
+                .map(List::size) //
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getOrdersByIds_TooMany() {
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= OrderService.MAX_MULTI_GET + 1; id++) {
+            ids.add(id);
+        }
+
+        ResponseEntity<?> response = orderService.getOrders(ids);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verify(orderRepository, Mockito.never()).findAllById(any());
+    }
     // }}
 
     // {{ cancel Order
@@ -256,7 +594,7 @@ public class OrderServiceTest {
                         .withDetail("You can't cancel an order that is in the " + orderOptional.get().getStatus() + " status"));
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -281,7 +619,7 @@ public class OrderServiceTest {
                         .withDetail("You can't cancel an order that is in the " + orderOptional.get().getStatus() + " status"));
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -293,7 +631,7 @@ public class OrderServiceTest {
 
         Long orderId = 99L;
         Mockito.when(orderRepository.findById(orderId)).thenThrow(new OrderNotFoundException(orderId));
-        assertThrows(OrderNotFoundException.class, () -> orderService.cancelOrder(orderId));
+        assertThrows(OrderNotFoundException.class, () -> orderService.cancelOrder(orderId, null));
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
     }
@@ -307,29 +645,95 @@ public class OrderServiceTest {
         orderOptional.get().setId(orderId);
         Mockito.when(orderRepository.findById(orderId)).thenReturn(orderOptional);
 
-        // mock save
-        Mockito.when(orderRepository.save(any(Order.class))).thenReturn(orderOptional.get());
+        // mock conditional update
+        Mockito.when(orderRepository.compareAndSetStatus(orderId, Status.IN_PROGRESS, Status.CANCELLED)).thenReturn(1);
 
         // mock assembler toModel
         EntityModel<Order> orderModel = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(orderModel);
 
         // expected
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity.ok(orderModel);
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.cancelOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(orderRepository, Mockito.times(1)).save(any(Order.class));
+        Mockito.verify(orderRepository, Mockito.times(1)).compareAndSetStatus(orderId, Status.IN_PROGRESS, Status.CANCELLED);
+        Mockito.verify(orderRepository, Mockito.never()).save(any(Order.class));
         Mockito.verify(assembler, Mockito.times(1)).toModel(any(Order.class));
 
     }
     // }}
 
+    // {{ conditional requests
+    @Test
+    public void getOrder_IfNoneMatch_NotModified() {
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+        order.setVersion(4L);
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+
+        ResponseEntity<EntityModel<Order>> response = orderService.getOrder(2L, "W/\"3\", \"4\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        Mockito.verify(assembler, Mockito.never()).toModel(any(Order.class));
+    }
+
+    @Test
+    public void cancelOrder_IfMatchStale_PreconditionFailed() {
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+        order.setVersion(4L);
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+
+        ResponseEntity<?> response = orderService.cancelOrder(2L, "\"3\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verify(orderRepository, Mockito.never()).compareAndSetStatus(anyLong(), any(), any(), any());
+        Mockito.verify(orderRepository, Mockito.never()).compareAndSetStatus(anyLong(), any(), any());
+    }
+
+    @Test
+    public void completeOrder_IfMatchCurrent_UpdatesAtThatVersion() {
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+        order.setVersion(4L);
+        Order completed = new Order("iPhone", Status.COMPLETED);
+        completed.setId(2L);
+        completed.setVersion(5L);
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(order), Optional.of(completed));
+        Mockito.when(orderRepository.compareAndSetStatus(2L, Status.IN_PROGRESS, Status.COMPLETED, 4L)).thenReturn(1);
+
+        ResponseEntity<?> response = orderService.completeOrder(2L, "\"4\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"5\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void completeOrder_IfMatchRaced_PreconditionFailed() {
+
+        Order order = new Order("iPhone", Status.IN_PROGRESS);
+        order.setId(2L);
+        order.setVersion(4L);
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+        Mockito.when(orderRepository.compareAndSetStatus(2L, Status.IN_PROGRESS, Status.COMPLETED, 4L)).thenReturn(0);
+
+        ResponseEntity<?> response = orderService.completeOrder(2L, "\"4\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    }
+    // }}
+
     // {{ complete Order
     @Test
     public void completeOrder_FindOrderSuccessful_ThenStatus_COMPLETED() {
@@ -349,7 +753,7 @@ public class OrderServiceTest {
                         .withDetail("You can't complete an order that is in the " + orderOptional.get().getStatus() + " status"));
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -374,7 +778,7 @@ public class OrderServiceTest {
                         .withDetail("You can't complete an order that is in the " + orderOptional.get().getStatus() + " status"));
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
@@ -390,24 +794,25 @@ public class OrderServiceTest {
         orderOptional.get().setId(orderId);
         Mockito.when(orderRepository.findById(orderId)).thenReturn(orderOptional);
 
-        // mock save
-        Mockito.when(orderRepository.save(any(Order.class))).thenReturn(orderOptional.get());
+        // mock conditional update
+        Mockito.when(orderRepository.compareAndSetStatus(orderId, Status.IN_PROGRESS, Status.COMPLETED)).thenReturn(1);
 
         // mock assembler toModel
         EntityModel<Order> orderModel = EntityModel.of(orderOptional.get(),
-                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId)).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                WebMvcLinkBuilder.linkTo(methodOn(OrderController.class).one(orderId, null)).withSelfRel(),
+                linkTo(methodOn(OrderController.class).all(null, null, null)).withRel("orders").expand());
         Mockito.when(assembler.toModel(any(Order.class))).thenReturn(orderModel);
 
         // expected
         ResponseEntity<EntityModel<Order>> expected = ResponseEntity.ok(orderModel);
 
         // return response entity
-        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId);
+        ResponseEntity<?> orderResponseEntity = orderService.completeOrder(orderId, null);
         assertEquals(expected, orderResponseEntity);
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
-        Mockito.verify(orderRepository, Mockito.times(1)).save(any(Order.class));
+        Mockito.verify(orderRepository, Mockito.times(1)).compareAndSetStatus(orderId, Status.IN_PROGRESS, Status.COMPLETED);
+        Mockito.verify(orderRepository, Mockito.never()).save(any(Order.class));
         Mockito.verify(assembler, Mockito.times(1)).toModel(any(Order.class));
     }
 
@@ -416,10 +821,114 @@ public class OrderServiceTest {
 
         Long orderId = 99L;
         Mockito.when(orderRepository.findById(orderId)).thenThrow(new OrderNotFoundException(orderId));
-        assertThrows(OrderNotFoundException.class, () -> orderService.completeOrder(orderId));
+        assertThrows(OrderNotFoundException.class, () -> orderService.completeOrder(orderId, null));
 
         Mockito.verify(orderRepository, Mockito.times(1)).findById(anyLong());
     }
     // }}
 
+
+    // {{ bulk transitions
+    @Test
+    public void completeOrders_ByIds_ReportsEveryId() {
+
+        Order inProgress = new Order("iPhone", Status.IN_PROGRESS);
+        inProgress.setId(2L);
+        Order completed = new Order("MacBook Pro", Status.COMPLETED);
+        completed.setId(1L);
+        Mockito.when(orderRepository.findByIdInOrderByIdAsc(Arrays.asList(1L, 2L, 99L))).thenReturn(Arrays.asList(completed, inProgress));
+        Mockito.when(orderRepository.updateStatus(Collections.singletonList(2L), Status.IN_PROGRESS, Status.COMPLETED)).thenReturn(1);
+
+        ResponseEntity<?> response = orderService.completeOrders(new BulkTransition(Arrays.asList(99L, 2L, 1L, 2L)));
+
+        List<TransitionResult> expected = Arrays.asList( //
+                TransitionResult.notFound(99L), //
+                TransitionResult.transitioned(2L, Status.COMPLETED), //
+                TransitionResult.wrongState(1L, Status.COMPLETED, "You can't complete an order that is in the COMPLETED status"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expected, response.getBody());
+
+        Mockito.verify(orderRepository, Mockito.times(1)).updateStatus(Collections.singletonList(2L), Status.IN_PROGRESS, Status.COMPLETED);
+        Mockito.verify(orderRepository, Mockito.never()).save(any(Order.class));
+    }
+
+    @Test
+    public void cancelOrders_ByRange_OnlyInProgress() {
+
+        Order inProgress = new Order("iPhone", Status.IN_PROGRESS);
+        inProgress.setId(2L);
+        Mockito.when(orderRepository.findByIdBetweenAndStatusOrderByIdAsc(1L, 3L, Status.IN_PROGRESS)).thenReturn(Collections.singletonList(inProgress));
+        Mockito.when(orderRepository.updateStatus(Collections.singletonList(2L), Status.IN_PROGRESS, Status.CANCELLED)).thenReturn(1);
+
+        ResponseEntity<?> response = orderService.cancelOrders(new BulkTransition(1L, 3L));
+
+        assertEquals(Collections.singletonList(TransitionResult.transitioned(2L, Status.CANCELLED)), response.getBody());
+        Mockito.verify(orderRepository, Mockito.times(1)).updateStatus(Collections.singletonList(2L), Status.IN_PROGRESS, Status.CANCELLED);
+    }
+
+    @Test
+    public void completeOrders_UpdateMovesFewerRows_ReportsWhatItMoved() {
+
+        Order first = new Order("iPhone", Status.IN_PROGRESS);
+        first.setId(1L);
+        Order second = new Order("iPad", Status.IN_PROGRESS);
+        second.setId(2L);
+        Order secondNow = new Order("iPad", Status.CANCELLED);
+        secondNow.setId(2L);
+        Order firstNow = new Order("iPhone", Status.COMPLETED);
+        firstNow.setId(1L);
+        Mockito.when(orderRepository.findByIdInOrderByIdAsc(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(first, second));
+        Mockito.when(orderRepository.updateStatus(Arrays.asList(1L, 2L), Status.IN_PROGRESS, Status.COMPLETED)).thenReturn(1);
+        Mockito.when(orderRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(firstNow, secondNow));
+        Mockito.when(orderRepository.findById(2L)).thenReturn(Optional.of(secondNow));
+
+        ResponseEntity<?> response = orderService.completeOrders(new BulkTransition(Arrays.asList(1L, 2L)));
+
+        List<TransitionResult> expected = Arrays.asList( //
+                TransitionResult.transitioned(1L, Status.COMPLETED), //
+                TransitionResult.wrongState(2L, Status.CANCELLED, "You can't complete an order that is in the CANCELLED status"));
+        assertEquals(expected, response.getBody());
+        Mockito.verify(orderOutbox).record(Collections.singletonList(1L), Status.COMPLETED);
+        Mockito.verify(orderEvents).publish(Collections.singletonList(1L), Status.COMPLETED);
+    }
+
+    @Test
+    public void cancelOrders_NullId_BadRequest() {
+
+        ResponseEntity<?> response = orderService.cancelOrders(new BulkTransition(Arrays.asList(1L, null)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    public void cancelOrders_ReversedRange_BadRequest() {
+
+        ResponseEntity<?> response = orderService.cancelOrders(new BulkTransition(3L, 1L));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    public void cancelOrders_OverflowingRange_BadRequest() {
+
+        ResponseEntity<?> response = orderService.cancelOrders(new BulkTransition(-1L, Long.MAX_VALUE));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE, response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        Mockito.verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    public void cancelOrders_NoSelection_BadRequest() {
+
+        ResponseEntity<?> response = orderService.cancelOrders(new BulkTransition());
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE, response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        Mockito.verifyNoInteractions(orderRepository);
+    }
+    // }}
+
 }
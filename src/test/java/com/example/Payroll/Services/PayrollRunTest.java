@@ -0,0 +1,207 @@
+package com.example.Payroll.Services;
+
+import com.example.Payroll.Models.Employee;
+import com.example.Payroll.Models.PayrollCheckpoint;
+import com.example.Payroll.Models.PayrollRun;
+import com.example.Payroll.Models.PayrollRunProgress;
+import com.example.Payroll.Models.Payslip;
+import com.example.Payroll.Models.RunStatus;
+import com.example.Payroll.Ropositories.EmployeeRepository;
+import com.example.Payroll.Ropositories.PayrollCheckpointRepository;
+import com.example.Payroll.Ropositories.PayrollRunRepository;
+import com.example.Payroll.Ropositories.PayslipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tiny chunks so that even a few hundred employees take many checkpoints across several partitions
+@SpringBootTest(properties = {"payroll.run.chunk-size=16", "payroll.run.partitions=4", "payroll.run.parallelism=4",
+        "payroll.run.batch-size=5"})
+public class PayrollRunTest {
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private PayrollCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PayslipRepository payslipRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // {{ runs
+    @Test
+    public void run_PaysEveryEmployeeOnce() throws InterruptedException {
+
+        newEmployees(300);
+        double chunksBefore = registry.timer("payroll.run.chunk").count();
+
+        ResponseEntity<?> started = payrollService.startRun();
+        assertEquals(HttpStatus.ACCEPTED, started.getStatusCode());
+        assertNotNull(started.getHeaders().getLocation());
+        Long id = ((PayrollRunProgress) started.getBody()).getId();
+
+        PayrollRunProgress run = awaitStopped(id);
+
+        // every employee so far, including the preloaded ones and those of the other tests here
+        assertEquals(RunStatus.COMPLETED, run.getStatus());
+        assertEquals(employeeRepository.count(), payslipRepository.countByRunId(id));
+        assertEquals(employeeRepository.count(), run.getEmployees());
+        assertEquals(1.0, run.getProgress());
+        assertEquals(4, run.getCheckpoints().size());
+        assertTrue(registry.timer("payroll.run.chunk").count() - chunksBefore >= 300 / 16);
+        assertTrue(run.getEmployeesPerSecond() > 0);
+        assertNull(run.getLink("pause").orElse(null));
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, payrollService.pauseRun(id).getStatusCode());
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, payrollService.resumeRun(id).getStatusCode());
+    }
+
+    @Test
+    public void run_ResumesFromCheckpointsAfterRestart() throws InterruptedException {
+
+        List<Long> ids = newEmployees(100);
+
+        // what a process that died mid-run leaves behind: partition 0 halfway, its next chunk partly written
+        PayrollRun interrupted = payrollRunRepository.save(new PayrollRun(ids.get(0), ids.get(99) + 1));
+        Long id = interrupted.getId();
+        PayrollCheckpoint first = new PayrollCheckpoint(id, 0, ids.get(0), ids.get(50));
+        PayrollCheckpoint second = new PayrollCheckpoint(id, 1, ids.get(50), ids.get(99) + 1);
+        first.setLastId(ids.get(24));
+        first.setEmployees(25);
+        first.setGross(new BigDecimal("3000.00").multiply(new BigDecimal(25)));
+        checkpointRepository.saveAll(Arrays.asList(first, second));
+        for (int i = 0; i < 30; i++) {
+            payslipRepository.save(new Payslip(id, ids.get(i), "gardener", new BigDecimal("3000.00"), new BigDecimal("600.00")));
+        }
+
+        payrollService.recoverRuns();
+        PayrollRunProgress run = awaitStopped(id);
+
+        assertEquals(RunStatus.COMPLETED, run.getStatus());
+        assertEquals(100, payslipRepository.countByRunId(id));
+        assertEquals(100, run.getEmployees());
+        assertEquals(new BigDecimal("300000.00"), run.getGross());
+        assertNull(run.getFailure());
+    }
+
+    @Test
+    public void pause_RunNotExecutingHereIsPausedAtOnce() {
+
+        List<Long> ids = newEmployees(10);
+        PayrollRun orphan = payrollRunRepository.save(new PayrollRun(ids.get(0), ids.get(9) + 1));
+        checkpointRepository.save(new PayrollCheckpoint(orphan.getId(), 0, ids.get(0), ids.get(9) + 1));
+
+        ResponseEntity<?> paused = payrollService.pauseRun(orphan.getId());
+
+        assertEquals(HttpStatus.ACCEPTED, paused.getStatusCode());
+        assertEquals(RunStatus.PAUSED, payrollService.getRun(orphan.getId()).getStatus());
+        assertTrue(payrollService.getRun(orphan.getId()).getLink("resume").isPresent());
+        assertEquals(0.0, payrollService.getRun(orphan.getId()).getProgress());
+    }
+
+    @Test
+    public void resume_ConcurrentResumesStartTheRunOnce() throws Exception {
+
+        List<Long> ids = newEmployees(50);
+        PayrollRun paused = new PayrollRun(ids.get(0), ids.get(49) + 1);
+        paused.interrupt(null);
+        Long id = payrollRunRepository.save(paused).getId();
+        checkpointRepository.save(new PayrollCheckpoint(id, 0, ids.get(0), ids.get(49) + 1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return payrollService.resumeRun(id).getStatusCode();
+            }));
+        }
+        start.countDown();
+
+        int accepted = 0;
+        for (Future<HttpStatus> response : responses) {
+            HttpStatus status = response.get(10, TimeUnit.SECONDS);
+            if (status == HttpStatus.ACCEPTED) {
+                accepted++;
+            } else if (status != HttpStatus.CONFLICT) {
+                assertEquals(HttpStatus.METHOD_NOT_ALLOWED, status);
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, accepted);
+        assertEquals(RunStatus.COMPLETED, awaitStopped(id).getStatus());
+        assertEquals(50, payslipRepository.countByRunId(id));
+    }
+
+    @Test
+    public void save_StaleRunIsRejected() {
+
+        List<Long> ids = newEmployees(1);
+        PayrollRun run = payrollRunRepository.save(new PayrollRun(ids.get(0), ids.get(0) + 1));
+        PayrollRun stale = payrollRunRepository.findById(run.getId()).get();
+
+        run.interrupt(null);
+        payrollRunRepository.save(run);
+
+        stale.stop(RunStatus.COMPLETED, Instant.now(), null);
+        assertThrows(OptimisticLockingFailureException.class, () -> payrollRunRepository.save(stale));
+        assertEquals(RunStatus.PAUSED, payrollService.getRun(run.getId()).getStatus());
+    }
+    // }}
+
+    private List<Long> newEmployees(int count) {
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee("Hobbit" + i, "Took", "gardener"));
+        }
+        return employeeService.newEmployees(employees.iterator());
+    }
+
+    private PayrollRunProgress awaitStopped(Long id) throws InterruptedException {
+
+        for (int attempt = 0; attempt < 200; attempt++) {
+            PayrollRunProgress run = payrollService.getRun(id);
+            if (run.getStatus() != RunStatus.RUNNING) {
+                return run;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Payroll run " + id + " did not stop");
+    }
+}